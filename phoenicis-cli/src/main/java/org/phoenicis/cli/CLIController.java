@@ -26,6 +26,8 @@ import org.graalvm.polyglot.Value;
 import org.phoenicis.library.ShortcutRunner;
 import org.phoenicis.multithreading.ControlledThreadPoolExecutorServiceCloser;
 import org.phoenicis.repository.RepositoryManager;
+import org.phoenicis.repository.dto.ApplicationDTO;
+import org.phoenicis.repository.dto.RepositorySearchIndex;
 import org.phoenicis.repository.dto.ScriptDTO;
 import org.phoenicis.scripts.Installer;
 import org.phoenicis.scripts.interpreter.ScriptInterpreter;
@@ -40,6 +42,8 @@ import java.util.List;
 
 public class CLIController implements AutoCloseable {
     private static final Logger LOGGER = LoggerFactory.getLogger(CLIController.class);
+    private static final int MAXIMUM_SEARCH_RESULTS = 20;
+
     private final ConfigurableApplicationContext applicationContext;
     private final RepositoryManager repositoryManager;
     private final ScriptInterpreter scriptInterpreter;
@@ -123,6 +127,44 @@ public class CLIController implements AutoCloseable {
                 }, Throwable::printStackTrace);
     }
 
+    @Option
+    @LongSwitch("search")
+    @ShortSwitch("f")
+    @AllAvailableArguments
+    public void searchApps(List<String> arguments) {
+        final String searchTerm = String.join(" ", arguments);
+
+        final List<RepositorySearchIndex.Result> results = repositoryManager.searchApplications(searchTerm);
+
+        if (results.isEmpty()) {
+            LOGGER.info("No app matches: " + searchTerm);
+            return;
+        }
+
+        results.stream().limit(MAXIMUM_SEARCH_RESULTS).forEach(result -> {
+            final ApplicationDTO application = result.getApplication();
+
+            // the matches are the result of the command, they are printed to stdout instead of the log on purpose,
+            // so that the arguments required by -install in front of the application name can be read by scripts
+            System.out.println(String.format("%s %s %s\t%s", application.getTypeId(),
+                    removePrefix(application.getCategoryId(), application.getTypeId()),
+                    removePrefix(application.getId(), application.getCategoryId()), application.getName()));
+        });
+    }
+
+    /**
+     * Removes the ID of the parent from the given ID
+     *
+     * @param id The ID, e.g. applications.graphics
+     * @param parentId The ID of the parent, e.g. applications
+     * @return The ID without the parent ID, e.g. graphics
+     */
+    private String removePrefix(String id, String parentId) {
+        return id != null && parentId != null && id.startsWith(parentId + ".")
+                ? id.substring(parentId.length() + 1)
+                : id;
+    }
+
     @Override
     public void close() throws InterruptedException {
         applicationContext.getBean(ControlledThreadPoolExecutorServiceCloser.class).close();
@@ -22,9 +22,14 @@ import com.github.jankroken.commandline.domain.InvalidCommandLineException;
 import com.google.common.io.Files;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertTrue;
 
 public class PhoenicisCLITest {
     private final PhoenicisCLI phoenicisCLI = new PhoenicisCLI();
@@ -45,4 +50,27 @@ public class PhoenicisCLITest {
         System.setProperty("application.repository.list", tempRepositoryListFile.getPath());
         phoenicisCLI.run(new String[] { "-install", "applications", "graphics", "photofiltre", "online" });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSearchPrintsInstallArgumentsOfMatch() throws IOException {
+        File tempRepositoryListFile = File.createTempFile("repositories", ".json");
+        tempRepositoryListFile.deleteOnExit();
+
+        Files.write("[{\"type\":\"classpath\",\"packagePath\":\"/org/phoenicis/cli/testRepository\"}]",
+                tempRepositoryListFile, Charset.defaultCharset());
+
+        System.setProperty("application.repository.list", tempRepositoryListFile.getPath());
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final PrintStream standardOutput = System.out;
+        System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+        try {
+            phoenicisCLI.run(new String[] { "-search", "photofilter" });
+        } finally {
+            System.setOut(standardOutput);
+        }
+
+        assertTrue(output.toString(StandardCharsets.UTF_8)
+                .contains("applications graphics photofiltre\tPhotofiltre" + System.lineSeparator()));
+    }
+}
@@ -24,16 +24,14 @@ import org.xnap.commons.i18n.I18n;
 import org.xnap.commons.i18n.I18nFactory;
 
 import java.lang.annotation.Annotation;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
 import java.util.*;
 import java.util.stream.Collectors;
 
 public final class Localisation {
     private static final Logger LOGGER = LoggerFactory.getLogger(Localisation.class);
-    private static final LocalisationHelper localisationHelper = new LocalisationHelper();
     private static I18n i18n = null;
+    // the resources of the application itself, the additional translations are placed in front of them
+    private static ResourceBundle applicationResources = null;
 
     // This is a static class
     private Localisation() {
@@ -56,13 +54,36 @@ public final class Localisation {
      *
      * @param resourceBundle Resource bundle
      */
-    public static void setAdditionalTranslations(PropertiesResourceBundle resourceBundle) {
-        resourceBundle.setParent(getI18n().getResources());
-        getI18n().setResources(resourceBundle);
+    public static synchronized void setAdditionalTranslations(PropertiesResourceBundle resourceBundle) {
+        final I18n i18n = getI18n();
+
+        if (i18n.getResources() == resourceBundle) {
+            return;
+        }
+
+        // the old additional translations are replaced, chaining them would make every lookup slower
+        if (applicationResources == null) {
+            applicationResources = i18n.getResources();
+        }
+
+        resourceBundle.setParent(applicationResources);
+        i18n.setResources(resourceBundle);
     }
 
     private static String trString(String text) {
-        return text == null ? null : getI18n().tr(text);
+        if (text == null) {
+            return null;
+        }
+
+        final I18n i18n = getI18n();
+
+        // a missing translation is signalled by an exception, which is too expensive for the many untranslated texts
+        final ResourceBundle resources = i18n.getResources();
+        if (resources != null && !resources.containsKey(text)) {
+            return text;
+        }
+
+        return i18n.tr(text);
     }
 
     public static String tr(String text, Object o1) {
@@ -86,7 +107,8 @@ public final class Localisation {
     }
 
     /**
-     * Translates the given Translatable object, by creating a new instance of it with its corresponding translations
+     * Translates the given Translatable object, by creating a new instance of it with its corresponding translations.
+     * Objects and collections whose content isn't changed by the translation are returned as they are
      *
      * @return translated object
      */
@@ -113,21 +135,16 @@ public final class Localisation {
             return translateResult;
         }
 
-        final Class<?> clazz = translatable.getClass();
-        final Optional<Constructor<?>> translateCreator = findTranslateCreator(clazz);
-        final Optional<Class<?>> translateBuilder = findTranslateBuilder(clazz);
-
         try {
-            if (translateCreator.isPresent()) {
-                return trFromTranslateCreator(translatable, translateCreator.get());
-            }
+            final Optional<ObjectTranslator> translator = ObjectTranslator.forClass(translatable.getClass());
 
-            if (translateBuilder.isPresent()) {
-                return trFromTranslateBuilder(translatable, translateBuilder.get());
+            if (translator.isPresent()) {
+                return translator.get().translate(translatable);
             }
-
         } catch (ReflectiveOperationException e) {
             LOGGER.warn("Error while translating " + translatable + ". Falling back to the original value", e);
+
+            return translatable;
         }
 
         LOGGER.warn(translatable + " is neither a String, neither a collection, neither translatable. Ignoring");
@@ -150,94 +167,42 @@ public final class Localisation {
     }
 
     private static <T> List<T> trList(List<T> translatable) {
-        return translatable.stream().map(Localisation::tr).collect(Collectors.toList());
-    }
+        final List<T> translatedList = trElements(translatable);
 
-    private static <T> Set<T> trSet(Set<T> translatable) {
-        return translatable.stream().map(Localisation::tr).collect(Collectors.toSet());
+        return translatedList == null ? translatable : translatedList;
     }
 
-    private static <T> T trFromTranslateCreator(T translatable, Constructor<?> translateCreator)
-            throws ReflectiveOperationException {
-        final List<Object> parameters = new ArrayList<>();
-
-        for (Parameter parameter : translateCreator.getParameters()) {
-            final Method getter = findSuitableGetter(translatable, parameter);
-            final Object getterResult = getter.invoke(translatable);
-
-            if (shouldBeTranslated(getter)) {
-                parameters.add(tr(getterResult));
-            } else {
-                parameters.add(getterResult);
-            }
-        }
-
-        @SuppressWarnings("unchecked")
-        T result = (T) translateCreator.newInstance(parameters.toArray());
+    private static <T> Set<T> trSet(Set<T> translatable) {
+        final List<T> translatedList = trElements(translatable);
 
-        return result;
+        return translatedList == null ? translatable : new HashSet<>(translatedList);
     }
 
-    private static <T> T trFromTranslateBuilder(T translatable, Class<?> builderClass)
-            throws ReflectiveOperationException {
-        final Object builder = builderClass.newInstance();
-
-        for (Method method : builderClass.getMethods()) {
-            if (method.getName().startsWith("with")) {
+    /**
+     * Translates all elements of the given collection
+     *
+     * @param translatable The collection to be translated
+     * @return The translated elements or null if the translation didn't change any element
+     */
+    private static <T> List<T> trElements(Collection<T> translatable) {
+        List<T> translatedList = null;
 
-                final Method getter = translatable.getClass()
-                        .getMethod(localisationHelper.getterNameFromBuilderMethod(method));
-                final Object getterResult = getter.invoke(translatable);
+        int index = 0;
+        for (T element : translatable) {
+            final T translatedElement = tr(element);
 
-                if (shouldBeTranslated(getter)) {
-                    method.invoke(builder, tr(getterResult));
-                } else {
-                    method.invoke(builder, getterResult);
-                }
+            if (translatedList == null && translatedElement != element) {
+                translatedList = new ArrayList<>(translatable.size());
+                translatedList.addAll(translatable.stream().limit(index).collect(Collectors.toList()));
             }
-        }
-        @SuppressWarnings("unchecked")
-        T result = (T) builderClass.getMethod("build").invoke(builder);
-
-        return result;
-    }
-
-    private static boolean shouldBeTranslated(Method getter) {
-        return getter.getAnnotation(Translate.class) != null;
-    }
 
-    private static <T> Method findSuitableGetter(T object, Parameter parameter) throws ReflectiveOperationException {
-        return object.getClass().getMethod(localisationHelper.getterNameFromParameter(parameter));
-    }
-
-    private static Optional<Constructor<?>> findTranslateCreator(Class<?> clazz) {
-        for (Constructor<?> constructor : clazz.getConstructors()) {
-            for (Annotation annotation : constructor.getAnnotations()) {
-                if (annotation.annotationType() == TranslatableCreator.class) {
-                    return Optional.of(constructor);
-                }
+            if (translatedList != null) {
+                translatedList.add(translatedElement);
             }
-        }
-
-        return Optional.empty();
-    }
 
-    private static Optional<Class<?>> findTranslateBuilder(Class<?> clazz) {
-        for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
-            final List<Class<?>> parameterTypes = Arrays.stream(constructor.getParameterTypes())
-                    .filter(s -> s.getName().contains("Builder")).collect(Collectors.toList());
-
-            if (parameterTypes.size() > 0) {
-                final Annotation[] annotations = parameterTypes.get(0).getAnnotations();
-
-                for (Annotation annotation : annotations) {
-                    if (annotation.annotationType() == TranslatableBuilder.class) {
-                        return Optional.of(parameterTypes.get(0));
-                    }
-                }
-            }
+            index++;
         }
-        return Optional.empty();
-    }
 
+        return translatedList;
+    }
 }
@@ -25,11 +25,18 @@ class LocalisationHelper {
 
     /**
      * Given a builder method having a name starting by "with"
-     * returns the name of a corresponding getter
+     * returns the name of a corresponding getter.
+     * If the parameter of the builder method is annotated with {@link ParameterName} the given name is used instead
+     * of the method name
      * @param method The method
      * @return The name of a corresponding getter
      */
     String getterNameFromBuilderMethod(Method method) {
+        final Parameter[] parameters = method.getParameters();
+        if (parameters.length == 1 && parameters[0].getAnnotation(ParameterName.class) != null) {
+            return getterNameFromParameter(parameters[0]);
+        }
+
         final String getterPrefix;
         if (Arrays.stream(method.getParameterTypes())
                 .anyMatch(clazz -> clazz == Boolean.class || clazz == boolean.class)) {
@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.configuration.localisation;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Translates the objects of a single class, either using its {@link TranslatableCreator} or its
+ * {@link TranslatableBuilder}.
+ * <p>
+ * The constructors, getters and builder methods of a class are looked up only once, when the first object of the class
+ * is translated, and are kept as {@link MethodHandle}s. Objects whose translatable properties don't change during the
+ * translation are returned as they are, without creating a copy of them.
+ */
+abstract class ObjectTranslator {
+    private static final LocalisationHelper localisationHelper = new LocalisationHelper();
+    private static final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType BUILDER_METHOD_TYPE = MethodType.methodType(void.class, Object.class,
+            Object.class);
+
+    private static final ClassValue<Optional<ObjectTranslator>> translators = new ClassValue<Optional<ObjectTranslator>>() {
+        @Override
+        protected Optional<ObjectTranslator> computeValue(Class<?> clazz) {
+            return createTranslator(clazz);
+        }
+    };
+
+    // the getters of all properties
+    private final MethodHandle[] getters;
+    // true for all properties, which need to be translated
+    private final boolean[] translatedProperties;
+    // false if the class contains no properties to be translated
+    private final boolean hasTranslatedProperties;
+
+    private ObjectTranslator(List<MethodHandle> getters, List<Boolean> translatedProperties) {
+        this.getters = getters.toArray(new MethodHandle[0]);
+        this.translatedProperties = new boolean[translatedProperties.size()];
+
+        boolean hasTranslatedProperties = false;
+        for (int index = 0; index < this.translatedProperties.length; index++) {
+            this.translatedProperties[index] = translatedProperties.get(index);
+            hasTranslatedProperties |= this.translatedProperties[index];
+        }
+        this.hasTranslatedProperties = hasTranslatedProperties;
+    }
+
+    /**
+     * Fetches the translator for the given class
+     *
+     * @param clazz The class of the objects to be translated
+     * @return The translator or {@link Optional#empty()} if the class has neither a {@link TranslatableCreator} nor a
+     *         {@link TranslatableBuilder}
+     * @throws ReflectiveOperationException If the class is translatable, but a needed getter can't be found
+     */
+    static Optional<ObjectTranslator> forClass(Class<?> clazz) throws ReflectiveOperationException {
+        final Optional<ObjectTranslator> translator = translators.get(clazz);
+
+        if (translator.isPresent() && translator.get() instanceof FailedTranslator) {
+            throw ((FailedTranslator) translator.get()).failure;
+        }
+
+        return translator;
+    }
+
+    /**
+     * Translates the given object
+     *
+     * @param translatable The object to be translated
+     * @param <T> The type of the object
+     * @return The translated object or the given object if none of its properties has changed
+     * @throws ReflectiveOperationException If a getter or the creation of the translated object fails
+     */
+    <T> T translate(T translatable) throws ReflectiveOperationException {
+        // there is nothing to translate inside objects of this class
+        if (!hasTranslatedProperties) {
+            return translatable;
+        }
+
+        final Object[] values = new Object[getters.length];
+
+        try {
+            boolean changed = false;
+            for (int index = 0; index < getters.length; index++) {
+                if (translatedProperties[index]) {
+                    final Object value = (Object) getters[index].invokeExact((Object) translatable);
+                    values[index] = Localisation.tr(value);
+
+                    changed |= values[index] != value;
+                }
+            }
+
+            // the translation didn't change anything inside this subtree, therefore the object can be reused
+            if (!changed) {
+                return translatable;
+            }
+
+            for (int index = 0; index < getters.length; index++) {
+                if (!translatedProperties[index]) {
+                    values[index] = (Object) getters[index].invokeExact((Object) translatable);
+                }
+            }
+
+            @SuppressWarnings("unchecked")
+            final T result = (T) create(values);
+
+            return result;
+        } catch (ReflectiveOperationException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    /**
+     * Creates a new object with the given property values
+     *
+     * @param values The property values in the order of the getters
+     * @return The created object
+     * @throws Throwable If the creation of the object fails
+     */
+    protected abstract Object create(Object[] values) throws Throwable;
+
+    private static Optional<ObjectTranslator> createTranslator(Class<?> clazz) {
+        try {
+            final Optional<Constructor<?>> translateCreator = findTranslateCreator(clazz);
+            if (translateCreator.isPresent()) {
+                return Optional.of(CreatorTranslator.create(clazz, translateCreator.get()));
+            }
+
+            final Optional<Class<?>> translateBuilder = findTranslateBuilder(clazz);
+            if (translateBuilder.isPresent()) {
+                return Optional.of(BuilderTranslator.create(clazz, translateBuilder.get()));
+            }
+
+            return Optional.empty();
+        } catch (ReflectiveOperationException e) {
+            return Optional.of(new FailedTranslator(e));
+        }
+    }
+
+    private static MethodHandle findGetter(Class<?> clazz, String getterName, List<Boolean> translatedProperties)
+            throws ReflectiveOperationException {
+        final Method getter = clazz.getMethod(getterName);
+        translatedProperties.add(getter.getAnnotation(Translate.class) != null);
+
+        return lookup.unreflect(getter).asType(GETTER_TYPE);
+    }
+
+    private static Optional<Constructor<?>> findTranslateCreator(Class<?> clazz) {
+        for (Constructor<?> constructor : clazz.getConstructors()) {
+            for (Annotation annotation : constructor.getAnnotations()) {
+                if (annotation.annotationType() == TranslatableCreator.class) {
+                    return Optional.of(constructor);
+                }
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private static Optional<Class<?>> findTranslateBuilder(Class<?> clazz) {
+        for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+            final List<Class<?>> parameterTypes = Arrays.stream(constructor.getParameterTypes())
+                    .filter(s -> s.getName().contains("Builder")).collect(Collectors.toList());
+
+            if (parameterTypes.size() > 0) {
+                final Annotation[] annotations = parameterTypes.get(0).getAnnotations();
+
+                for (Annotation annotation : annotations) {
+                    if (annotation.annotationType() == TranslatableBuilder.class) {
+                        return Optional.of(parameterTypes.get(0));
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Translates an object by passing its translated properties to its {@link TranslatableCreator}
+     */
+    private static class CreatorTranslator extends ObjectTranslator {
+        private final MethodHandle creator;
+
+        private CreatorTranslator(List<MethodHandle> getters, List<Boolean> translatedProperties,
+                MethodHandle creator) {
+            super(getters, translatedProperties);
+
+            this.creator = creator;
+        }
+
+        private static CreatorTranslator create(Class<?> clazz, Constructor<?> translateCreator)
+                throws ReflectiveOperationException {
+            final List<MethodHandle> getters = new ArrayList<>();
+            final List<Boolean> translatedProperties = new ArrayList<>();
+
+            for (Parameter parameter : translateCreator.getParameters()) {
+                getters.add(findGetter(clazz, localisationHelper.getterNameFromParameter(parameter),
+                        translatedProperties));
+            }
+
+            final int numberOfParameters = translateCreator.getParameterCount();
+            final MethodHandle creator = lookup.unreflectConstructor(translateCreator)
+                    .asType(MethodType.genericMethodType(numberOfParameters))
+                    .asSpreader(Object[].class, numberOfParameters);
+
+            return new CreatorTranslator(getters, translatedProperties, creator);
+        }
+
+        @Override
+        protected Object create(Object[] values) throws Throwable {
+            return (Object) creator.invokeExact(values);
+        }
+    }
+
+    /**
+     * Translates an object by passing its translated properties to a new instance of its {@link TranslatableBuilder}
+     */
+    private static class BuilderTranslator extends ObjectTranslator {
+        private final MethodHandle builderConstructor;
+        // the builder methods in the order of the getters
+        private final MethodHandle[] builderMethods;
+        private final MethodHandle build;
+
+        private BuilderTranslator(List<MethodHandle> getters, List<Boolean> translatedProperties,
+                MethodHandle builderConstructor, List<MethodHandle> builderMethods, MethodHandle build) {
+            super(getters, translatedProperties);
+
+            this.builderConstructor = builderConstructor;
+            this.builderMethods = builderMethods.toArray(new MethodHandle[0]);
+            this.build = build;
+        }
+
+        private static BuilderTranslator create(Class<?> clazz, Class<?> builderClass)
+                throws ReflectiveOperationException {
+            final List<MethodHandle> getters = new ArrayList<>();
+            final List<Boolean> translatedProperties = new ArrayList<>();
+            final List<MethodHandle> builderMethods = new ArrayList<>();
+
+            for (Method method : builderClass.getMethods()) {
+                if (method.getName().startsWith("with")) {
+                    getters.add(findGetter(clazz, localisationHelper.getterNameFromBuilderMethod(method),
+                            translatedProperties));
+                    builderMethods.add(lookup.unreflect(method).asType(BUILDER_METHOD_TYPE));
+                }
+            }
+
+            final MethodHandle builderConstructor = lookup
+                    .findConstructor(builderClass, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            final MethodHandle build = lookup.unreflect(builderClass.getMethod("build")).asType(GETTER_TYPE);
+
+            return new BuilderTranslator(getters, translatedProperties, builderConstructor, builderMethods, build);
+        }
+
+        @Override
+        protected Object create(Object[] values) throws Throwable {
+            final Object builder = (Object) builderConstructor.invokeExact();
+
+            for (int index = 0; index < builderMethods.length; index++) {
+                builderMethods[index].invokeExact(builder, values[index]);
+            }
+
+            return (Object) build.invokeExact(builder);
+        }
+    }
+
+    /**
+     * A placeholder for a translatable class, whose translator couldn't be created
+     */
+    private static class FailedTranslator extends ObjectTranslator {
+        private final ReflectiveOperationException failure;
+
+        private FailedTranslator(ReflectiveOperationException failure) {
+            super(new ArrayList<>(), new ArrayList<>());
+
+            this.failure = failure;
+        }
+
+        @Override
+        protected Object create(Object[] values) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
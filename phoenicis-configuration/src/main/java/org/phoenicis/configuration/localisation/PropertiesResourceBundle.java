@@ -1,29 +1,39 @@
 package org.phoenicis.configuration.localisation;
 
-import java.util.Enumeration;
-import java.util.Properties;
-import java.util.ResourceBundle;
+import java.util.*;
 
+/**
+ * A {@link ResourceBundle} containing the translations of a {@link Properties} object.
+ * The properties are copied into a flat lookup map once, because {@link Properties} synchronizes every lookup and
+ * translations are looked up very frequently
+ */
 public class PropertiesResourceBundle extends ResourceBundle {
-    private Properties properties;
+    private final Map<String, String> translations;
 
     public PropertiesResourceBundle(Properties properties) {
-        this.properties = properties;
+        final Map<String, String> translations = new HashMap<>();
+
+        if (properties != null) {
+            for (String key : properties.stringPropertyNames()) {
+                translations.put(key, properties.getProperty(key));
+            }
+        }
+
+        this.translations = Collections.unmodifiableMap(translations);
     }
 
     @Override
     protected Object handleGetObject(String key) {
-        return this.properties != null ? properties.get(key) : this.parent.getObject(key);
+        return translations.get(key);
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public Enumeration<String> getKeys() {
-        return this.properties != null ? (Enumeration<String>) this.properties.propertyNames() : this.parent.getKeys();
+        return Collections.enumeration(translations.keySet());
     }
 
     @Override
     public void setParent(ResourceBundle parent) {
         this.parent = parent;
     }
-}
\ No newline at end of file
+}
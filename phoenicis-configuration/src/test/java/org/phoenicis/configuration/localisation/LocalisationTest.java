@@ -12,6 +12,7 @@ import org.xnap.commons.i18n.I18nFactory;
 import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.phoenicis.configuration.localisation.Localisation.tr;
@@ -96,4 +97,20 @@ public class LocalisationTest {
         assertEquals(Arrays.asList("output", "output"), translatedObject.getItemToBeTranslated());
     }
 
+    @PrepareForTest({ I18nFactory.class, I18n.class })
+    @Test
+    public synchronized void testUnchangedTranslatableObjectIsReused() {
+        PowerMockito.doReturn("untranslated").when(mockI18n).tr("untranslated");
+
+        final TreeTranslatableObject treeTranslatableObject = new TreeTranslatableObject(
+                new SimpleTranslatableObject("untranslated", "input"),
+                new SimpleTranslatableObject("input", "input"));
+
+        assertSame(treeTranslatableObject, tr(treeTranslatableObject));
+
+        final SimpleTranslatableObjectBuilder translatableObject = new SimpleTranslatableObjectBuilder.Builder()
+                .withItemNotToBeTranslated("input").withItemToBeTranslated("untranslated").build();
+
+        assertSame(translatableObject, tr(translatableObject));
+    }
 }
@@ -8,6 +8,7 @@ import org.phoenicis.javafx.components.application.utils.CategoryFilter;
 import org.phoenicis.javafx.components.common.control.ExtendedSidebarBase;
 import org.phoenicis.javafx.components.common.widgets.utils.ListWidgetType;
 import org.phoenicis.repository.dto.CategoryDTO;
+import org.phoenicis.repository.dto.RepositorySearchIndex;
 
 /**
  * A sidebar implementation for the applications tab
@@ -19,6 +20,11 @@ public class ApplicationSidebar extends ExtendedSidebarBase<CategoryDTO, Applica
      */
     private final DoubleProperty fuzzySearchRatio;
 
+    /**
+     * The search index over the applications of the categories
+     */
+    private final ObjectProperty<RepositorySearchIndex> searchIndex;
+
     /**
      * The operating system
      */
@@ -54,6 +60,7 @@ public class ApplicationSidebar extends ExtendedSidebarBase<CategoryDTO, Applica
         super(items, new SimpleStringProperty(), selectedListWidget);
 
         this.fuzzySearchRatio = new SimpleDoubleProperty();
+        this.searchIndex = new SimpleObjectProperty<>();
         this.operatingSystem = new SimpleObjectProperty<>();
         this.containCommercialApplications = new SimpleBooleanProperty();
         this.containRequiresPatchApplications = new SimpleBooleanProperty();
@@ -82,6 +89,19 @@ public class ApplicationSidebar extends ExtendedSidebarBase<CategoryDTO, Applica
         this.fuzzySearchRatio.set(fuzzySearchRatio);
     }
 
+    public RepositorySearchIndex getSearchIndex() {
+        return this.searchIndex.get();
+    }
+
+    @Override
+    public ObjectProperty<RepositorySearchIndex> searchIndexProperty() {
+        return this.searchIndex;
+    }
+
+    public void setSearchIndex(RepositorySearchIndex searchIndex) {
+        this.searchIndex.set(searchIndex);
+    }
+
     public OperatingSystem getOperatingSystem() {
         return this.operatingSystem.get();
     }
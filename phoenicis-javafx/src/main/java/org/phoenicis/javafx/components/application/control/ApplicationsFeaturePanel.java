@@ -1,5 +1,6 @@
 package org.phoenicis.javafx.components.application.control;
 
+import javafx.beans.binding.Bindings;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -13,6 +14,7 @@ import org.phoenicis.javafx.settings.JavaFxSettingsManager;
 import org.phoenicis.javafx.themes.ThemeManager;
 import org.phoenicis.repository.dto.ApplicationDTO;
 import org.phoenicis.repository.dto.CategoryDTO;
+import org.phoenicis.repository.dto.RepositorySearchIndex;
 import org.phoenicis.scripts.interpreter.ScriptInterpreter;
 
 /**
@@ -75,6 +77,11 @@ public class ApplicationsFeaturePanel extends FeaturePanel<ApplicationsFeaturePa
      */
     private final ObservableList<CategoryDTO> categories;
 
+    /**
+     * The search index over the shown application categories, it is rebuilt whenever the categories change
+     */
+    private final ObjectProperty<RepositorySearchIndex> searchIndex;
+
     /**
      * The script interpreter
      */
@@ -107,6 +114,9 @@ public class ApplicationsFeaturePanel extends FeaturePanel<ApplicationsFeaturePa
         this.containTestingApplications = new SimpleBooleanProperty();
         this.containAllOSCompatibleApplications = new SimpleBooleanProperty();
         this.categories = FXCollections.observableArrayList();
+        this.searchIndex = new SimpleObjectProperty<>();
+        this.searchIndex.bind(
+                Bindings.createObjectBinding(() -> RepositorySearchIndex.of(this.categories), this.categories));
         this.scriptInterpreter = new SimpleObjectProperty<>();
         this.selectedApplication = new SimpleObjectProperty<>();
         this.openedDetailsPanel = new SimpleObjectProperty<>(new None());
@@ -170,6 +180,15 @@ public class ApplicationsFeaturePanel extends FeaturePanel<ApplicationsFeaturePa
         this.filterCategory.set(filterCategory);
     }
 
+    public RepositorySearchIndex getSearchIndex() {
+        return this.searchIndex.get();
+    }
+
+    @Override
+    public ObjectProperty<RepositorySearchIndex> searchIndexProperty() {
+        return this.searchIndex;
+    }
+
     public double getFuzzySearchRatio() {
         return this.fuzzySearchRatio.get();
     }
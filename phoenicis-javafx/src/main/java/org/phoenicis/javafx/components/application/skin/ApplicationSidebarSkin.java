@@ -44,6 +44,7 @@ public class ApplicationSidebarSkin
                 Bindings.createObjectBinding(() -> getControl()::filterCategory,
                         getControl().searchTermProperty(),
                         getControl().fuzzySearchRatioProperty(),
+                        getControl().searchIndexProperty(),
                         getControl().operatingSystemProperty(),
                         getControl().containAllOSCompatibleApplicationsProperty(),
                         getControl().containCommercialApplicationsProperty(),
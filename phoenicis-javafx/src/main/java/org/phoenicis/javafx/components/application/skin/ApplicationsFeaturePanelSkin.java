@@ -70,6 +70,7 @@ public class ApplicationsFeaturePanelSkin
 
         sidebar.operatingSystemProperty().bind(getControl().operatingSystemProperty());
         sidebar.fuzzySearchRatioProperty().bind(getControl().fuzzySearchRatioProperty());
+        sidebar.searchIndexProperty().bind(getControl().searchIndexProperty());
 
         getControl().searchTermProperty().bind(sidebar.searchTermProperty());
         getControl().filterCategoryProperty().bind(sidebar.selectedItemProperty());
@@ -120,6 +121,7 @@ public class ApplicationsFeaturePanelSkin
                 Bindings.createObjectBinding(() -> getControl()::filterApplication,
                         getControl().searchTermProperty(),
                         getControl().fuzzySearchRatioProperty(),
+                        getControl().searchIndexProperty(),
                         getControl().operatingSystemProperty(),
                         getControl().filterCategoryProperty(),
                         getControl().containAllOSCompatibleApplicationsProperty(),
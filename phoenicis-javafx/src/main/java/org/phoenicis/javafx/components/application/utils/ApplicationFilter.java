@@ -3,10 +3,10 @@ package org.phoenicis.javafx.components.application.utils;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.StringProperty;
-import me.xdrop.fuzzywuzzy.FuzzySearch;
 import org.apache.commons.lang.StringUtils;
 import org.phoenicis.repository.dto.ApplicationDTO;
 import org.phoenicis.repository.dto.CategoryDTO;
+import org.phoenicis.repository.dto.RepositorySearchIndex;
 
 import java.util.Optional;
 
@@ -29,6 +29,11 @@ public interface ApplicationFilter extends ScriptFilter {
      */
     DoubleProperty fuzzySearchRatioProperty();
 
+    /**
+     * The search index over the filtered applications
+     */
+    ObjectProperty<RepositorySearchIndex> searchIndexProperty();
+
     /**
      * Filter function for {@link ApplicationDTO} objects
      *
@@ -41,10 +46,12 @@ public interface ApplicationFilter extends ScriptFilter {
 
         final boolean matchesAtLeastOneScript = application.getScripts().stream().anyMatch(this::filterScript);
 
-        final boolean matchesApplicationName = Optional.ofNullable(searchTermProperty().getValue())
-                .map(filterText -> StringUtils.isEmpty(filterText) || FuzzySearch
-                        .partialRatio(application.getName().toLowerCase(), filterText) > fuzzySearchRatioProperty()
-                                .get())
+        final boolean matchesSearchTerm = Optional.ofNullable(searchTermProperty().getValue())
+                .map(filterText -> StringUtils.isEmpty(filterText) || Optional
+                        .ofNullable(searchIndexProperty().getValue())
+                        .map(searchIndex -> searchIndex.getRelevance(application,
+                                filterText) > fuzzySearchRatioProperty().get())
+                        .orElse(true))
                 .orElse(true);
 
         /*
@@ -53,6 +60,6 @@ public interface ApplicationFilter extends ScriptFilter {
          * - it contains at least one visible script
          * - its text matches the filter text
          */
-        return matchesFilterCategory && matchesApplicationName && matchesAtLeastOneScript;
+        return matchesFilterCategory && matchesSearchTerm && matchesAtLeastOneScript;
     }
 }
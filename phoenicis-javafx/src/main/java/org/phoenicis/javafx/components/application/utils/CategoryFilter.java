@@ -1,10 +1,11 @@
 package org.phoenicis.javafx.components.application.utils;
 
 import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.StringProperty;
-import me.xdrop.fuzzywuzzy.FuzzySearch;
 import org.apache.commons.lang.StringUtils;
 import org.phoenicis.repository.dto.CategoryDTO;
+import org.phoenicis.repository.dto.RepositorySearchIndex;
 
 import java.util.Optional;
 
@@ -22,6 +23,11 @@ public interface CategoryFilter extends ScriptFilter {
      */
     DoubleProperty fuzzySearchRatioProperty();
 
+    /**
+     * The search index over the applications of the filtered categories
+     */
+    ObjectProperty<RepositorySearchIndex> searchIndexProperty();
+
     /**
      * Filter function for {@link CategoryDTO} objects
      *
@@ -35,10 +41,12 @@ public interface CategoryFilter extends ScriptFilter {
         return category.getApplications().stream().anyMatch(application -> {
             final boolean matchesAtLeastOneScript = application.getScripts().stream().anyMatch(this::filterScript);
 
-            final boolean matchesApplicationName = Optional.ofNullable(searchTermProperty().getValue())
-                    .map(filterText -> StringUtils.isEmpty(filterText) || FuzzySearch
-                            .partialRatio(application.getName().toLowerCase(), filterText) > fuzzySearchRatioProperty()
-                                    .get())
+            final boolean matchesSearchTerm = Optional.ofNullable(searchTermProperty().getValue())
+                    .map(filterText -> StringUtils.isEmpty(filterText) || Optional
+                            .ofNullable(searchIndexProperty().getValue())
+                            .map(searchIndex -> searchIndex.getRelevance(application,
+                                    filterText) > fuzzySearchRatioProperty().get())
+                            .orElse(true))
                     .orElse(true);
 
             /*
@@ -46,7 +54,7 @@ public interface CategoryFilter extends ScriptFilter {
              * - it contains at least one visible script
              * - its text matches the filter text
              */
-            return matchesApplicationName && matchesAtLeastOneScript;
+            return matchesSearchTerm && matchesAtLeastOneScript;
         });
     }
 }
@@ -19,6 +19,7 @@
 package org.phoenicis.javafx.controller.apps;
 
 import javafx.application.Platform;
+import javafx.collections.ObservableList;
 import org.phoenicis.javafx.components.application.control.ApplicationsFeaturePanel;
 import org.phoenicis.javafx.components.application.skin.ApplicationSidebarToggleGroupSkin;
 import org.phoenicis.javafx.dialogs.ErrorDialog;
@@ -26,6 +27,8 @@ import org.phoenicis.javafx.themes.ThemeManager;
 import org.phoenicis.repository.RepositoryManager;
 import org.phoenicis.repository.dto.CategoryDTO;
 import org.phoenicis.repository.dto.RepositoryDTO;
+import org.phoenicis.repository.dto.RepositoryDelta;
+import org.phoenicis.repository.dto.TypeDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +37,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -50,22 +54,57 @@ public class AppsController {
         this.view = view;
         this.themeManager = themeManager;
 
-        repositoryManager.addCallbacks(this::populate, this::showError);
+        repositoryManager.addDeltaCallbacks(this::populate, this::showError);
     }
 
     public ApplicationsFeaturePanel getView() {
         return view;
     }
 
-    private void populate(RepositoryDTO repositoryDTO) {
+    private void populate(RepositoryDTO repositoryDTO, RepositoryDelta repositoryDelta) {
+        // an empty repository, e.g. if all repositories have been removed, has no categories to show
+        if (repositoryDTO.getTypes().isEmpty()) {
+            Platform.runLater(() -> updateCategories(getView().getCategories(), Collections.emptyList()));
+            return;
+        }
+
+        final TypeDTO typeDTO = repositoryDTO.getTypes().get(0);
+
+        // only the categories of the first type are shown, changes inside the other types can be ignored
+        if (getView().isInitialized() && !repositoryDelta.affectsType(typeDTO.getId())) {
+            return;
+        }
+
         Platform.runLater(() -> {
-            final List<CategoryDTO> categoryDTOS = repositoryDTO.getTypes().get(0).getCategories();
+            final List<CategoryDTO> categoryDTOS = typeDTO.getCategories();
             setDefaultCategoryIcons(categoryDTOS);
-            getView().getCategories().setAll(categoryDTOS);
+            updateCategories(getView().getCategories(), categoryDTOS);
             getView().setInitialized(true);
         });
     }
 
+    /**
+     * updates the shown categories in place, so that only the changed categories need to be rendered again
+     *
+     * @param categories The shown categories
+     * @param newCategories The categories in the repository
+     */
+    private void updateCategories(ObservableList<CategoryDTO> categories, List<CategoryDTO> newCategories) {
+        for (int index = 0; index < newCategories.size(); index++) {
+            final CategoryDTO newCategory = newCategories.get(index);
+
+            if (index >= categories.size()) {
+                categories.add(newCategory);
+            } else if (!categories.get(index).equals(newCategory)) {
+                categories.set(index, newCategory);
+            }
+        }
+
+        if (categories.size() > newCategories.size()) {
+            categories.remove(newCategories.size(), categories.size());
+        }
+    }
+
     private void showError(Exception e) {
         Platform.runLater(() -> {
             final ErrorDialog errorDialog = ErrorDialog.builder()
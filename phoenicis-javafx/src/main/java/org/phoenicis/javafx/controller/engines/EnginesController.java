@@ -46,6 +46,8 @@ import java.util.stream.Collectors;
 import static org.phoenicis.configuration.localisation.Localisation.tr;
 
 public class EnginesController {
+    private static final String ENGINES_TYPE_ID = "engines";
+
     private final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(AppsController.class);
     private final EnginesView enginesView;
     private final RepositoryManager repositoryManager;
@@ -143,12 +145,20 @@ public class EnginesController {
 
         this.enginesView.setOnSelectionChanged(event -> {
             if (this.enginesView.isSelected() && this.firstViewSelection) {
-                this.repositoryManager.addCallbacks(
-                        repositoryDTO -> this.enginesManager.fetchAvailableEngines(
-                                repositoryDTO,
-                                engines -> this.populateView(repositoryDTO, engines),
-                                e -> Platform.runLater(
-                                        () -> enginesView.showFailure(tr("Loading engines failed."), Optional.of(e)))),
+                this.repositoryManager.addDeltaCallbacks(
+                        (repositoryDTO, repositoryDelta) -> {
+                            // the engines only need to be reloaded if the engines type has been changed
+                            if (this.repositoryCache != null && !repositoryDelta.affectsType(ENGINES_TYPE_ID)) {
+                                this.repositoryCache = repositoryDTO;
+                                return;
+                            }
+
+                            this.enginesManager.fetchAvailableEngines(
+                                    repositoryDTO,
+                                    engines -> this.populateView(repositoryDTO, engines),
+                                    e -> Platform.runLater(() -> enginesView
+                                            .showFailure(tr("Loading engines failed."), Optional.of(e))));
+                        },
                         e -> Platform.runLater(
                                 () -> enginesView.showFailure(tr("Loading engines failed."), Optional.of(e))));
 
@@ -172,7 +182,7 @@ public class EnginesController {
 
         // fetch all categories consisting of engines that are contained in the repository
         final List<CategoryDTO> categoryDTOS = repositoryDTO.getTypes().stream()
-                .filter(type -> type.getId().equals("engines"))
+                .filter(type -> type.getId().equals(ENGINES_TYPE_ID))
                 .flatMap(type -> type.getCategories().stream())
                 .collect(Collectors.toList());
 
@@ -115,7 +115,7 @@ public class SettingsView extends MainWindowView<SettingsSidebar> {
         final RepositoriesPanel repositoriesPanel = new RepositoriesPanel(repositoryLocations);
 
         // set the initial values
-        repositoriesPanel.setOnRepositoryRefresh(repositoryManager::triggerRepositoryChange);
+        repositoriesPanel.setOnRepositoryRefresh(repositoryManager::checkForUpdates);
 
         repositoriesPanel.setRepositoryLocationLoader(repositoryLocationLoader);
 
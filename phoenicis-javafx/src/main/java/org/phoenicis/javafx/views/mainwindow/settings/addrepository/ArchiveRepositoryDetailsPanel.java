@@ -0,0 +1,71 @@
+package org.phoenicis.javafx.views.mainwindow.settings.addrepository;
+
+import javafx.scene.control.Button;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.stage.FileChooser;
+import org.phoenicis.repository.location.ArchiveRepositoryLocation;
+
+import java.io.File;
+
+import static org.phoenicis.configuration.localisation.Localisation.tr;
+
+/**
+ * A {@link RepositoryDetailsPanel} used to specify the details of an {@link ArchiveRepositoryLocation}.
+ */
+public class ArchiveRepositoryDetailsPanel extends RepositoryDetailsPanel<ArchiveRepositoryLocation> {
+    /**
+     * The path leading to the repository archive
+     */
+    private TextField pathField;
+
+    /**
+     * A button opening a {@link FileChooser} used to select the repository archive through a GUI
+     */
+    private Button openBrowser;
+
+    /**
+     * Constructor
+     */
+    public ArchiveRepositoryDetailsPanel() {
+        super();
+
+        this.populate();
+    }
+
+    /**
+     * Populates the repository details step for the archive repository
+     */
+    private void populate() {
+        this.pathField = new TextField();
+
+        this.openBrowser = new Button(tr("Choose Archive..."));
+        openBrowser.setOnAction(event -> {
+            FileChooser chooser = new FileChooser();
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(tr("Zip archives"), "*.zip"));
+
+            File archive = chooser.showOpenDialog(null);
+
+            if (archive != null) {
+                pathField.setText(archive.toString());
+            }
+        });
+
+        HBox content = new HBox(pathField, openBrowser);
+        content.setId("addArchiveRepository");
+        HBox.setHgrow(pathField, Priority.ALWAYS);
+
+        this.setCenter(content);
+    }
+
+    @Override
+    public String getHeader() {
+        return tr("Choose the location of the repository archive");
+    }
+
+    @Override
+    public ArchiveRepositoryLocation createRepositoryLocation() {
+        return new ArchiveRepositoryLocation(new File(pathField.getText()));
+    }
+}
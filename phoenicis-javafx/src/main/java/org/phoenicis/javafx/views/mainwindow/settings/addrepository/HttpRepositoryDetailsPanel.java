@@ -0,0 +1,75 @@
+package org.phoenicis.javafx.views.mainwindow.settings.addrepository;
+
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.GridPane;
+import org.phoenicis.repository.location.HttpRepositoryLocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+
+import static org.phoenicis.configuration.localisation.Localisation.tr;
+
+/**
+ * A {@link RepositoryDetailsPanel} used to specify the details of a {@link HttpRepositoryLocation}.
+ */
+public class HttpRepositoryDetailsPanel extends RepositoryDetailsPanel<HttpRepositoryLocation> {
+    private final static Logger LOGGER = LoggerFactory.getLogger(HttpRepositoryDetailsPanel.class);
+
+    /**
+     * The url to the repository index
+     */
+    private TextField urlField;
+
+    /**
+     * Constructor
+     */
+    public HttpRepositoryDetailsPanel() {
+        super();
+
+        this.populate();
+    }
+
+    /**
+     * Populates the repository details step for the http repository
+     */
+    private void populate() {
+        this.urlField = new TextField();
+
+        Label urlLabel = new Label(tr("Index-URL:"));
+        urlLabel.setLabelFor(urlField);
+
+        GridPane grid = new GridPane();
+        grid.getStyleClass().add("grid");
+        grid.add(urlLabel, 0, 0);
+        grid.add(urlField, 1, 0);
+
+        this.setCenter(grid);
+    }
+
+    @Override
+    public String getHeader() {
+        return tr("Choose the location of the repository index");
+    }
+
+    @Override
+    public HttpRepositoryLocation createRepositoryLocation() {
+        try {
+            final URI repositoryUri = new URL(urlField.getText()).toURI();
+
+            if (!HttpRepositoryLocation.isHttpUri(repositoryUri)) {
+                LOGGER.error(String.format("The given url '%s' is no http or https URL", urlField.getText()));
+                return null;
+            }
+
+            return new HttpRepositoryLocation.Builder().withRepositoryUri(repositoryUri).build();
+        } catch (MalformedURLException | URISyntaxException e) {
+            LOGGER.error(String.format("The given url '%s' is no valid URI or URL", urlField.getText()), e);
+            return null;
+        }
+    }
+}
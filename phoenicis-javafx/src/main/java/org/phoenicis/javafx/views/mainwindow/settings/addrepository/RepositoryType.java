@@ -32,6 +32,26 @@ public enum RepositoryType {
         }
     },
 
+    /**
+     * {@link org.phoenicis.repository.location.HttpRepositoryLocation} repository type
+     */
+    HTTP(tr("HTTP repository")) {
+        @Override
+        public RepositoryDetailsPanel<? extends RepositoryLocation<? extends Repository>> getRepositoryDetailsPanel() {
+            return new HttpRepositoryDetailsPanel();
+        }
+    },
+
+    /**
+     * {@link org.phoenicis.repository.location.ArchiveRepositoryLocation} repository type
+     */
+    ARCHIVE(tr("Archive repository")) {
+        @Override
+        public RepositoryDetailsPanel<? extends RepositoryLocation<? extends Repository>> getRepositoryDetailsPanel() {
+            return new ArchiveRepositoryDetailsPanel();
+        }
+    },
+
     /**
      * {@link org.phoenicis.repository.location.ClasspathRepositoryLocation} repository type
      */
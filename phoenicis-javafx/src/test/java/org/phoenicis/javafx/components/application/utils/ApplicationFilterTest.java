@@ -0,0 +1,135 @@
+package org.phoenicis.javafx.components.application.utils;
+
+import javafx.beans.property.*;
+import org.junit.Test;
+import org.phoenicis.entities.OperatingSystem;
+import org.phoenicis.repository.dto.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ApplicationFilterTest {
+    // the default fuzzy search ratio of the GUI
+    private static final double FUZZY_SEARCH_RATIO = 85;
+
+    private final ApplicationDTO photofiltre = createApplication("photofiltre", "PhotoFiltre",
+            "<p>A free image retouching program</p>");
+    private final ApplicationDTO steam = createApplication("steam", "Steam", "<p>Digital distribution platform</p>");
+
+    private final CategoryDTO graphics = new CategoryDTO.Builder()
+            .withId("graphics")
+            .withName("Graphics")
+            .withApplications(Collections.singletonList(photofiltre))
+            .build();
+    private final CategoryDTO games = new CategoryDTO.Builder()
+            .withId("games")
+            .withName("Games")
+            .withApplications(Collections.singletonList(steam))
+            .build();
+
+    private final TestFilter filter = new TestFilter(RepositorySearchIndex.of(Arrays.asList(graphics, games)));
+
+    @Test
+    public void testNameMatchIsShown() {
+        filter.searchTermProperty().set("Filtre");
+
+        assertTrue(filter.filterApplication(photofiltre));
+        assertFalse(filter.filterApplication(steam));
+    }
+
+    @Test
+    public void testDescriptionOnlyMatchIsShown() {
+        filter.searchTermProperty().set("retouching");
+
+        assertTrue(filter.filterApplication(photofiltre));
+        assertFalse(filter.filterApplication(steam));
+    }
+
+    @Test
+    public void testCategoryOnlyMatchIsShown() {
+        filter.searchTermProperty().set("games");
+
+        assertTrue(filter.filterApplication(steam));
+        assertFalse(filter.filterApplication(photofiltre));
+    }
+
+    private static ApplicationDTO createApplication(String id, String name, String description) {
+        return new ApplicationDTO.Builder()
+                .withId(id)
+                .withName(name)
+                .withDescription(description)
+                .withScripts(Collections.singletonList(new ScriptDTO.Builder()
+                        .withId(id + ".online")
+                        .withScriptName("Online")
+                        .build()))
+                .build();
+    }
+
+    /**
+     * An {@link ApplicationFilter} showing all scripts, so that only the search term filters the applications
+     */
+    private static class TestFilter implements ApplicationFilter {
+        private final StringProperty searchTerm = new SimpleStringProperty();
+        private final ObjectProperty<CategoryDTO> filterCategory = new SimpleObjectProperty<>();
+        private final DoubleProperty fuzzySearchRatio = new SimpleDoubleProperty(FUZZY_SEARCH_RATIO);
+        private final ObjectProperty<RepositorySearchIndex> searchIndex;
+        private final ObjectProperty<OperatingSystem> operatingSystem = new SimpleObjectProperty<>(
+                OperatingSystem.LINUX);
+        private final BooleanProperty containCommercialApplications = new SimpleBooleanProperty(true);
+        private final BooleanProperty containRequiresPatchApplications = new SimpleBooleanProperty(false);
+        private final BooleanProperty containTestingApplications = new SimpleBooleanProperty(true);
+        private final BooleanProperty containAllOSCompatibleApplications = new SimpleBooleanProperty(true);
+
+        private TestFilter(RepositorySearchIndex searchIndex) {
+            this.searchIndex = new SimpleObjectProperty<>(searchIndex);
+        }
+
+        @Override
+        public StringProperty searchTermProperty() {
+            return searchTerm;
+        }
+
+        @Override
+        public ObjectProperty<CategoryDTO> filterCategoryProperty() {
+            return filterCategory;
+        }
+
+        @Override
+        public DoubleProperty fuzzySearchRatioProperty() {
+            return fuzzySearchRatio;
+        }
+
+        @Override
+        public ObjectProperty<RepositorySearchIndex> searchIndexProperty() {
+            return searchIndex;
+        }
+
+        @Override
+        public ObjectProperty<OperatingSystem> operatingSystemProperty() {
+            return operatingSystem;
+        }
+
+        @Override
+        public BooleanProperty containCommercialApplicationsProperty() {
+            return containCommercialApplications;
+        }
+
+        @Override
+        public BooleanProperty containRequiresPatchApplicationsProperty() {
+            return containRequiresPatchApplications;
+        }
+
+        @Override
+        public BooleanProperty containTestingApplicationsProperty() {
+            return containTestingApplications;
+        }
+
+        @Override
+        public BooleanProperty containAllOSCompatibleApplicationsProperty() {
+            return containAllOSCompatibleApplications;
+        }
+    }
+}
@@ -19,6 +19,7 @@
 package org.phoenicis.library;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
@@ -44,12 +45,13 @@ public class LibraryManager {
     private final static Logger LOGGER = LoggerFactory.getLogger(LibraryManager.class);
 
     private final String shortcutDirectory;
-    private ObjectMapper objectMapper;
+    // the reader is created once and reused for all shortcut info files
+    private final ObjectReader shortcutInfoReader;
     private Runnable onUpdate = new NullRunnable();
 
     public LibraryManager(String shortcutDirectory, ObjectMapper objectMapper) {
         this.shortcutDirectory = shortcutDirectory;
-        this.objectMapper = objectMapper;
+        this.shortcutInfoReader = objectMapper.readerFor(ShortcutInfoDTO.class);
     }
 
     public List<ShortcutCategoryDTO> fetchShortcuts() {
@@ -160,7 +162,7 @@ public class LibraryManager {
 
     private ShortcutInfoDTO unSerializeShortcutInfo(File jsonFile) {
         try {
-            return this.objectMapper.readValue(jsonFile, ShortcutInfoDTO.class);
+            return this.shortcutInfoReader.readValue(jsonFile);
         } catch (IOException e) {
             LOGGER.debug("JSON file not found");
             return new ShortcutInfoDTO.Builder().build();
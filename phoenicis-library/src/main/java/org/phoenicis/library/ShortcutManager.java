@@ -19,6 +19,7 @@
 package org.phoenicis.library;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.apache.commons.io.FileUtils;
 import org.graalvm.polyglot.Value;
 import org.phoenicis.configuration.security.Safe;
@@ -42,7 +43,8 @@ public class ShortcutManager {
     private final String shortcutDirectory;
     private final LibraryManager libraryManager;
     private final ScriptInterpreter scriptInterpreter;
-    private ObjectMapper objectMapper;
+    // the writer is created once and reused for all shortcut info files
+    private final ObjectWriter shortcutInfoWriter;
     private final String desktopShortcutDirectory;
 
     ShortcutManager(String shortcutDirectory,
@@ -54,7 +56,7 @@ public class ShortcutManager {
         this.desktopShortcutDirectory = desktopShortcutDirectory;
         this.libraryManager = libraryManager;
         this.scriptInterpreter = scriptInterpreter;
-        this.objectMapper = objectMapper;
+        this.shortcutInfoWriter = objectMapper.writerFor(ShortcutInfoDTO.class);
     }
 
     public void createShortcut(ShortcutDTO shortcutDTO) {
@@ -74,7 +76,7 @@ public class ShortcutManager {
         }
 
         try {
-            this.objectMapper.writeValue(infoFile, shortcutInfo);
+            this.shortcutInfoWriter.writeValue(infoFile, shortcutInfo);
 
             FileUtils.writeStringToFile(scriptFile, shortcutDTO.getScript(), ENCODING);
 
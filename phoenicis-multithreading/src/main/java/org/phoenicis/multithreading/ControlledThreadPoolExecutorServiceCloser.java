@@ -19,10 +19,14 @@
 package org.phoenicis.multithreading;
 
 import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 public class ControlledThreadPoolExecutorServiceCloser implements AutoCloseable {
     private final ControlledThreadPoolExecutorService[] executorServices;
+    // the actions releasing resources used by the executed tasks, they are run after the executors have been shut down
+    private final List<Runnable> closeActions = new CopyOnWriteArrayList<>();
     private boolean closeImmediately = false;
 
     ControlledThreadPoolExecutorServiceCloser(ControlledThreadPoolExecutorService... executorServices) {
@@ -33,6 +37,15 @@ public class ControlledThreadPoolExecutorServiceCloser implements AutoCloseable
         this.closeImmediately = closeImmediately;
     }
 
+    /**
+     * Adds an action, which is run once after the executor services have been shut down
+     *
+     * @param closeAction The action releasing resources used by the executed tasks
+     */
+    public void addCloseAction(Runnable closeAction) {
+        this.closeActions.add(closeAction);
+    }
+
     @PreDestroy
     @Override
     public void close() throws InterruptedException {
@@ -43,5 +56,11 @@ public class ControlledThreadPoolExecutorServiceCloser implements AutoCloseable
             }
             executorService.shutdownNow();
         }
+
+        // the closer is called explicitly and again when the application context is closed
+        for (Runnable closeAction : closeActions) {
+            closeActions.remove(closeAction);
+            closeAction.run();
+        }
     }
 }
@@ -19,9 +19,11 @@
 package org.phoenicis.multithreading;
 
 import org.junit.Test;
+import org.mockito.InOrder;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
@@ -42,4 +44,19 @@ public class ControlledThreadPoolExecutorServiceCloserTest {
         verify(mock2).awaitTermination(anyLong(), any());
         verify(mock2).shutdownNow();
     }
+
+    @Test
+    public void testCloseActionIsRunOnceAfterShutdown() throws InterruptedException {
+        final Runnable closeAction = mock(Runnable.class);
+        controlledThreadPoolExecutorCloser.addCloseAction(closeAction);
+
+        controlledThreadPoolExecutorCloser.close();
+
+        final InOrder inOrder = inOrder(mock2, closeAction);
+        inOrder.verify(mock2).shutdownNow();
+        inOrder.verify(closeAction).run();
+
+        controlledThreadPoolExecutorCloser.close();
+        verify(closeAction).run();
+    }
 }
\ No newline at end of file
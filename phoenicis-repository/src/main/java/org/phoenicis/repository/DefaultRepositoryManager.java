@@ -1,19 +1,26 @@
 package org.phoenicis.repository;
 
 import org.phoenicis.configuration.security.Safe;
+import org.phoenicis.repository.cache.ContentHashIndex;
 import org.phoenicis.repository.dto.*;
 import org.phoenicis.repository.location.RepositoryLocation;
 import org.phoenicis.repository.types.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static org.phoenicis.configuration.localisation.Localisation.tr;
 
@@ -26,38 +33,85 @@ public class DefaultRepositoryManager implements RepositoryManager {
 
     private final LocalRepository.Factory localRepositoryFactory;
     private final ClasspathRepository.Factory classPathRepositoryFactory;
+    private final GitRepository.Factory gitRepositoryFactory;
+    private final HttpRepository.Factory httpRepositoryFactory;
+    private final ArchiveRepository.Factory archiveRepositoryFactory;
     private final String cacheDirectoryPath;
+    private final ExecutorService executorService;
 
     private Map<RepositoryLocation<? extends Repository>, Repository> repositoryMap;
 
     private MultipleRepository multipleRepository;
     private CachedRepository cachedRepository;
-    private BackgroundRepository backgroundRepository;
 
     private List<CallbackPair> callbacks;
 
     private boolean isRepositoryLoaded = false;
 
+    // guards the publication of repositories to the callbacks
+    private final Object publicationLock = new Object();
+    // the number of started publications, used to drop publications which have been overtaken by newer ones
+    private long publicationCount = 0;
+    // the number of the last publication of a freshly fetched repository
+    private long lastFreshPublication = 0;
+    // the last repository passed to the callbacks, null if the callbacks need to be called in any case
+    private RepositoryDTO publishedRepository;
+
+    // guards the scheduling of refreshes
+    private final Object refreshLock = new Object();
+    // true while a refresh is queued or running on the executor service
+    private boolean refreshScheduled = false;
+    // true if a refresh has been requested, which has not been started yet
+    private boolean refreshRequested = false;
+    // true if the pending refresh should publish the last known repository before fetching the current one
+    private boolean publishLastKnownRepository = false;
+    // the asynchronous requests waiting for the pending refresh, guarded by refreshLock
+    private final List<CompletableFuture<RepositoryDTO>> pendingFetches = new ArrayList<>();
+
+    // the last translated repository together with the repository it has been translated from
+    private RepositoryDTO translationSource;
+    private RepositoryDTO translatedRepository;
+
     public DefaultRepositoryManager(ExecutorService executorService, String cacheDirectoryPath,
             LocalRepository.Factory localRepositoryFactory, ClasspathRepository.Factory classPathRepositoryFactory,
-            BackgroundRepository.Factory backgroundRepositoryFactory) {
+            GitRepository.Factory gitRepositoryFactory, HttpRepository.Factory httpRepositoryFactory,
+            ArchiveRepository.Factory archiveRepositoryFactory, ContentHashIndex miniatureHashIndex) {
         super();
 
         this.localRepositoryFactory = localRepositoryFactory;
         this.classPathRepositoryFactory = classPathRepositoryFactory;
+        this.gitRepositoryFactory = gitRepositoryFactory;
+        this.httpRepositoryFactory = httpRepositoryFactory;
+        this.archiveRepositoryFactory = archiveRepositoryFactory;
         this.cacheDirectoryPath = cacheDirectoryPath;
+        this.executorService = executorService;
 
         this.repositoryMap = new HashMap<>();
         this.callbacks = new CopyOnWriteArrayList<>();
 
-        this.multipleRepository = new MultipleRepository();
+        this.multipleRepository = new MultipleRepository(miniatureHashIndex, new ArrayList<>());
         this.cachedRepository = new CachedRepository(multipleRepository);
-        this.backgroundRepository = backgroundRepositoryFactory.createInstance(cachedRepository, executorService);
     }
 
     @Override
     public synchronized void addCallbacks(Consumer<RepositoryDTO> onRepositoryChange, Consumer<Exception> onError) {
-        this.callbacks.add(new CallbackPair(onRepositoryChange, onError));
+        addCallbackPair(new CallbackPair((repositoryDTO, delta) -> onRepositoryChange.accept(repositoryDTO), onError,
+                false));
+    }
+
+    @Override
+    public synchronized void addDeltaCallbacks(BiConsumer<RepositoryDTO, RepositoryDelta> onRepositoryChange,
+            Consumer<Exception> onError) {
+        addCallbackPair(new CallbackPair(onRepositoryChange, onError, true));
+    }
+
+    private void addCallbackPair(CallbackPair callbackPair) {
+        this.callbacks.add(callbackPair);
+
+        // the new callbacks haven't seen any repository yet
+        synchronized (publicationLock) {
+            this.publishedRepository = null;
+        }
     }
 
     @Override
@@ -85,6 +139,84 @@ public class DefaultRepositoryManager implements RepositoryManager {
         return this.cachedRepository.getScript(id);
     }
 
+    @Override
+    public CompletableFuture<RepositoryDTO> fetchRepository() {
+        return fetch(this::translate);
+    }
+
+    @Override
+    public CompletableFuture<ApplicationDTO> fetchApplication(List<String> path) {
+        return fetch(repositoryDTO -> Repository.findApplication(RepositoryIndex.of(repositoryDTO), path));
+    }
+
+    @Override
+    public CompletableFuture<ScriptDTO> fetchScript(List<String> path) {
+        return fetch(repositoryDTO -> Repository.findScript(RepositoryIndex.of(repositoryDTO), path));
+    }
+
+    @Override
+    public CompletableFuture<ScriptDTO> fetchScript(String id) {
+        return fetch(repositoryDTO -> RepositoryIndex.of(repositoryDTO).getScript(id));
+    }
+
+    /**
+     * Fetches the current repository asynchronously and maps it to the requested result.
+     * If the cached repository is up to date it is used directly, otherwise the request waits for the next refresh,
+     * which is shared with all other requests and callbacks
+     *
+     * @param mapper The function mapping the repository to the requested result
+     * @param <T> The type of the requested result
+     * @return A future, which can be cancelled or completed by a timeout to withdraw the request
+     */
+    private <T> CompletableFuture<T> fetch(Function<RepositoryDTO, T> mapper) {
+        final Optional<RepositoryDTO> currentRepository = this.cachedRepository.getCurrentRepository();
+        if (currentRepository.isPresent()) {
+            return CompletableFuture.completedFuture(currentRepository.get()).thenApply(mapper);
+        }
+
+        final CompletableFuture<RepositoryDTO> request = new CompletableFuture<>();
+        // a withdrawn request doesn't need to be served anymore
+        request.whenComplete((repositoryDTO, throwable) -> {
+            synchronized (refreshLock) {
+                this.pendingFetches.remove(request);
+            }
+        });
+
+        synchronized (refreshLock) {
+            this.pendingFetches.add(request);
+
+            requestRefresh(false);
+        }
+
+        final CompletableFuture<T> result = request.thenApply(mapper);
+        // cancelling the result or completing it by a timeout withdraws the request
+        result.whenComplete((value, throwable) -> request.cancel(false));
+
+        return result;
+    }
+
+    /**
+     * Translates the given repository. The last translation is reused if the same repository is translated again
+     *
+     * @param repositoryDTO The repository
+     * @return The translated repository
+     */
+    private RepositoryDTO translate(RepositoryDTO repositoryDTO) {
+        synchronized (publicationLock) {
+            if (this.translationSource != repositoryDTO) {
+                this.translatedRepository = tr(repositoryDTO);
+                this.translationSource = repositoryDTO;
+            }
+
+            return this.translatedRepository;
+        }
+    }
+
+    @Override
+    public List<RepositorySearchIndex.Result> searchApplications(String searchTerm) {
+        return RepositorySearchIndex.of(this.cachedRepository.getRepository()).search(searchTerm);
+    }
+
     @Override
     public void moveRepository(RepositoryLocation<? extends Repository> repositoryUrl, int toIndex) {
         LOGGER.info(String.format("Move repository: %s to %d", repositoryUrl, toIndex));
@@ -115,8 +247,9 @@ public class DefaultRepositoryManager implements RepositoryManager {
         // add the new repositories
         repositoryLocations.forEach(repositoryLocation -> {
             if (!this.repositoryMap.containsKey(repositoryLocation)) {
-                final Repository repository = repositoryLocation.createRepository(
-                        cacheDirectoryPath, localRepositoryFactory, classPathRepositoryFactory);
+                final Repository repository = repositoryLocation.createRepository(cacheDirectoryPath,
+                        localRepositoryFactory, classPathRepositoryFactory, gitRepositoryFactory,
+                        httpRepositoryFactory, archiveRepositoryFactory);
 
                 this.repositoryMap.put(repositoryLocation, repository);
             }
@@ -133,8 +266,9 @@ public class DefaultRepositoryManager implements RepositoryManager {
         LOGGER.info(String.format("Adding repositories: %s at index %d", Arrays.toString(repositoryUrls), index));
 
         for (int repositoryUrlIndex = 0; repositoryUrlIndex < repositoryUrls.length; repositoryUrlIndex++) {
-            Repository repository = repositoryUrls[repositoryUrlIndex].createRepository(
-                    cacheDirectoryPath, localRepositoryFactory, classPathRepositoryFactory);
+            Repository repository = repositoryUrls[repositoryUrlIndex].createRepository(cacheDirectoryPath,
+                    localRepositoryFactory, classPathRepositoryFactory, gitRepositoryFactory, httpRepositoryFactory,
+                    archiveRepositoryFactory);
 
             this.repositoryMap.put(repositoryUrls[repositoryUrlIndex], repository);
 
@@ -168,16 +302,41 @@ public class DefaultRepositoryManager implements RepositoryManager {
 
     @Override
     public synchronized void triggerRepositoryChange() {
-        this.cachedRepository.clearCache();
-        triggerCallbacks();
+        // stale-while-revalidate: the last known repository stays available until the refreshed one is fetched
+        this.cachedRepository.invalidate();
+
+        scheduleRefresh(true);
+    }
+
+    @Override
+    public synchronized void checkForUpdates() {
+        LOGGER.info("Checking repositories for updates");
+
+        this.multipleRepository.requestUpdate();
+
+        this.triggerRepositoryChange();
     }
 
     @Override
     public synchronized void triggerCallbacks() {
+        synchronized (publicationLock) {
+            // the callbacks are explicitly requested, therefore they need to be called even without any changes
+            this.publishedRepository = null;
+        }
+
+        scheduleRefresh(false);
+    }
+
+    /**
+     * Requests a refresh of the callbacks in the background. Requests are coalesced: at most one refresh is
+     * scheduled at a time and all requests made while it is queued or running are served by a single following
+     * refresh, which uses the latest state of the repositories
+     *
+     * @param publishLastKnownRepository True if the last known repository should be published immediately
+     */
+    private void scheduleRefresh(boolean publishLastKnownRepository) {
         if (!this.callbacks.isEmpty()) {
-            this.backgroundRepository.fetchInstallableApplications(repositoryDTO -> {
-                this.callbacks.forEach(callbackPair -> callbackPair.getOnRepositoryChange().accept(tr(repositoryDTO)));
-            }, exception -> this.callbacks.forEach(callbackPair -> callbackPair.getOnError().accept(exception)));
+            requestRefresh(publishLastKnownRepository);
             // do not set this in triggerRepositoryChange()
             // if no callbacks are registered, fetchInstallableApplications is not called and the repository is not
             // loaded
@@ -185,25 +344,157 @@ public class DefaultRepositoryManager implements RepositoryManager {
         }
     }
 
+    private void requestRefresh(boolean publishLastKnownRepository) {
+        synchronized (refreshLock) {
+            this.refreshRequested = true;
+            this.publishLastKnownRepository |= publishLastKnownRepository;
+
+            if (this.refreshScheduled) {
+                LOGGER.debug("Coalescing repository refresh with the already scheduled refresh");
+            } else {
+                this.refreshScheduled = true;
+                this.executorService.submit(this::refresh);
+            }
+        }
+    }
+
+    /**
+     * Serves the requested refreshes until no further refresh has been requested.
+     * Each refresh publishes the last known repository to the callbacks, if requested, and fetches the current
+     * repository afterwards. The fetched repository is only published if it differs from the last published
+     * repository. The asynchronous requests made before the refresh has started are completed with the fetched
+     * repository
+     */
+    private void refresh() {
+        while (true) {
+            final boolean publishLastKnown;
+            final List<CompletableFuture<RepositoryDTO>> fetches;
+            synchronized (refreshLock) {
+                if (!this.refreshRequested) {
+                    this.refreshScheduled = false;
+                    return;
+                }
+
+                publishLastKnown = this.publishLastKnownRepository;
+                fetches = new ArrayList<>(this.pendingFetches);
+                this.pendingFetches.clear();
+
+                this.refreshRequested = false;
+                this.publishLastKnownRepository = false;
+            }
+
+            final long publication;
+            synchronized (publicationLock) {
+                publication = ++this.publicationCount;
+            }
+
+            try {
+                if (publishLastKnown) {
+                    this.cachedRepository.getCachedRepository()
+                            .ifPresent(repositoryDTO -> publish(publication, repositoryDTO, false));
+                }
+
+                this.cachedRepository.fetchInstallableApplications(
+                        repositoryDTO -> {
+                            fetches.forEach(fetch -> fetch.complete(repositoryDTO));
+                            publish(publication, repositoryDTO, true);
+                        },
+                        exception -> {
+                            fetches.forEach(fetch -> fetch.completeExceptionally(exception));
+                            this.callbacks.forEach(callbackPair -> callbackPair.getOnError().accept(exception));
+                        });
+            } catch (RuntimeException e) {
+                fetches.forEach(fetch -> fetch.completeExceptionally(e));
+
+                // keep serving the following refreshes
+                LOGGER.error("Refreshing the repository failed", e);
+            }
+        }
+    }
+
+    /**
+     * Passes the given repository to the callbacks, unless it has already been published or a newer repository has
+     * been published in the meantime
+     *
+     * @param publication The number of the publication
+     * @param repositoryDTO The repository
+     * @param fresh True if the repository has been freshly fetched, false if it is the last known repository
+     */
+    private void publish(long publication, RepositoryDTO repositoryDTO, boolean fresh) {
+        synchronized (publicationLock) {
+            if (publication < this.lastFreshPublication || (!fresh && publication == this.lastFreshPublication)) {
+                LOGGER.debug("Skipping outdated repository publication {}", publication);
+                return;
+            }
+
+            if (fresh) {
+                this.lastFreshPublication = publication;
+            }
+
+            if (repositoryDTO.equals(this.publishedRepository)) {
+                LOGGER.debug("Repository is unchanged, skipping publication {}", publication);
+                return;
+            }
+
+            this.publishedRepository = repositoryDTO;
+
+            final RepositoryDTO translatedRepositoryDTO = translate(repositoryDTO);
+
+            // callbacks which received the same previous repository share the same delta
+            final Map<RepositoryDTO, RepositoryDelta> deltas = new IdentityHashMap<>();
+            this.callbacks.forEach(callbackPair -> {
+                final RepositoryDelta delta = callbackPair.isDeltaRequired()
+                        ? deltas.computeIfAbsent(callbackPair.getLastRepository(),
+                                lastRepository -> RepositoryDelta.between(lastRepository, translatedRepositoryDTO))
+                        : null;
+
+                callbackPair.setLastRepository(translatedRepositoryDTO);
+                callbackPair.getOnRepositoryChange().accept(translatedRepositoryDTO, delta);
+            });
+        }
+    }
+
     @Override
     public synchronized boolean isRepositoryLoaded() {
         return isRepositoryLoaded;
     }
 
     private class CallbackPair {
-        private Consumer<RepositoryDTO> onRepositoryChange;
+        private BiConsumer<RepositoryDTO, RepositoryDelta> onRepositoryChange;
 
         private Consumer<Exception> onError;
 
-        public CallbackPair(Consumer<RepositoryDTO> onRepositoryChange, Consumer<Exception> onError) {
+        // true if the onRepositoryChange callback expects the differences to the last repository
+        private boolean deltaRequired;
+
+        // the last repository passed to the onRepositoryChange callback, only kept if a delta is required
+        private RepositoryDTO lastRepository;
+
+        public CallbackPair(BiConsumer<RepositoryDTO, RepositoryDelta> onRepositoryChange,
+                Consumer<Exception> onError, boolean deltaRequired) {
             this.onRepositoryChange = onRepositoryChange;
             this.onError = onError;
+            this.deltaRequired = deltaRequired;
         }
 
-        public Consumer<RepositoryDTO> getOnRepositoryChange() {
+        public BiConsumer<RepositoryDTO, RepositoryDelta> getOnRepositoryChange() {
             return this.onRepositoryChange;
         }
 
+        public boolean isDeltaRequired() {
+            return this.deltaRequired;
+        }
+
+        public RepositoryDTO getLastRepository() {
+            return this.lastRepository;
+        }
+
+        public void setLastRepository(RepositoryDTO lastRepository) {
+            if (this.deltaRequired) {
+                this.lastRepository = lastRepository;
+            }
+        }
+
         public Consumer<Exception> getOnError() {
             return this.onError;
         }
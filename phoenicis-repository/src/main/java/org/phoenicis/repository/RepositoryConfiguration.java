@@ -20,9 +20,14 @@ package org.phoenicis.repository;
 
 import org.phoenicis.configuration.PhoenicisGlobalConfiguration;
 import org.phoenicis.multithreading.MultithreadingConfiguration;
+import org.phoenicis.repository.cache.ContentHashIndex;
+import org.phoenicis.repository.cache.RepositorySnapshotCache;
+import org.phoenicis.repository.dto.ContentLoader;
 import org.phoenicis.repository.location.RepositoryLocation;
-import org.phoenicis.repository.types.BackgroundRepository;
+import org.phoenicis.repository.types.ArchiveRepository;
 import org.phoenicis.repository.types.ClasspathRepository;
+import org.phoenicis.repository.types.GitRepository;
+import org.phoenicis.repository.types.HttpRepository;
 import org.phoenicis.repository.types.LocalRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -32,9 +37,13 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 
 import java.io.File;
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
 
 @Configuration
 public class RepositoryConfiguration {
+    private static final int MAX_REPOSITORY_THREADS = 16;
+
     @Value("${application.user.cache}")
     private String cacheDirectoryPath;
 
@@ -50,6 +59,12 @@ public class RepositoryConfiguration {
     @Value("${application.repository.default.classpath}")
     private String defaultClasspath;
 
+    @Value("${application.repository.git.refresh.interval}")
+    private long gitRefreshInterval;
+
+    @Value("${application.repository.http.timeout}")
+    private long httpTimeout;
+
     @Autowired
     private MultithreadingConfiguration multithreadingConfiguration;
 
@@ -64,11 +79,17 @@ public class RepositoryConfiguration {
 
     @Bean
     public RepositoryManager repositoryManager() {
+        // the scripts and resources of http repositories are downloaded with the same timeout as their index
+        ContentLoader.setHttpTimeout(Duration.ofSeconds(httpTimeout));
+
         RepositoryManager repositoryManager = new DefaultRepositoryManager(
                 multithreadingConfiguration.appsExecutorService(), cacheDirectoryPath,
                 localRepositoryFactory(),
                 classPathRepositoryFactory(),
-                backgroundRepositoryFactory());
+                gitRepositoryFactory(),
+                httpRepositoryFactory(),
+                archiveRepositoryFactory(),
+                miniatureHashIndex());
 
         // set initial repositories
         repositoryManager.addRepositories(
@@ -102,17 +123,65 @@ public class RepositoryConfiguration {
     @Bean
     ClasspathRepository.Factory classPathRepositoryFactory() {
         return new ClasspathRepository.Factory(phoenicisGlobalConfiguration.objectMapper(),
-                new PathMatchingResourcePatternResolver());
+                new PathMatchingResourcePatternResolver(), repositoryForkJoinPool());
+    }
+
+    /**
+     * The factory for git repositories.
+     * A git repository is checked for new commits at most once per refresh interval (in seconds).
+     * The content of a commit is read directly from the git object database and cached per commit
+     *
+     * @return The git repository factory
+     */
+    @Bean
+    GitRepository.Factory gitRepositoryFactory() {
+        return new GitRepository.Factory(phoenicisGlobalConfiguration.objectMapper(), repositorySnapshotCache(),
+                Duration.ofSeconds(gitRefreshInterval));
+    }
+
+    /**
+     * The factory for repositories consisting of a single repository index downloaded via HTTP.
+     * A download is aborted if the server doesn't respond within the timeout (in seconds)
+     *
+     * @return The http repository factory
+     */
+    @Bean
+    HttpRepository.Factory httpRepositoryFactory() {
+        return new HttpRepository.Factory(phoenicisGlobalConfiguration.objectMapper(), repositorySnapshotCache(),
+                Duration.ofSeconds(httpTimeout));
+    }
+
+    @Bean
+    ArchiveRepository.Factory archiveRepositoryFactory() {
+        return new ArchiveRepository.Factory(phoenicisGlobalConfiguration.objectMapper(), repositorySnapshotCache());
     }
 
     @Bean
     LocalRepository.Factory localRepositoryFactory() {
-        return new LocalRepository.Factory(phoenicisGlobalConfiguration.objectMapper());
+        return new LocalRepository.Factory(phoenicisGlobalConfiguration.objectMapper(), repositorySnapshotCache(),
+                repositoryForkJoinPool());
+    }
+
+    /**
+     * The pool used to read the content of the repositories in parallel.
+     * Reading a repository is mostly waiting for file system accesses, therefore the pool contains more threads than
+     * there are processors, but it is bounded to not flood the file system with requests
+     *
+     * @return The fork join pool
+     */
+    @Bean
+    ForkJoinPool repositoryForkJoinPool() {
+        return new ForkJoinPool(Math.min(2 * Runtime.getRuntime().availableProcessors(), MAX_REPOSITORY_THREADS));
+    }
+
+    @Bean
+    RepositorySnapshotCache repositorySnapshotCache() {
+        return new RepositorySnapshotCache(cacheDirectoryPath);
     }
 
     @Bean
-    BackgroundRepository.Factory backgroundRepositoryFactory() {
-        return new BackgroundRepository.Factory();
+    ContentHashIndex miniatureHashIndex() {
+        return new ContentHashIndex(cacheDirectoryPath, phoenicisGlobalConfiguration.objectMapper());
     }
 
 }
@@ -5,6 +5,8 @@ import org.phoenicis.repository.location.RepositoryLocation;
 import org.phoenicis.repository.types.Repository;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
@@ -23,6 +25,18 @@ public interface RepositoryManager {
      */
     void addCallbacks(Consumer<RepositoryDTO> onRepositoryChange, Consumer<Exception> onError);
 
+    /**
+     * This method adds a corresponding pair of callbacks to this repository manager, which are informed about the
+     * differences to the previously received repository.
+     * The first call of the onRepositoryChange callback contains the complete repository as added entries
+     *
+     * @param onRepositoryChange The callback that should be called with the new RepositoryDTO and its differences
+     *            to the RepositoryDTO passed in the previous call when the repository change succeeded
+     * @param onError The callback that should be called when the repository change failed
+     */
+    void addDeltaCallbacks(BiConsumer<RepositoryDTO, RepositoryDelta> onRepositoryChange,
+            Consumer<Exception> onError);
+
     /**
      * This method returns the {@link org.phoenicis.repository.dto.TypeDTO}, which can be found at the given
      * path.
@@ -66,6 +80,53 @@ public interface RepositoryManager {
      */
     ScriptDTO getScript(String id);
 
+    /**
+     * This method fetches the current repository asynchronously.
+     * If the repository is up to date it is returned immediately, otherwise the returned future is completed by the
+     * next refresh of the repository, which is shared with the registered callbacks. Like the callbacks the future
+     * receives the translated repository.
+     * The future can be cancelled, or given a deadline via {@link CompletableFuture#orTimeout}, to withdraw the
+     * request. Dependent stages without an own executor are run by the thread refreshing the repository
+     *
+     * @return A future completed with the current RepositoryDTO
+     */
+    CompletableFuture<RepositoryDTO> fetchRepository();
+
+    /**
+     * This method fetches the {@link org.phoenicis.repository.dto.ApplicationDTO}, which can be found at the given
+     * path, asynchronously, see {@link #fetchRepository()}
+     *
+     * @param path The path, where the searched ApplicationDTO can be found
+     * @return A future completed with the found ApplicationDTO or null if the application doesn't exist
+     */
+    CompletableFuture<ApplicationDTO> fetchApplication(List<String> path);
+
+    /**
+     * This method fetches the {@link org.phoenicis.repository.dto.ScriptDTO}, which can be found at the given path,
+     * asynchronously, see {@link #fetchRepository()}
+     *
+     * @param path The path, where the searched ScriptDTO can be found
+     * @return A future completed with the found ScriptDTO or null if the script doesn't exist
+     */
+    CompletableFuture<ScriptDTO> fetchScript(List<String> path);
+
+    /**
+     * This method fetches the {@link org.phoenicis.repository.dto.ScriptDTO} with the given ID asynchronously, see
+     * {@link #fetchRepository()}
+     *
+     * @param id The script ID
+     * @return A future completed with the found ScriptDTO or null if the script doesn't exist
+     */
+    CompletableFuture<ScriptDTO> fetchScript(String id);
+
+    /**
+     * This method searches the applications of the managed repositories
+     *
+     * @param searchTerm The search term
+     * @return The matching applications, ordered by descending relevance
+     */
+    List<RepositorySearchIndex.Result> searchApplications(String searchTerm);
+
     /**
      * This method moves the repository, belonging to the given repository url, to the given index.
      * This is done by swapping the current content at the given index with old index of the given repository url
@@ -119,6 +180,14 @@ public interface RepositoryManager {
      */
     void triggerRepositoryChange();
 
+    /**
+     * This method checks the managed repositories for updates, even if they have been checked recently, and calls
+     * {@link #triggerRepositoryChange()} afterwards.
+     * It is meant for refreshes requested by the user, automatic refreshes should use
+     * {@link #triggerRepositoryChange()}, which respects the minimum refresh intervals of the repositories.
+     */
+    void checkForUpdates();
+
     /**
      * This method triggers all registered callbacks.
      * In contrast to {@link #triggerRepositoryChange()}, it does not update the repository before.
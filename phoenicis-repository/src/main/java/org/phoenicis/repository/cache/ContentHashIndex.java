@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.phoenicis.repository.RepositoryException;
+import org.phoenicis.repository.dto.ContentLoader;
+import org.phoenicis.repository.types.GitBlob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An index containing the MD5 hashes of the contents behind {@link URI}s, e.g. the miniatures of applications.
+ * The hashes are keyed by the {@link URI} together with the size and modification time of the underlying file, so a
+ * hash is only computed again after the file has been changed. If a cache directory is given, the index is persisted
+ * inside it and reused by later runs.
+ */
+public class ContentHashIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContentHashIndex.class);
+
+    private final File indexFile;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The hashes read from the persisted index
+     */
+    private Map<String, String> storedHashes;
+
+    /**
+     * The hashes used since the index has been saved for the last time
+     */
+    private final Map<String, String> hashes = new ConcurrentHashMap<>();
+
+    private volatile boolean modified = false;
+
+    /**
+     * Constructor for an index which is only kept in memory
+     */
+    public ContentHashIndex() {
+        this.indexFile = null;
+        this.objectMapper = null;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param cacheDirectoryPath The path to the cache directory
+     * @param objectMapper The object mapper used to (de-)serialize the index
+     */
+    public ContentHashIndex(String cacheDirectoryPath, ObjectMapper objectMapper) {
+        this.indexFile = new File(cacheDirectoryPath, "content-hashes.json");
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns the MD5 hash of the content behind the given {@link URI}.
+     * The content is only read if no hash is known for the current version of the content
+     *
+     * @param uri The location of the content
+     * @return The MD5 hash of the content
+     * @throws IOException If the content can't be read
+     */
+    public String getHash(URI uri) throws IOException {
+        final String key = createKey(uri);
+
+        if (key == null) {
+            // the content behind the URI can't be versioned, therefore it needs to be hashed every time it is used
+            return computeHash(uri);
+        }
+
+        final String knownHash = hashes.get(key);
+        if (knownHash != null) {
+            return knownHash;
+        }
+
+        String hash = getStoredHashes().get(key);
+        if (hash == null) {
+            hash = computeHash(uri);
+            modified = true;
+        }
+
+        hashes.put(key, hash);
+
+        return hash;
+    }
+
+    /**
+     * Persists the hashes which have been used since the last call of this method together with the already stored
+     * hashes. Stored hashes are kept even if they haven't been requested in the meantime, e.g. because a merge reused
+     * an unchanged application, unless their content doesn't exist anymore or has been changed
+     */
+    public synchronized void save() {
+        if (indexFile == null || !modified) {
+            return;
+        }
+
+        final Map<String, String> usedHashes = new HashMap<>(hashes);
+
+        final Map<String, String> savedHashes = new HashMap<>(getStoredHashes());
+        savedHashes.putAll(usedHashes);
+        savedHashes.keySet().removeIf(key -> !isCurrentKey(key));
+
+        try {
+            Files.createDirectories(indexFile.getParentFile().toPath());
+
+            // write to a temporary file first, to never leave a partially written index behind
+            final File temporaryFile = File.createTempFile(indexFile.getName(), ".tmp", indexFile.getParentFile());
+            try {
+                objectMapper.writeValue(temporaryFile, savedHashes);
+
+                Files.move(temporaryFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile.toPath());
+            }
+
+            storedHashes = savedHashes;
+            hashes.keySet().removeAll(usedHashes.keySet());
+            modified = false;
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Could not write content hash index '%s'", indexFile), e);
+        }
+    }
+
+    private synchronized Map<String, String> getStoredHashes() {
+        if (storedHashes == null) {
+            storedHashes = new HashMap<>();
+
+            if (indexFile != null && indexFile.exists()) {
+                try {
+                    storedHashes = objectMapper.readValue(indexFile, new TypeReference<Map<String, String>>() {
+                        // Default
+                    });
+                } catch (IOException e) {
+                    LOGGER.warn(String.format("Could not read content hash index '%s'", indexFile), e);
+                }
+            }
+        }
+
+        return storedHashes;
+    }
+
+    /**
+     * Creates the key of the given {@link URI} consisting of the {@link URI} itself and the size and modification time
+     * of the file containing the content. Git blobs never change, their key is the {@link URI} alone
+     *
+     * @param uri The location of the content
+     * @return The key or null if the {@link URI} isn't backed by a file or a git blob
+     */
+    private String createKey(URI uri) {
+        if (GitBlob.isGitBlob(uri)) {
+            return uri.toString();
+        }
+
+        final File file = findFile(uri);
+
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+
+        return uri + ":" + file.length() + ":" + file.lastModified();
+    }
+
+    /**
+     * Checks whether the given key still belongs to the current version of its content, i.e. whether the file
+     * containing the content still exists and has the same size and modification time, or whether the git repository
+     * containing the git blob still exists
+     *
+     * @param key The key
+     * @return True if the key is the current key of its {@link URI}
+     */
+    private boolean isCurrentKey(String key) {
+        if (key.startsWith(GitBlob.SCHEME + ":")) {
+            try {
+                return GitBlob.getRepositoryFolder(URI.create(key)).isDirectory();
+            } catch (IOException | IllegalArgumentException e) {
+                return false;
+            }
+        }
+
+        // the key ends with the size and the modification time of the file
+        final int modificationTimeStart = key.lastIndexOf(':');
+        final int sizeStart = modificationTimeStart > 0 ? key.lastIndexOf(':', modificationTimeStart - 1) : -1;
+
+        if (sizeStart <= 0) {
+            return false;
+        }
+
+        try {
+            return key.equals(createKey(URI.create(key.substring(0, sizeStart))));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private File findFile(URI uri) {
+        if ("file".equals(uri.getScheme())) {
+            return new File(uri);
+        }
+
+        // classpath resources inside a jar, e.g. jar:file:/path/to/file.jar!/path/to/resource
+        if ("jar".equals(uri.getScheme())) {
+            final String schemeSpecificPart = uri.getSchemeSpecificPart();
+            final int separatorIndex = schemeSpecificPart.indexOf("!/");
+
+            if (separatorIndex >= 0 && schemeSpecificPart.startsWith("file:")) {
+                return new File(URI.create(schemeSpecificPart.substring(0, separatorIndex)));
+            }
+        }
+
+        return null;
+    }
+
+    private String computeHash(URI uri) throws IOException {
+        if (GitBlob.isGitBlob(uri)) {
+            return DigestUtils.md5Hex(GitBlob.read(uri));
+        }
+
+        // remote content is loaded with a timeout and kept in the cache of the content loader
+        if (findFile(uri) == null) {
+            try {
+                return DigestUtils.md5Hex(ContentLoader.load(uri));
+            } catch (RepositoryException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        try (InputStream inputStream = uri.toURL().openStream()) {
+            return DigestUtils.md5Hex(inputStream);
+        }
+    }
+}
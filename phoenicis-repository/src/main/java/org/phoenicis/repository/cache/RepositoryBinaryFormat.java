@@ -0,0 +1,384 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.cache;
+
+import org.phoenicis.entities.OperatingSystem;
+import org.phoenicis.repository.dto.*;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A compact binary encoding of {@link RepositoryDTO}s used for the caches stored on disk.
+ * <p>
+ * The format starts with a magic number and a format version, followed by the repository tree. All numbers are
+ * written as variable length integers and every string is only written once, later occurrences of the same string,
+ * e.g. the type and category IDs repeated inside every application and script, refer to the first occurrence.
+ * Increase {@link #FORMAT_VERSION} whenever the layout changes, older data is rejected afterwards.
+ */
+public final class RepositoryBinaryFormat {
+    private static final int MAGIC = 0x50485253; // "PHRS"
+
+    /**
+     * The version of the binary format
+     */
+    static final int FORMAT_VERSION = 1;
+
+    private RepositoryBinaryFormat() {
+        // Utility class
+    }
+
+    /**
+     * Writes the given repository
+     *
+     * @param repositoryDTO The repository
+     * @param outputStream The stream to write to, it is not closed
+     * @throws IOException If the repository can't be written
+     */
+    public static void write(RepositoryDTO repositoryDTO, OutputStream outputStream) throws IOException {
+        final Writer writer = new Writer(new DataOutputStream(new BufferedOutputStream(outputStream)));
+
+        writer.output.writeInt(MAGIC);
+        writer.writeNumber(FORMAT_VERSION);
+        writer.writeRepository(repositoryDTO);
+
+        writer.output.flush();
+    }
+
+    /**
+     * Reads a repository
+     *
+     * @param inputStream The stream to read from, it is not closed
+     * @return The repository
+     * @throws IOException If the repository can't be read or has been written in another format version
+     */
+    public static RepositoryDTO read(InputStream inputStream) throws IOException {
+        final Reader reader = new Reader(new DataInputStream(new BufferedInputStream(inputStream)));
+
+        if (reader.input.readInt() != MAGIC) {
+            throw new IOException("Not a binary repository");
+        }
+
+        final int version = reader.readNumber();
+        if (version != FORMAT_VERSION) {
+            throw new IOException(String.format("Unsupported binary repository version %d", version));
+        }
+
+        return reader.readRepository();
+    }
+
+    private static class Writer {
+        private final DataOutputStream output;
+        // the already written strings together with their reference number
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        private Writer(DataOutputStream output) {
+            this.output = output;
+        }
+
+        private void writeRepository(RepositoryDTO repositoryDTO) throws IOException {
+            writeString(repositoryDTO.getName());
+            writeList(repositoryDTO.getTypes(), this::writeType);
+
+            final TranslationDTO translations = repositoryDTO.getTranslations();
+            writeString(translations.getLanguage());
+
+            final Set<String> keys = translations.getProperties().stringPropertyNames();
+            writeNumber(keys.size());
+            for (String key : keys) {
+                writeString(key);
+                writeString(translations.getProperties().getProperty(key));
+            }
+        }
+
+        private void writeType(TypeDTO typeDTO) throws IOException {
+            writeString(typeDTO.getId());
+            writeString(typeDTO.getName());
+            writeURI(typeDTO.getIcon());
+            writeList(typeDTO.getCategories(), this::writeCategory);
+        }
+
+        private void writeCategory(CategoryDTO categoryDTO) throws IOException {
+            writeString(categoryDTO.getTypeId());
+            writeString(categoryDTO.getId());
+            writeString(categoryDTO.getName());
+            writeEnum(categoryDTO.getType());
+            writeURI(categoryDTO.getIcon());
+            writeList(categoryDTO.getApplications(), this::writeApplication);
+        }
+
+        private void writeApplication(ApplicationDTO applicationDTO) throws IOException {
+            writeString(applicationDTO.getTypeId());
+            writeString(applicationDTO.getCategoryId());
+            writeString(applicationDTO.getId());
+            writeString(applicationDTO.getName());
+            writeString(applicationDTO.getDescription());
+            writeURI(applicationDTO.getIcon());
+            writeList(applicationDTO.getMiniatures(), this::writeURI);
+            writeList(applicationDTO.getScripts(), this::writeScript);
+            writeList(applicationDTO.getResources(), resource -> {
+                writeString(resource.getName());
+                writeURI(resource.getLocation());
+            });
+        }
+
+        private void writeScript(ScriptDTO scriptDTO) throws IOException {
+            writeString(scriptDTO.getTypeId());
+            writeString(scriptDTO.getCategoryId());
+            writeString(scriptDTO.getApplicationId());
+            writeString(scriptDTO.getId());
+            writeString(scriptDTO.getScriptName());
+            writeURI(scriptDTO.getScriptSource());
+            writeList(scriptDTO.getCompatibleOperatingSystems(), this::writeEnum);
+            writeList(scriptDTO.getTestingOperatingSystems(), this::writeEnum);
+            writeBoolean(scriptDTO.isFree());
+            writeBoolean(scriptDTO.isRequiresPatch());
+            writeString(scriptDTO.getInlineScript());
+            writeURI(scriptDTO.getScriptLocation());
+            writeURI(scriptDTO.getIcon());
+        }
+
+        /**
+         * Writes a list. The leading number is 0 for null, otherwise the number of elements plus one
+         */
+        private <T> void writeList(List<T> values, ElementWriter<T> elementWriter) throws IOException {
+            if (values == null) {
+                writeNumber(0);
+                return;
+            }
+
+            writeNumber(values.size() + 1);
+            for (T value : values) {
+                elementWriter.write(value);
+            }
+        }
+
+        /**
+         * Writes a string. The leading number is 0 for null, an odd number for a reference to an already written
+         * string and an even number for a new string followed by its UTF-8 bytes
+         */
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                writeNumber(0);
+                return;
+            }
+
+            final Integer reference = strings.get(value);
+            if (reference != null) {
+                writeNumber(reference * 2 + 1);
+                return;
+            }
+
+            strings.put(value, strings.size());
+
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeNumber(bytes.length * 2 + 2);
+            output.write(bytes);
+        }
+
+        private void writeURI(URI value) throws IOException {
+            writeString(value == null ? null : value.toString());
+        }
+
+        private void writeEnum(Enum<?> value) throws IOException {
+            writeString(value == null ? null : value.name());
+        }
+
+        private void writeBoolean(Boolean value) throws IOException {
+            output.writeByte(value == null ? 0 : value ? 2 : 1);
+        }
+
+        /**
+         * Writes a non negative number using 7 bits per byte
+         */
+        private void writeNumber(int value) throws IOException {
+            int remaining = value;
+            while ((remaining & ~0x7F) != 0) {
+                output.writeByte((remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            output.writeByte(remaining);
+        }
+    }
+
+    private static class Reader {
+        private final DataInputStream input;
+        private final List<String> strings = new ArrayList<>();
+
+        private Reader(DataInputStream input) {
+            this.input = input;
+        }
+
+        private RepositoryDTO readRepository() throws IOException {
+            final RepositoryDTO.Builder repositoryDTOBuilder = new RepositoryDTO.Builder()
+                    .withName(readString())
+                    .withTypes(readList(this::readType));
+
+            final String language = readString();
+            final Properties properties = new Properties();
+
+            final int numberOfProperties = readNumber();
+            for (int index = 0; index < numberOfProperties; index++) {
+                properties.setProperty(readString(), readString());
+            }
+
+            return repositoryDTOBuilder
+                    .withTranslations(new TranslationDTO.Builder()
+                            .withLanguage(language)
+                            .withProperties(properties)
+                            .build())
+                    .build();
+        }
+
+        private TypeDTO readType() throws IOException {
+            return new TypeDTO.Builder()
+                    .withId(readString())
+                    .withName(readString())
+                    .withIcon(readURI())
+                    .withCategories(readList(this::readCategory))
+                    .build();
+        }
+
+        private CategoryDTO readCategory() throws IOException {
+            return new CategoryDTO.Builder()
+                    .withTypeId(readString())
+                    .withId(readString())
+                    .withName(readString())
+                    .withType(readEnum(CategoryDTO.CategoryType::valueOf))
+                    .withIcon(readURI())
+                    .withApplications(readList(this::readApplication))
+                    .build();
+        }
+
+        private ApplicationDTO readApplication() throws IOException {
+            return new ApplicationDTO.Builder()
+                    .withTypeId(readString())
+                    .withCategoryId(readString())
+                    .withId(readString())
+                    .withName(readString())
+                    .withDescription(readString())
+                    .withIcon(readURI())
+                    .withMiniatures(readList(this::readURI))
+                    .withScripts(readList(this::readScript))
+                    .withResources(readList(() -> new ResourceDTO(readString(), readURI())))
+                    .build();
+        }
+
+        private ScriptDTO readScript() throws IOException {
+            return new ScriptDTO.Builder()
+                    .withTypeId(readString())
+                    .withCategoryId(readString())
+                    .withApplicationId(readString())
+                    .withId(readString())
+                    .withScriptName(readString())
+                    .withScriptSource(readURI())
+                    .withCompatibleOperatingSystems(readList(() -> readEnum(OperatingSystem::valueOf)))
+                    .withTestingOperatingSystems(readList(() -> readEnum(OperatingSystem::valueOf)))
+                    .withFree(readBoolean())
+                    .withRequiresPatch(readBoolean())
+                    .withScript(readString())
+                    .withScriptLocation(readURI())
+                    .withIcon(readURI())
+                    .build();
+        }
+
+        private <T> List<T> readList(ElementReader<T> elementReader) throws IOException {
+            final int size = readNumber() - 1;
+            if (size < 0) {
+                return null;
+            }
+
+            final List<T> values = new ArrayList<>(size);
+            for (int index = 0; index < size; index++) {
+                values.add(elementReader.read());
+            }
+
+            return values;
+        }
+
+        private String readString() throws IOException {
+            final int header = readNumber();
+
+            if (header == 0) {
+                return null;
+            }
+
+            if ((header & 1) == 1) {
+                return strings.get(header / 2);
+            }
+
+            final byte[] bytes = new byte[header / 2 - 1];
+            input.readFully(bytes);
+
+            final String value = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(value);
+
+            return value;
+        }
+
+        private URI readURI() throws IOException {
+            final String value = readString();
+
+            return value == null ? null : URI.create(value);
+        }
+
+        private <E extends Enum<E>> E readEnum(Function<String, E> valueOf) throws IOException {
+            final String value = readString();
+
+            return value == null ? null : valueOf.apply(value);
+        }
+
+        private Boolean readBoolean() throws IOException {
+            final byte value = input.readByte();
+
+            return value == 0 ? null : value == 2;
+        }
+
+        private int readNumber() throws IOException {
+            int value = 0;
+            int shift = 0;
+
+            byte current;
+            do {
+                if (shift > 28) {
+                    throw new IOException("Malformed number");
+                }
+
+                current = input.readByte();
+                value |= (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+
+            return value;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ElementWriter<T> {
+        void write(T value) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ElementReader<T> {
+        T read() throws IOException;
+    }
+}
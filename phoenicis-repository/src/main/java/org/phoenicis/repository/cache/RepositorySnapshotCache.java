@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.cache;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.phoenicis.repository.dto.RepositoryDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Persists the {@link RepositoryDTO}s of repositories inside the cache directory.
+ * Every snapshot is stored together with a fingerprint of the repository source, e.g. a git commit id or a hash over
+ * the file modification times of a local repository. A stored snapshot is only reused as long as the fingerprint of
+ * the repository source doesn't change. The snapshots are stored in the {@link RepositoryBinaryFormat}.
+ */
+public class RepositorySnapshotCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RepositorySnapshotCache.class);
+
+    /**
+     * The version of the snapshot format. Increase this number when the structure of the repository DTOs changes
+     */
+    static final int SNAPSHOT_VERSION = 3;
+
+    private final File snapshotDirectory;
+
+    /**
+     * Constructor
+     *
+     * @param cacheDirectoryPath The path to the cache directory
+     */
+    public RepositorySnapshotCache(String cacheDirectoryPath) {
+        this.snapshotDirectory = new File(cacheDirectoryPath, "repositories");
+    }
+
+    /**
+     * Returns the stored {@link RepositoryDTO} for the given repository if its fingerprint matches the given
+     * fingerprint. Otherwise the repository is fetched using the given fetcher and stored for the next time.
+     *
+     * @param repositoryKey A key uniquely identifying the repository
+     * @param fingerprint The current fingerprint of the repository source
+     * @param fetcher The fetcher used to read the repository if no matching snapshot exists
+     * @return The repository content
+     */
+    public RepositoryDTO fetch(String repositoryKey, String fingerprint, Supplier<RepositoryDTO> fetcher) {
+        final Optional<RepositoryDTO> snapshot = load(repositoryKey, fingerprint);
+
+        if (snapshot.isPresent()) {
+            LOGGER.info("Using repository snapshot for '{}'", repositoryKey);
+
+            return snapshot.get();
+        }
+
+        final RepositoryDTO repositoryDTO = fetcher.get();
+
+        store(repositoryKey, fingerprint, repositoryDTO);
+
+        return repositoryDTO;
+    }
+
+    /**
+     * Loads the stored {@link RepositoryDTO} for the given repository
+     *
+     * @param repositoryKey A key uniquely identifying the repository
+     * @param fingerprint The current fingerprint of the repository source
+     * @return The stored repository content or {@link Optional#empty()} if no snapshot with a matching fingerprint
+     *         exists
+     */
+    public Optional<RepositoryDTO> load(String repositoryKey, String fingerprint) {
+        final File snapshotFile = getSnapshotFile(repositoryKey);
+
+        if (fingerprint == null || !snapshotFile.exists()) {
+            return Optional.empty();
+        }
+
+        try (DataInputStream inputStream = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            if (inputStream.readInt() == SNAPSHOT_VERSION && fingerprint.equals(inputStream.readUTF())) {
+                return Optional.of(RepositoryBinaryFormat.read(inputStream));
+            }
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Could not read repository snapshot '%s'", snapshotFile), e);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Stores the given {@link RepositoryDTO} for the given repository
+     *
+     * @param repositoryKey A key uniquely identifying the repository
+     * @param fingerprint The current fingerprint of the repository source
+     * @param repositoryDTO The repository content
+     */
+    public void store(String repositoryKey, String fingerprint, RepositoryDTO repositoryDTO) {
+        if (fingerprint == null) {
+            return;
+        }
+
+        final File snapshotFile = getSnapshotFile(repositoryKey);
+
+        try {
+            Files.createDirectories(snapshotDirectory.toPath());
+
+            // write to a temporary file first, to never leave a partially written snapshot behind
+            final File temporaryFile = File.createTempFile(snapshotFile.getName(), ".tmp", snapshotDirectory);
+            try {
+                try (DataOutputStream outputStream = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+                    outputStream.writeInt(SNAPSHOT_VERSION);
+                    outputStream.writeUTF(fingerprint);
+
+                    RepositoryBinaryFormat.write(repositoryDTO, outputStream);
+                }
+
+                Files.move(temporaryFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile.toPath());
+            }
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Could not write repository snapshot '%s'", snapshotFile), e);
+        }
+    }
+
+    /**
+     * Removes the stored snapshot of the given repository
+     *
+     * @param repositoryKey A key uniquely identifying the repository
+     */
+    public void delete(String repositoryKey) {
+        try {
+            Files.deleteIfExists(getSnapshotFile(repositoryKey).toPath());
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Could not delete repository snapshot for '%s'", repositoryKey), e);
+        }
+    }
+
+    private File getSnapshotFile(String repositoryKey) {
+        return new File(snapshotDirectory, DigestUtils.sha1Hex(repositoryKey) + ".snapshot");
+    }
+}
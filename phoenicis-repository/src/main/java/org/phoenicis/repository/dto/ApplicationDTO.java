@@ -53,8 +53,8 @@ public class ApplicationDTO {
     private static final String INVALID_ID_CHARS_REGEX = "[^a-zA-Z0-9_.]";
 
     private ApplicationDTO(Builder builder) {
-        this.typeId = builder.typeId;
-        this.categoryId = builder.categoryId;
+        this.typeId = DTOInterner.intern(builder.typeId);
+        this.categoryId = DTOInterner.intern(builder.categoryId);
         if (builder.id != null) {
             if (builder.id.matches(ID_REGEX)) {
                 this.id = builder.id;
@@ -53,7 +53,7 @@ public class CategoryDTO {
     private static final String INVALID_ID_CHARS_REGEX = "[^a-zA-Z0-9_.]";
 
     private CategoryDTO(Builder builder) {
-        this.typeId = builder.typeId;
+        this.typeId = DTOInterner.intern(builder.typeId);
         this.type = builder.type;
 
         if (builder.id != null) {
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.dto;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.io.IOUtils;
+import org.phoenicis.repository.RepositoryException;
+import org.phoenicis.repository.types.GitBlob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.JarURLConnection;
+import java.net.URI;
+import java.net.URLConnection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Loads the content of scripts and resources on demand.
+ * Repositories only store the location of a script or resource inside their DTOs, the content itself is read when
+ * it is requested for the first time and kept inside a small bounded cache afterwards.
+ */
+public final class ContentLoader {
+    /**
+     * The maximum number of bytes kept inside the cache
+     */
+    private static final long MAXIMUM_CACHE_WEIGHT = 8 * 1024 * 1024;
+
+    private static final Cache<URI, byte[]> CONTENT_CACHE = CacheBuilder.newBuilder()
+            .maximumWeight(MAXIMUM_CACHE_WEIGHT)
+            .<URI, byte[]> weigher((location, content) -> content.length)
+            .build();
+
+    /**
+     * The connect and read timeout of http and https downloads
+     */
+    private static volatile Duration httpTimeout = Duration.ofSeconds(30);
+
+    private ContentLoader() {
+        // Utility class
+    }
+
+    /**
+     * Loads the content located at the given location.
+     * Supported locations are all locations that can be opened as an {@link java.net.URL}, e.g. files or classpath
+     * resources inside a jar, and {@link GitBlob} locations. Http and https downloads use the timeout set by
+     * {@link #setHttpTimeout(Duration)}
+     *
+     * @param location The location of the content
+     * @return The content
+     * @throws RepositoryException If the content can't be read
+     */
+    public static byte[] load(URI location) {
+        try {
+            return CONTENT_CACHE.get(location, () -> read(location));
+        } catch (ExecutionException e) {
+            throw new RepositoryException(String.format("Could not load content from '%s'", location), e.getCause());
+        }
+    }
+
+    /**
+     * Removes the cached content of the given location. This method needs to be called when the content at the
+     * given location has been changed
+     *
+     * @param location The location of the content
+     */
+    public static void invalidate(URI location) {
+        CONTENT_CACHE.invalidate(location);
+    }
+
+    /**
+     * Removes the cached content of all locations inside the given repository, i.e. of the icons, miniatures,
+     * resources and scripts. This method needs to be called when the content behind the locations of a repository may
+     * have been changed, e.g. because a new version of the repository has been downloaded to the same locations
+     *
+     * @param repositoryDTO The repository
+     */
+    public static void invalidate(RepositoryDTO repositoryDTO) {
+        final List<URI> locations = new ArrayList<>();
+
+        for (TypeDTO type : repositoryDTO.getTypes()) {
+            locations.add(type.getIcon());
+
+            for (CategoryDTO category : type.getCategories()) {
+                locations.add(category.getIcon());
+
+                for (ApplicationDTO application : category.getApplications()) {
+                    locations.add(application.getIcon());
+                    locations.addAll(application.getMiniatures());
+                    application.getResources().forEach(resource -> locations.add(resource.getLocation()));
+
+                    for (ScriptDTO script : application.getScripts()) {
+                        locations.add(script.getIcon());
+                        locations.add(script.getScriptLocation());
+                    }
+                }
+            }
+        }
+
+        locations.removeIf(Objects::isNull);
+        CONTENT_CACHE.invalidateAll(locations);
+    }
+
+    /**
+     * Sets the connect and read timeout used to download content via http or https
+     *
+     * @param timeout The timeout
+     */
+    public static void setHttpTimeout(Duration timeout) {
+        httpTimeout = timeout;
+    }
+
+    private static byte[] read(URI location) throws IOException {
+        // git blobs are read from the object database of their git repository
+        if (GitBlob.isGitBlob(location)) {
+            return GitBlob.read(location);
+        }
+
+        final URLConnection connection = location.toURL().openConnection();
+        if (connection instanceof HttpURLConnection) {
+            return download((HttpURLConnection) connection);
+        }
+
+        // an archive may be replaced at the same path, the cached archive of the JDK would still be the old one
+        if (connection instanceof JarURLConnection) {
+            connection.setUseCaches(false);
+        }
+
+        try (InputStream inputStream = connection.getInputStream()) {
+            return IOUtils.toByteArray(inputStream);
+        }
+    }
+
+    private static byte[] download(HttpURLConnection connection) throws IOException {
+        final Duration timeout = httpTimeout;
+
+        try {
+            connection.setConnectTimeout((int) timeout.toMillis());
+            connection.setReadTimeout((int) timeout.toMillis());
+
+            final int responseCode = connection.getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException(String.format("Server responded with %d %s", responseCode,
+                        connection.getResponseMessage()));
+            }
+
+            try (InputStream inputStream = connection.getInputStream()) {
+                return IOUtils.toByteArray(inputStream);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
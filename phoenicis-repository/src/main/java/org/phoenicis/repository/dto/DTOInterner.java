@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.dto;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.phoenicis.entities.OperatingSystem;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * De-duplicates the values repeated throughout a repository, like the ids of the types, categories and applications,
+ * which are contained in every script, the names of the scripts, the script sources and the lists of operating systems.
+ * <p>
+ * Equal values are replaced by a single shared instance while the DTOs are created. The interned values are only
+ * weakly referenced, so that values which are no longer used by any repository snapshot can be garbage collected.
+ */
+final class DTOInterner {
+    private static final Interner<String> strings = Interners.newWeakInterner();
+    private static final Interner<URI> uris = Interners.newWeakInterner();
+    private static final Interner<List<OperatingSystem>> operatingSystems = Interners.newWeakInterner();
+
+    // This is a static class
+    private DTOInterner() {
+
+    }
+
+    static String intern(String value) {
+        return value == null ? null : strings.intern(value);
+    }
+
+    static URI intern(URI value) {
+        return value == null ? null : uris.intern(value);
+    }
+
+    /**
+     * Interns the given list of operating systems. The returned list is immutable
+     *
+     * @param value The list of operating systems
+     * @return The shared list containing the same operating systems in the same order
+     */
+    static List<OperatingSystem> internOperatingSystems(List<OperatingSystem> value) {
+        if (value == null) {
+            return null;
+        }
+
+        return operatingSystems.intern(Collections.unmodifiableList(new ArrayList<>(value)));
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.dto;
+
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The differences between two consecutive {@link RepositoryDTO}s.
+ * Entries are identified by their path of IDs. An entry with the same path in both repositories but a different
+ * content is listed as changed, together with all its parents. Added and removed entries are listed together with
+ * all entries they contain, so that consumers only interested in e.g. scripts don't need to walk the tree themselves.
+ * Entries of subtrees which are equal in both repositories aren't listed, their subtrees are compared using
+ * {@link Object#equals(Object)}
+ */
+public final class RepositoryDelta {
+    private final Entries added;
+    private final Entries removed;
+    private final Entries changed;
+
+    private RepositoryDelta(Entries added, Entries removed, Entries changed) {
+        this.added = added;
+        this.removed = removed;
+        this.changed = changed;
+    }
+
+    /**
+     * Computes the differences between the two given repositories
+     *
+     * @param oldRepositoryDTO The previous repository or null if there is no previous repository
+     * @param newRepositoryDTO The new repository
+     * @return The differences leading from the old repository to the new repository
+     */
+    public static RepositoryDelta between(RepositoryDTO oldRepositoryDTO, RepositoryDTO newRepositoryDTO) {
+        final RepositoryDTO previousRepositoryDTO = oldRepositoryDTO == null ? new RepositoryDTO.Builder().build()
+                : oldRepositoryDTO;
+
+        final RepositoryIndex oldIndex = RepositoryIndex.of(previousRepositoryDTO);
+        final RepositoryIndex newIndex = RepositoryIndex.of(newRepositoryDTO);
+
+        final Entries added = new Entries();
+        final Entries removed = new Entries();
+        final Entries changed = new Entries();
+
+        // entries which only exist in the new repository are added, changed entries are collected in the same pass
+        compareTypes(newRepositoryDTO, newIndex, oldIndex, added, changed);
+        // entries which only exist in the old repository are removed
+        compareTypes(previousRepositoryDTO, oldIndex, newIndex, removed, null);
+
+        return new RepositoryDelta(added, removed, changed);
+    }
+
+    /**
+     * Compares the types of the source repository with the target repository
+     *
+     * @param source The source repository
+     * @param sourceIndex The index of the source repository
+     * @param targetIndex The index of the target repository
+     * @param missing Receives the source entries which don't exist in the target repository
+     * @param changed Receives the source entries which differ from the target repository, if not null
+     */
+    private static void compareTypes(RepositoryDTO source, RepositoryIndex sourceIndex, RepositoryIndex targetIndex,
+            Entries missing, Entries changed) {
+        for (TypeDTO typeDTO : source.getTypes()) {
+            // entries with a duplicate ID are shadowed by the first entry
+            if (sourceIndex.getType(typeDTO.getId()) != typeDTO) {
+                continue;
+            }
+
+            final TypeDTO targetTypeDTO = targetIndex.getType(typeDTO.getId());
+
+            if (targetTypeDTO == null) {
+                addType(typeDTO, missing);
+            } else if (!typeDTO.equals(targetTypeDTO)) {
+                if (changed != null) {
+                    changed.types.add(typeDTO);
+                }
+
+                compareCategories(typeDTO, sourceIndex, targetIndex, missing, changed);
+            }
+        }
+    }
+
+    private static void compareCategories(TypeDTO typeDTO, RepositoryIndex sourceIndex,
+            RepositoryIndex targetIndex, Entries missing, Entries changed) {
+        for (CategoryDTO categoryDTO : typeDTO.getCategories()) {
+            if (sourceIndex.getCategory(typeDTO.getId(), categoryDTO.getId()) != categoryDTO) {
+                continue;
+            }
+
+            final CategoryDTO targetCategoryDTO = targetIndex.getCategory(typeDTO.getId(), categoryDTO.getId());
+
+            if (targetCategoryDTO == null) {
+                addCategory(categoryDTO, missing);
+            } else if (!categoryDTO.equals(targetCategoryDTO)) {
+                if (changed != null) {
+                    changed.categories.add(categoryDTO);
+                }
+
+                compareApplications(typeDTO, categoryDTO, sourceIndex, targetIndex, missing, changed);
+            }
+        }
+    }
+
+    private static void compareApplications(TypeDTO typeDTO, CategoryDTO categoryDTO, RepositoryIndex sourceIndex,
+            RepositoryIndex targetIndex, Entries missing, Entries changed) {
+        for (ApplicationDTO applicationDTO : categoryDTO.getApplications()) {
+            if (sourceIndex.getApplication(typeDTO.getId(), categoryDTO.getId(),
+                    applicationDTO.getId()) != applicationDTO) {
+                continue;
+            }
+
+            final ApplicationDTO targetApplicationDTO = targetIndex.getApplication(typeDTO.getId(),
+                    categoryDTO.getId(), applicationDTO.getId());
+
+            if (targetApplicationDTO == null) {
+                addApplication(applicationDTO, missing);
+            } else if (!applicationDTO.equals(targetApplicationDTO)) {
+                if (changed != null) {
+                    changed.applications.add(applicationDTO);
+                }
+
+                for (ScriptDTO scriptDTO : applicationDTO.getScripts()) {
+                    if (sourceIndex.getScript(typeDTO.getId(), categoryDTO.getId(), applicationDTO.getId(),
+                            scriptDTO.getId()) != scriptDTO) {
+                        continue;
+                    }
+
+                    final ScriptDTO targetScriptDTO = targetIndex.getScript(typeDTO.getId(), categoryDTO.getId(),
+                            applicationDTO.getId(), scriptDTO.getId());
+
+                    if (targetScriptDTO == null) {
+                        missing.scripts.add(scriptDTO);
+                    } else if (changed != null && !scriptDTO.equals(targetScriptDTO)) {
+                        changed.scripts.add(scriptDTO);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void addType(TypeDTO typeDTO, Entries entries) {
+        entries.types.add(typeDTO);
+
+        for (CategoryDTO categoryDTO : typeDTO.getCategories()) {
+            addCategory(categoryDTO, entries);
+        }
+    }
+
+    private static void addCategory(CategoryDTO categoryDTO, Entries entries) {
+        entries.categories.add(categoryDTO);
+
+        for (ApplicationDTO applicationDTO : categoryDTO.getApplications()) {
+            addApplication(applicationDTO, entries);
+        }
+    }
+
+    private static void addApplication(ApplicationDTO applicationDTO, Entries entries) {
+        entries.applications.add(applicationDTO);
+        entries.scripts.addAll(applicationDTO.getScripts());
+    }
+
+    /**
+     * Checks whether this delta contains no differences
+     *
+     * @return True if both repositories contain the same entries
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    /**
+     * Checks whether the type with the given ID or any entry inside it has been added, removed or changed
+     *
+     * @param typeId The type ID
+     * @return True if the type is affected by this delta
+     */
+    public boolean affectsType(String typeId) {
+        return added.containsType(typeId) || removed.containsType(typeId) || changed.containsType(typeId);
+    }
+
+    public List<TypeDTO> getAddedTypes() {
+        return Collections.unmodifiableList(added.types);
+    }
+
+    public List<TypeDTO> getRemovedTypes() {
+        return Collections.unmodifiableList(removed.types);
+    }
+
+    public List<TypeDTO> getChangedTypes() {
+        return Collections.unmodifiableList(changed.types);
+    }
+
+    public List<CategoryDTO> getAddedCategories() {
+        return Collections.unmodifiableList(added.categories);
+    }
+
+    public List<CategoryDTO> getRemovedCategories() {
+        return Collections.unmodifiableList(removed.categories);
+    }
+
+    public List<CategoryDTO> getChangedCategories() {
+        return Collections.unmodifiableList(changed.categories);
+    }
+
+    public List<ApplicationDTO> getAddedApplications() {
+        return Collections.unmodifiableList(added.applications);
+    }
+
+    public List<ApplicationDTO> getRemovedApplications() {
+        return Collections.unmodifiableList(removed.applications);
+    }
+
+    public List<ApplicationDTO> getChangedApplications() {
+        return Collections.unmodifiableList(changed.applications);
+    }
+
+    public List<ScriptDTO> getAddedScripts() {
+        return Collections.unmodifiableList(added.scripts);
+    }
+
+    public List<ScriptDTO> getRemovedScripts() {
+        return Collections.unmodifiableList(removed.scripts);
+    }
+
+    public List<ScriptDTO> getChangedScripts() {
+        return Collections.unmodifiableList(changed.scripts);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        RepositoryDelta that = (RepositoryDelta) o;
+
+        return new EqualsBuilder()
+                .append(added, that.added)
+                .append(removed, that.removed)
+                .append(changed, that.changed)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(added)
+                .append(removed)
+                .append(changed)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("added", added)
+                .append("removed", removed)
+                .append("changed", changed)
+                .toString();
+    }
+
+    /**
+     * The entries of one kind of difference, grouped by their level in the repository tree
+     */
+    private static final class Entries {
+        private final List<TypeDTO> types = new ArrayList<>();
+        private final List<CategoryDTO> categories = new ArrayList<>();
+        private final List<ApplicationDTO> applications = new ArrayList<>();
+        private final List<ScriptDTO> scripts = new ArrayList<>();
+
+        private boolean isEmpty() {
+            return types.isEmpty() && categories.isEmpty() && applications.isEmpty() && scripts.isEmpty();
+        }
+
+        private boolean containsType(String typeId) {
+            // changes inside a type are always accompanied by the type itself
+            return types.stream().anyMatch(typeDTO -> typeDTO.getId().equals(typeId));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            Entries that = (Entries) o;
+
+            return new EqualsBuilder()
+                    .append(types, that.types)
+                    .append(categories, that.categories)
+                    .append(applications, that.applications)
+                    .append(scripts, that.scripts)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                    .append(types)
+                    .append(categories)
+                    .append(applications)
+                    .append(scripts)
+                    .toHashCode();
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this)
+                    .append("types", types)
+                    .append("categories", categories)
+                    .append("applications", applications)
+                    .append("scripts", scripts)
+                    .toString();
+        }
+    }
+}
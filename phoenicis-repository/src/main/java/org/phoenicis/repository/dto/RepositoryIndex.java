@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.dto;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable index over the IDs of all types, categories, applications and scripts inside a {@link RepositoryDTO}.
+ * The index of a {@link RepositoryDTO} is only built once and reused as long as the {@link RepositoryDTO} instance
+ * is alive.
+ * If multiple entries share the same ID, the index returns the first one in the order of the repository tree
+ */
+public final class RepositoryIndex {
+    /**
+     * The already built indices. The keys are weak references, which are compared by identity
+     */
+    private static final LoadingCache<RepositoryDTO, RepositoryIndex> INDICES = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build(CacheLoader.from(RepositoryIndex::new));
+
+    private final Map<List<String>, TypeDTO> types;
+    private final Map<List<String>, CategoryDTO> categories;
+    private final Map<List<String>, ApplicationDTO> applications;
+    private final Map<List<String>, ScriptDTO> scripts;
+    private final Map<String, ScriptDTO> scriptsById;
+
+    private RepositoryIndex(RepositoryDTO repositoryDTO) {
+        final Map<List<String>, TypeDTO> types = new HashMap<>();
+        final Map<List<String>, CategoryDTO> categories = new HashMap<>();
+        final Map<List<String>, ApplicationDTO> applications = new HashMap<>();
+        final Map<List<String>, ScriptDTO> scripts = new HashMap<>();
+        final Map<String, ScriptDTO> scriptsById = new HashMap<>();
+
+        for (TypeDTO typeDTO : repositoryDTO.getTypes()) {
+            types.putIfAbsent(Collections.singletonList(typeDTO.getId()), typeDTO);
+
+            for (CategoryDTO categoryDTO : typeDTO.getCategories()) {
+                categories.putIfAbsent(Arrays.asList(typeDTO.getId(), categoryDTO.getId()), categoryDTO);
+
+                for (ApplicationDTO applicationDTO : categoryDTO.getApplications()) {
+                    applications.putIfAbsent(
+                            Arrays.asList(typeDTO.getId(), categoryDTO.getId(), applicationDTO.getId()),
+                            applicationDTO);
+
+                    for (ScriptDTO scriptDTO : applicationDTO.getScripts()) {
+                        scripts.putIfAbsent(Arrays.asList(typeDTO.getId(), categoryDTO.getId(),
+                                applicationDTO.getId(), scriptDTO.getId()), scriptDTO);
+                        scriptsById.putIfAbsent(scriptDTO.getId(), scriptDTO);
+                    }
+                }
+            }
+        }
+
+        this.types = Collections.unmodifiableMap(types);
+        this.categories = Collections.unmodifiableMap(categories);
+        this.applications = Collections.unmodifiableMap(applications);
+        this.scripts = Collections.unmodifiableMap(scripts);
+        this.scriptsById = Collections.unmodifiableMap(scriptsById);
+    }
+
+    /**
+     * Returns the index of the given {@link RepositoryDTO}. The index is built on the first call for a
+     * {@link RepositoryDTO} instance
+     *
+     * @param repositoryDTO The repository
+     * @return The index of the repository
+     */
+    public static RepositoryIndex of(RepositoryDTO repositoryDTO) {
+        return INDICES.getUnchecked(repositoryDTO);
+    }
+
+    /**
+     * Fetches the TypeDTO with the given ID
+     *
+     * @param typeId The type ID
+     * @return The TypeDTO or null if it doesn't exist
+     */
+    public TypeDTO getType(String typeId) {
+        return types.get(Collections.singletonList(typeId));
+    }
+
+    /**
+     * Fetches the CategoryDTO with the given ID inside the given type
+     *
+     * @param typeId The type ID
+     * @param categoryId The category ID
+     * @return The CategoryDTO or null if it doesn't exist
+     */
+    public CategoryDTO getCategory(String typeId, String categoryId) {
+        return categories.get(Arrays.asList(typeId, categoryId));
+    }
+
+    /**
+     * Fetches the ApplicationDTO with the given ID inside the given type and category
+     *
+     * @param typeId The type ID
+     * @param categoryId The category ID
+     * @param applicationId The application ID
+     * @return The ApplicationDTO or null if it doesn't exist
+     */
+    public ApplicationDTO getApplication(String typeId, String categoryId, String applicationId) {
+        return applications.get(Arrays.asList(typeId, categoryId, applicationId));
+    }
+
+    /**
+     * Fetches the ScriptDTO with the given ID inside the given type, category and application
+     *
+     * @param typeId The type ID
+     * @param categoryId The category ID
+     * @param applicationId The application ID
+     * @param scriptId The script ID
+     * @return The ScriptDTO or null if it doesn't exist
+     */
+    public ScriptDTO getScript(String typeId, String categoryId, String applicationId, String scriptId) {
+        return scripts.get(Arrays.asList(typeId, categoryId, applicationId, scriptId));
+    }
+
+    /**
+     * Fetches the ScriptDTO with the given ID
+     *
+     * @param scriptId The script ID
+     * @return The ScriptDTO or null if it doesn't exist
+     */
+    public ScriptDTO getScript(String scriptId) {
+        return scriptsById.get(scriptId);
+    }
+}
@@ -0,0 +1,428 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.dto;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable full-text index over the applications inside a {@link RepositoryDTO}, which supports ranked fuzzy
+ * searches.
+ * <p>
+ * The index contains the trigrams of the application names, script names, category names and application
+ * descriptions. A search compares the trigrams of the search term with the trigrams of these fields, so that
+ * misspelled search terms still find their applications, without comparing the search term with every application.
+ * The scores range from 0 to 100, an application whose name contains the search term always scores 100.
+ * The scores are weighted by the matched field and are meant for ranking. Whether an application matches at all is
+ * decided by its relevance, which also ranges from 0 to 100 but is independent of the matched field: every field
+ * containing the search term has a relevance of 100.
+ * The index of a {@link RepositoryDTO} is only built once and reused as long as the {@link RepositoryDTO} instance
+ * is alive.
+ */
+public final class RepositorySearchIndex {
+    /**
+     * The already built indices. The keys are weak references, which are compared by identity
+     */
+    private static final LoadingCache<RepositoryDTO, RepositorySearchIndex> INDICES = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build(CacheLoader.from(repositoryDTO -> new RepositorySearchIndex(repositoryDTO.getTypes().stream()
+                    .flatMap(typeDTO -> typeDTO.getCategories().stream())
+                    .collect(Collectors.toList()))));
+
+    private static final int NAME = 0;
+    private static final int SCRIPTS = 1;
+    private static final int CATEGORY = 2;
+    private static final int DESCRIPTION = 3;
+
+    /**
+     * The weights of the indexed fields, matches inside the application name are more relevant than matches inside
+     * its description
+     */
+    private static final double[] FIELD_WEIGHTS = { 1.0, 0.9, 0.8, 0.6 };
+
+    private static final double MAXIMUM_SCORE = 100;
+
+    private static final int[] NO_FIELDS = new int[0];
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final List<ApplicationDTO> applications;
+
+    // the position of every application inside the applications list
+    private final Map<ApplicationDTO, Integer> applicationIndices;
+
+    // the normalized text of every field, the field of an application is found at index application * fields + field
+    private final String[] fieldTexts;
+
+    // the fields containing a trigram, encoded like the field texts
+    private final Map<String, int[]> postings;
+
+    // the scores of the last search, most searches are repeated for every shown application
+    private volatile SearchScores lastSearchScores;
+
+    private RepositorySearchIndex(List<CategoryDTO> categories) {
+        final List<ApplicationDTO> applications = new ArrayList<>();
+        final List<String> fieldTexts = new ArrayList<>();
+        final Map<String, FieldIndices> postings = new HashMap<>();
+
+        for (CategoryDTO categoryDTO : categories) {
+            for (ApplicationDTO applicationDTO : categoryDTO.getApplications()) {
+                final int application = applications.size();
+                applications.add(applicationDTO);
+
+                final String[] fields = new String[FIELD_WEIGHTS.length];
+                fields[NAME] = normalize(applicationDTO.getName());
+                fields[SCRIPTS] = normalize(applicationDTO.getScripts().stream()
+                        .map(ScriptDTO::getScriptName)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.joining(" ")));
+                fields[CATEGORY] = normalize(categoryDTO.getName());
+                fields[DESCRIPTION] = normalize(applicationDTO.getDescription());
+
+                for (int field = 0; field < fields.length; field++) {
+                    final int fieldIndex = application * FIELD_WEIGHTS.length + field;
+
+                    fieldTexts.add(fields[field]);
+
+                    for (String trigram : trigrams(fields[field])) {
+                        postings.computeIfAbsent(trigram, key -> new FieldIndices()).add(fieldIndex);
+                    }
+                }
+            }
+        }
+
+        this.applications = Collections.unmodifiableList(applications);
+        this.applicationIndices = new IdentityHashMap<>(applications.size());
+        for (int application = 0; application < applications.size(); application++) {
+            this.applicationIndices.putIfAbsent(applications.get(application), application);
+        }
+        this.fieldTexts = fieldTexts.toArray(new String[0]);
+        this.postings = new HashMap<>(postings.size());
+
+        postings.forEach((trigram, fieldIndices) -> this.postings.put(trigram, fieldIndices.toArray()));
+    }
+
+    /**
+     * Returns the search index of the given {@link RepositoryDTO}. The index is built on the first call for a
+     * {@link RepositoryDTO} instance
+     *
+     * @param repositoryDTO The repository
+     * @return The search index of the repository
+     */
+    public static RepositorySearchIndex of(RepositoryDTO repositoryDTO) {
+        return INDICES.getUnchecked(repositoryDTO);
+    }
+
+    /**
+     * Builds a new search index over the applications inside the given categories
+     *
+     * @param categories The categories
+     * @return The search index of the categories
+     */
+    public static RepositorySearchIndex of(Collection<CategoryDTO> categories) {
+        return new RepositorySearchIndex(new ArrayList<>(categories));
+    }
+
+    /**
+     * Searches the applications matching the given search term
+     *
+     * @param searchTerm The search term
+     * @return The matching applications, ordered by descending score
+     */
+    public List<Result> search(String searchTerm) {
+        final double[] scores = getSearchScores(searchTerm).scores;
+
+        return IntStream.range(0, scores.length)
+                .filter(application -> scores[application] > 0)
+                .mapToObj(application -> new Result(applications.get(application), scores[application]))
+                // the sorting is stable, therefore equally scored applications keep their order in the repository
+                .sorted(Comparator.comparingDouble(Result::getScore).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Calculates how well the given application matches the given search term
+     *
+     * @param application The application
+     * @param searchTerm The search term
+     * @return The score between 0 and 100, 0 if the application doesn't match or isn't part of the index
+     */
+    public double getScore(ApplicationDTO application, String searchTerm) {
+        final Integer applicationIndex = applicationIndices.get(application);
+
+        return applicationIndex == null ? 0 : getSearchScores(searchTerm).scores[applicationIndex];
+    }
+
+    /**
+     * Calculates how similar the best matching field of the given application is to the given search term.
+     * Unlike the score, the relevance doesn't depend on which field matches, therefore it can be compared with a
+     * single threshold for all fields
+     *
+     * @param application The application
+     * @param searchTerm The search term
+     * @return The relevance between 0 and 100, 100 if any field contains the search term, 0 if the application doesn't
+     *         match or isn't part of the index
+     */
+    public double getRelevance(ApplicationDTO application, String searchTerm) {
+        final Integer applicationIndex = applicationIndices.get(application);
+
+        return applicationIndex == null ? 0 : getSearchScores(searchTerm).relevances[applicationIndex];
+    }
+
+    /**
+     * Fetches the scores of all matching applications for the given search term. The scores of the last search term
+     * are reused
+     *
+     * @param searchTerm The search term
+     * @return The scores and relevances of all applications, in the order of the applications list
+     */
+    private SearchScores getSearchScores(String searchTerm) {
+        final String query = normalize(searchTerm);
+
+        final SearchScores searchScores = this.lastSearchScores;
+        if (searchScores != null && searchScores.query.equals(query)) {
+            return searchScores;
+        }
+
+        final SearchScores calculatedScores = calculateScores(query);
+        this.lastSearchScores = calculatedScores;
+
+        return calculatedScores;
+    }
+
+    private SearchScores calculateScores(String query) {
+        if (query.isEmpty()) {
+            return new SearchScores(query, applications.size());
+        }
+
+        if (query.length() < 3) {
+            return calculateShortScores(query);
+        }
+
+        final Set<String> queryTrigrams = trigrams(query);
+        // a field containing the search term contains at least all trigrams lying completely inside the search term
+        final int requiredMatches = trigrams(query, false).size();
+
+        // count the matching trigrams of every field
+        final int[] matches = new int[fieldTexts.length];
+        for (String trigram : queryTrigrams) {
+            for (int fieldIndex : postings.getOrDefault(trigram, NO_FIELDS)) {
+                matches[fieldIndex]++;
+            }
+        }
+
+        final SearchScores searchScores = new SearchScores(query, applications.size());
+        final int numberOfQueryTrigrams = queryTrigrams.size();
+
+        for (int fieldIndex = 0; fieldIndex < matches.length; fieldIndex++) {
+            if (matches[fieldIndex] == 0) {
+                continue;
+            }
+
+            final int application = fieldIndex / FIELD_WEIGHTS.length;
+            final double weight = FIELD_WEIGHTS[fieldIndex % FIELD_WEIGHTS.length];
+
+            // only fields containing all required trigrams need to be checked for the complete search term
+            final double relevance = matches[fieldIndex] >= requiredMatches && fieldTexts[fieldIndex].contains(query)
+                    ? MAXIMUM_SCORE
+                    : MAXIMUM_SCORE * matches[fieldIndex] / numberOfQueryTrigrams;
+
+            searchScores.add(application, weight, relevance);
+        }
+
+        return searchScores;
+    }
+
+    /**
+     * Calculates the scores for a search term, which is too short to form a trigram without padding.
+     * Such a search term only matches fields containing it, these fields contain a trigram containing the search term
+     *
+     * @param query The normalized search term
+     * @return The scores and relevances of all applications, in the order of the applications list
+     */
+    private SearchScores calculateShortScores(String query) {
+        final SearchScores searchScores = new SearchScores(query, applications.size());
+
+        postings.forEach((trigram, fieldIndices) -> {
+            if (trigram.contains(query)) {
+                for (int fieldIndex : fieldIndices) {
+                    searchScores.add(fieldIndex / FIELD_WEIGHTS.length,
+                            FIELD_WEIGHTS[fieldIndex % FIELD_WEIGHTS.length], MAXIMUM_SCORE);
+                }
+            }
+        });
+
+        return searchScores;
+    }
+
+    /**
+     * Normalizes the given text by converting it to lower case and by replacing all sequences of non alphanumeric
+     * characters with a single space
+     *
+     * @param text The text
+     * @return The normalized text
+     */
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+
+        return SEPARATORS.matcher(text.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Splits the given normalized text into its trigrams. The text is padded with spaces, so that the beginning and
+     * the end of the text form trigrams too
+     *
+     * @param text The normalized text
+     * @return The trigrams of the text
+     */
+    private static Set<String> trigrams(String text) {
+        return trigrams(text, true);
+    }
+
+    private static Set<String> trigrams(String text, boolean padded) {
+        if (text.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        final String paddedText = padded ? " " + text + " " : text;
+        final Set<String> trigrams = new HashSet<>();
+
+        for (int index = 0; index + 3 <= paddedText.length(); index++) {
+            trigrams.add(paddedText.substring(index, index + 3));
+        }
+
+        return trigrams;
+    }
+
+    /**
+     * A growing list of field indices, which avoids boxing the indices while the index is built
+     */
+    private static final class FieldIndices {
+        private int[] values = new int[4];
+        private int size = 0;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            values[size++] = value;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * The scores and relevances of all matching applications for a normalized search term
+     */
+    private static final class SearchScores {
+        private final String query;
+        private final double[] scores;
+        private final double[] relevances;
+
+        private SearchScores(String query, int numberOfApplications) {
+            this.query = query;
+            this.scores = new double[numberOfApplications];
+            this.relevances = new double[numberOfApplications];
+        }
+
+        /**
+         * Adds a matching field of an application, the best matching field determines the score and the relevance
+         *
+         * @param application The application
+         * @param weight The weight of the field
+         * @param relevance The relevance of the field
+         */
+        private void add(int application, double weight, double relevance) {
+            scores[application] = Math.max(scores[application], weight * relevance);
+            relevances[application] = Math.max(relevances[application], relevance);
+        }
+    }
+
+    /**
+     * An application found by a search
+     */
+    public static final class Result {
+        private final ApplicationDTO application;
+        private final double score;
+
+        private Result(ApplicationDTO application, double score) {
+            this.application = application;
+            this.score = score;
+        }
+
+        public ApplicationDTO getApplication() {
+            return application;
+        }
+
+        /**
+         * @return The score between 0 and 100
+         */
+        public double getScore() {
+            return score;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            Result that = (Result) o;
+
+            return new EqualsBuilder()
+                    .append(application, that.application)
+                    .append(score, that.score)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                    .append(application)
+                    .append(score)
+                    .toHashCode();
+        }
+
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this)
+                    .append("application", application.getId())
+                    .append("score", score)
+                    .toString();
+        }
+    }
+}
@@ -18,26 +18,74 @@
 
 package org.phoenicis.repository.dto;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+
+import java.net.URI;
 import java.util.Comparator;
 
+/**
+ * A resource file of an application.
+ * Only the location of the resource is kept in memory, its content is loaded on demand
+ */
 public class ResourceDTO {
     private final String name;
-    private final byte[] content;
+    private final URI location;
 
-    public ResourceDTO(String name, byte[] content) {
+    @JsonCreator
+    public ResourceDTO(@JsonProperty("name") String name, @JsonProperty("location") URI location) {
         this.name = name;
-        this.content = content;
+        this.location = location;
     }
 
     public String getName() {
         return name;
     }
 
+    public URI getLocation() {
+        return location;
+    }
+
+    /**
+     * Loads the content of this resource
+     *
+     * @return The content of this resource
+     */
+    @JsonIgnore
     public byte[] getContent() {
-        return content;
+        return location == null ? null : ContentLoader.load(location);
     }
 
     public static Comparator<ResourceDTO> nameComparator() {
         return (o1, o2) -> o1.getName().compareToIgnoreCase(o2.getName());
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ResourceDTO that = (ResourceDTO) o;
+
+        return new EqualsBuilder()
+                .append(name, that.name)
+                .append(location, that.location)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37)
+                .append(name)
+                .append(location)
+                .toHashCode();
+    }
 }
@@ -18,11 +18,14 @@
 
 package org.phoenicis.repository.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.phoenicis.configuration.localisation.ParameterName;
 import org.phoenicis.configuration.localisation.Translatable;
 import org.phoenicis.configuration.localisation.TranslatableBuilder;
 import org.phoenicis.configuration.localisation.Translate;
@@ -31,6 +34,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.Comparator;
 import java.util.List;
 
@@ -50,34 +54,37 @@ public class ScriptDTO {
     private final Boolean free;
     private final Boolean requiresPatch;
     private final String script;
+    private final URI scriptLocation;
     private final URI icon;
 
     private static final String ID_REGEX = "^[a-zA-Z0-9_.]+$";
     private static final String INVALID_ID_CHARS_REGEX = "[^a-zA-Z0-9_.]";
 
     private ScriptDTO(Builder builder) {
-        this.typeId = builder.typeId;
-        this.categoryId = builder.categoryId;
-        this.applicationId = builder.applicationId;
+        // the ids, names and sources are repeated by many scripts, therefore they are shared between the scripts
+        this.typeId = DTOInterner.intern(builder.typeId);
+        this.categoryId = DTOInterner.intern(builder.categoryId);
+        this.applicationId = DTOInterner.intern(builder.applicationId);
         if (builder.id != null) {
             if (builder.id.matches(ID_REGEX)) {
-                this.id = builder.id;
+                this.id = DTOInterner.intern(builder.id);
             } else {
                 LOGGER.warn(String.format("Script ID (%s) contains invalid characters, will remove them.",
                         builder.id));
-                this.id = builder.id.replaceAll(INVALID_ID_CHARS_REGEX, "");
+                this.id = DTOInterner.intern(builder.id.replaceAll(INVALID_ID_CHARS_REGEX, ""));
             }
         } else {
             this.id = null;
         }
 
-        this.scriptName = builder.scriptName == null ? builder.id : builder.scriptName;
-        this.scriptSource = builder.scriptSource;
-        this.compatibleOperatingSystems = builder.compatibleOperatingSystems;
-        this.testingOperatingSystems = builder.testingOperatingSystems;
+        this.scriptName = DTOInterner.intern(builder.scriptName == null ? builder.id : builder.scriptName);
+        this.scriptSource = DTOInterner.intern(builder.scriptSource);
+        this.compatibleOperatingSystems = DTOInterner.internOperatingSystems(builder.compatibleOperatingSystems);
+        this.testingOperatingSystems = DTOInterner.internOperatingSystems(builder.testingOperatingSystems);
         this.free = builder.free;
         this.requiresPatch = builder.requiresPatch;
         this.script = builder.script;
+        this.scriptLocation = builder.scriptLocation;
         this.icon = builder.icon;
     }
 
@@ -122,10 +129,36 @@ public class ScriptDTO {
         return testingOperatingSystems;
     }
 
+    /**
+     * Returns the content of the script.
+     * If the script has been created with a script location instead of an inline script, the content is loaded on
+     * demand from the script location
+     *
+     * @return The content of the script
+     */
+    @JsonIgnore
     public String getScript() {
+        if (script != null || scriptLocation == null) {
+            return script;
+        }
+
+        return new String(ContentLoader.load(scriptLocation), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the inline content of the script without loading it from the script location
+     *
+     * @return The inline content of the script or null if the script is loaded from its script location
+     */
+    @JsonProperty("script")
+    public String getInlineScript() {
         return script;
     }
 
+    public URI getScriptLocation() {
+        return scriptLocation;
+    }
+
     public URI getIcon() {
         return icon;
     }
@@ -158,6 +191,7 @@ public class ScriptDTO {
                 .append(free, scriptDTO.free)
                 .append(requiresPatch, scriptDTO.requiresPatch)
                 .append(script, scriptDTO.script)
+                .append(scriptLocation, scriptDTO.scriptLocation)
                 .append(icon, scriptDTO.icon)
                 .isEquals();
     }
@@ -175,6 +209,7 @@ public class ScriptDTO {
                 .append(testingOperatingSystems)
                 .append(free).append(requiresPatch)
                 .append(script)
+                .append(scriptLocation)
                 .append(icon)
                 .toHashCode();
     }
@@ -193,6 +228,7 @@ public class ScriptDTO {
         private Boolean free;
         private Boolean requiresPatch;
         private String script;
+        private URI scriptLocation;
         private URI icon;
 
         public Builder() {
@@ -205,7 +241,8 @@ public class ScriptDTO {
                     .withApplicationId(scriptDTO.getApplicationId())
                     .withId(scriptDTO.getId())
                     .withScriptName(scriptDTO.getScriptName())
-                    .withScript(scriptDTO.getScript())
+                    .withScript(scriptDTO.getInlineScript())
+                    .withScriptLocation(scriptDTO.getScriptLocation())
                     .withCompatibleOperatingSystems(scriptDTO.getCompatibleOperatingSystems())
                     .withTestingOperatingSystems(scriptDTO.getTestingOperatingSystems())
                     .withFree(scriptDTO.isFree())
@@ -238,11 +275,16 @@ public class ScriptDTO {
             return this;
         }
 
-        public Builder withScript(String script) {
+        public Builder withScript(@ParameterName("inlineScript") String script) {
             this.script = script;
             return this;
         }
 
+        public Builder withScriptLocation(URI scriptLocation) {
+            this.scriptLocation = scriptLocation;
+            return this;
+        }
+
         public Builder withScriptSource(URI scriptSource) {
             this.scriptSource = scriptSource;
             return this;
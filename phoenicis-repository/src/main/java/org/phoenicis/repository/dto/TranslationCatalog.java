@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.dto;
+
+import org.phoenicis.configuration.localisation.Localisation;
+import org.phoenicis.configuration.localisation.PropertiesResourceBundle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * The merged translations of multiple repositories, ready to be used by the {@link Localisation}.
+ * <p>
+ * The translations of the repositories are merged once into a single flat {@link PropertiesResourceBundle}. The
+ * catalog of the last merged translations is reused as long as the same {@link TranslationDTO} instances are merged
+ * in the same order, i.e. as long as the repository snapshots don't change, so that refreshing an unchanged
+ * repository neither merges the translations again nor replaces the active bundle.
+ */
+public final class TranslationCatalog {
+    // the last created catalog
+    private static volatile TranslationCatalog lastCatalog;
+
+    private final List<TranslationDTO> sources;
+    private final TranslationDTO translations;
+    private final PropertiesResourceBundle resourceBundle;
+
+    private TranslationCatalog(List<TranslationDTO> sources) {
+        final Properties mergedProperties = new Properties();
+        for (TranslationDTO source : sources) {
+            if (source != null && source.getProperties() != null) {
+                mergedProperties.putAll(source.getProperties());
+            }
+        }
+
+        this.sources = new ArrayList<>(sources);
+        this.translations = new TranslationDTO.Builder()
+                .withLanguage(Locale.getDefault().getLanguage())
+                .withProperties(mergedProperties)
+                .build();
+        this.resourceBundle = new PropertiesResourceBundle(mergedProperties);
+    }
+
+    /**
+     * Fetches the catalog of the given translations
+     *
+     * @param sources The translations in the order in which they are merged, later translations override earlier
+     *            ones
+     * @return The catalog containing the merged translations
+     */
+    public static TranslationCatalog of(List<TranslationDTO> sources) {
+        final TranslationCatalog catalog = lastCatalog;
+        if (catalog != null && isSameInstances(catalog.sources, sources)) {
+            return catalog;
+        }
+
+        final TranslationCatalog newCatalog = new TranslationCatalog(sources);
+        lastCatalog = newCatalog;
+
+        return newCatalog;
+    }
+
+    /**
+     * Returns the merged translations
+     *
+     * @return The merged translations
+     */
+    public TranslationDTO getTranslations() {
+        return translations;
+    }
+
+    /**
+     * Makes the translations of this catalog the additional translations of the {@link Localisation}, replacing the
+     * previously active translations
+     */
+    public void activate() {
+        Localisation.setAdditionalTranslations(resourceBundle);
+    }
+
+    private static boolean isSameInstances(List<TranslationDTO> left, List<TranslationDTO> right) {
+        if (left.size() != right.size()) {
+            return false;
+        }
+
+        for (int index = 0; index < left.size(); index++) {
+            if (left.get(index) != right.get(index)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
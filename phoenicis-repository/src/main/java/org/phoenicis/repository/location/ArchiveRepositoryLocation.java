@@ -0,0 +1,84 @@
+package org.phoenicis.repository.location;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.phoenicis.repository.types.ArchiveRepository;
+import org.phoenicis.repository.types.ClasspathRepository;
+import org.phoenicis.repository.types.GitRepository;
+import org.phoenicis.repository.types.HttpRepository;
+import org.phoenicis.repository.types.LocalRepository;
+
+import java.io.File;
+
+/**
+ * Location information for a repository contained inside a zip archive in the local file system
+ */
+@JsonDeserialize
+public class ArchiveRepositoryLocation extends RepositoryLocation<ArchiveRepository> {
+    /**
+     * The path to the repository archive
+     */
+    private final File archiveLocation;
+
+    /**
+     * Constructor
+     *
+     * @param archiveLocation The path to the archive containing the repository
+     */
+    @JsonCreator
+    public ArchiveRepositoryLocation(@JsonProperty("archiveLocation") File archiveLocation) {
+        super("archive");
+
+        this.archiveLocation = archiveLocation;
+    }
+
+    @Override
+    public ArchiveRepository createRepository(String cacheDirectoryPath,
+            LocalRepository.Factory localRepositoryFactory, ClasspathRepository.Factory classPathRepositoryFactory,
+            GitRepository.Factory gitRepositoryFactory, HttpRepository.Factory httpRepositoryFactory,
+            ArchiveRepository.Factory archiveRepositoryFactory) {
+        return archiveRepositoryFactory.createInstance(archiveLocation);
+    }
+
+    public File getArchiveLocation() {
+        return archiveLocation;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ArchiveRepositoryLocation that = (ArchiveRepositoryLocation) o;
+
+        return new EqualsBuilder()
+                .append(archiveLocation, that.archiveLocation)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(archiveLocation)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this).append(archiveLocation).toString();
+    }
+
+    @Override
+    public String toDisplayString() {
+        return String.format("archive:%s", archiveLocation.toString());
+    }
+}
@@ -6,7 +6,10 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
+import org.phoenicis.repository.types.ArchiveRepository;
 import org.phoenicis.repository.types.ClasspathRepository;
+import org.phoenicis.repository.types.GitRepository;
+import org.phoenicis.repository.types.HttpRepository;
 import org.phoenicis.repository.types.LocalRepository;
 import org.phoenicis.tools.files.FileUtilities;
 
@@ -37,7 +40,9 @@ public class ClasspathRepositoryLocation extends RepositoryLocation<ClasspathRep
 
     @Override
     public ClasspathRepository createRepository(String cacheDirectoryPath,
-            LocalRepository.Factory localRepositoryFactory, ClasspathRepository.Factory classPathRepositoryFactory) {
+            LocalRepository.Factory localRepositoryFactory, ClasspathRepository.Factory classPathRepositoryFactory,
+            GitRepository.Factory gitRepositoryFactory, HttpRepository.Factory httpRepositoryFactory,
+            ArchiveRepository.Factory archiveRepositoryFactory) {
         return classPathRepositoryFactory.createInstance(packagePath);
     }
 
@@ -5,8 +5,10 @@ import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
+import org.phoenicis.repository.types.ArchiveRepository;
 import org.phoenicis.repository.types.ClasspathRepository;
 import org.phoenicis.repository.types.GitRepository;
+import org.phoenicis.repository.types.HttpRepository;
 import org.phoenicis.repository.types.LocalRepository;
 import org.phoenicis.tools.files.FileUtilities;
 
@@ -44,8 +46,9 @@ public class GitRepositoryLocation extends RepositoryLocation<GitRepository> {
 
     @Override
     public GitRepository createRepository(String cacheDirectoryPath, LocalRepository.Factory localRepositoryFactory,
-            ClasspathRepository.Factory classPathRepositoryFactory) {
-        return new GitRepository(gitRepositoryUri, branch, cacheDirectoryPath, localRepositoryFactory);
+            ClasspathRepository.Factory classPathRepositoryFactory, GitRepository.Factory gitRepositoryFactory,
+            HttpRepository.Factory httpRepositoryFactory, ArchiveRepository.Factory archiveRepositoryFactory) {
+        return gitRepositoryFactory.createInstance(gitRepositoryUri, branch, cacheDirectoryPath);
     }
 
     public URI getGitRepositoryUri() {
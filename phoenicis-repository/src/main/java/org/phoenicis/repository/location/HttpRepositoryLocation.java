@@ -0,0 +1,119 @@
+package org.phoenicis.repository.location;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.phoenicis.repository.types.ArchiveRepository;
+import org.phoenicis.repository.types.ClasspathRepository;
+import org.phoenicis.repository.types.GitRepository;
+import org.phoenicis.repository.types.HttpRepository;
+import org.phoenicis.repository.types.LocalRepository;
+
+import java.net.URI;
+
+/**
+ * Location information for a repository consisting of a single repository index, which is downloaded via HTTP(S)
+ */
+@JsonDeserialize(builder = HttpRepositoryLocation.Builder.class)
+public class HttpRepositoryLocation extends RepositoryLocation<HttpRepository> {
+    /**
+     * The uri of the repository index
+     */
+    private final URI repositoryUri;
+
+    /**
+     * Constructor
+     *
+     * @param builder The builder object, containing the values for this {@link HttpRepositoryLocation}
+     */
+    public HttpRepositoryLocation(Builder builder) {
+        super("http");
+
+        if (!isHttpUri(builder.repositoryUri)) {
+            throw new IllegalArgumentException(
+                    String.format("The repository index '%s' is no http or https URI", builder.repositoryUri));
+        }
+
+        this.repositoryUri = builder.repositoryUri;
+    }
+
+    /**
+     * Checks whether the given uri can be used as the location of a repository index, i.e. whether it is an http or
+     * https uri
+     *
+     * @param uri The uri
+     * @return True if the uri is an http or https uri, false otherwise
+     */
+    public static boolean isHttpUri(URI uri) {
+        return uri != null && ("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme()));
+    }
+
+    @Override
+    public HttpRepository createRepository(String cacheDirectoryPath, LocalRepository.Factory localRepositoryFactory,
+            ClasspathRepository.Factory classPathRepositoryFactory, GitRepository.Factory gitRepositoryFactory,
+            HttpRepository.Factory httpRepositoryFactory, ArchiveRepository.Factory archiveRepositoryFactory) {
+        return httpRepositoryFactory.createInstance(repositoryUri, cacheDirectoryPath);
+    }
+
+    public URI getRepositoryUri() {
+        return repositoryUri;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        HttpRepositoryLocation that = (HttpRepositoryLocation) o;
+
+        return new EqualsBuilder()
+                .append(repositoryUri, that.repositoryUri)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(repositoryUri)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this).append(repositoryUri).toString();
+    }
+
+    @Override
+    public String toDisplayString() {
+        return repositoryUri.toString();
+    }
+
+    @JsonPOJOBuilder(buildMethodName = "build", withPrefix = "with")
+    public static class Builder {
+        private URI repositoryUri;
+
+        public Builder() {
+            // Default constructor
+        }
+
+        public Builder(HttpRepositoryLocation location) {
+            this.withRepositoryUri(location.getRepositoryUri());
+        }
+
+        public Builder withRepositoryUri(URI repositoryUri) {
+            this.repositoryUri = repositoryUri;
+            return this;
+        }
+
+        public HttpRepositoryLocation build() {
+            return new HttpRepositoryLocation(this);
+        }
+    }
+}
@@ -6,7 +6,10 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
+import org.phoenicis.repository.types.ArchiveRepository;
 import org.phoenicis.repository.types.ClasspathRepository;
+import org.phoenicis.repository.types.GitRepository;
+import org.phoenicis.repository.types.HttpRepository;
 import org.phoenicis.repository.types.LocalRepository;
 import org.phoenicis.tools.files.FileUtilities;
 
@@ -39,7 +42,8 @@ public class LocalRepositoryLocation extends RepositoryLocation<LocalRepository>
 
     @Override
     public LocalRepository createRepository(String cacheDirectoryPath, LocalRepository.Factory localRepositoryFactory,
-            ClasspathRepository.Factory classPathRepositoryFactory) {
+            ClasspathRepository.Factory classPathRepositoryFactory, GitRepository.Factory gitRepositoryFactory,
+            HttpRepository.Factory httpRepositoryFactory, ArchiveRepository.Factory archiveRepositoryFactory) {
         return localRepositoryFactory.createInstance(repositoryLocation);
     }
 
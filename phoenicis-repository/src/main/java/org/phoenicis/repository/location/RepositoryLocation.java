@@ -2,7 +2,10 @@ package org.phoenicis.repository.location;
 
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import org.phoenicis.repository.types.ArchiveRepository;
 import org.phoenicis.repository.types.ClasspathRepository;
+import org.phoenicis.repository.types.GitRepository;
+import org.phoenicis.repository.types.HttpRepository;
 import org.phoenicis.repository.types.LocalRepository;
 import org.phoenicis.repository.types.Repository;
 
@@ -15,7 +18,9 @@ import org.phoenicis.repository.types.Repository;
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.PROPERTY, property = "type")
 @JsonSubTypes({ @JsonSubTypes.Type(value = LocalRepositoryLocation.class, name = "local"),
         @JsonSubTypes.Type(value = ClasspathRepositoryLocation.class, name = "classpath"),
-        @JsonSubTypes.Type(value = GitRepositoryLocation.class, name = "git") })
+        @JsonSubTypes.Type(value = GitRepositoryLocation.class, name = "git"),
+        @JsonSubTypes.Type(value = HttpRepositoryLocation.class, name = "http"),
+        @JsonSubTypes.Type(value = ArchiveRepositoryLocation.class, name = "archive") })
 public abstract class RepositoryLocation<E extends Repository> {
     /**
      * The repository location type. Currently the following are available:
@@ -23,6 +28,8 @@ public abstract class RepositoryLocation<E extends Repository> {
      * <li>local</li>
      * <li>classpath</li>
      * <li>git</li>
+     * <li>http</li>
+     * <li>archive</li>
      * </ul>
      */
     private final String type;
@@ -42,10 +49,14 @@ public abstract class RepositoryLocation<E extends Repository> {
      * @param cacheDirectoryPath The directory where remote repositories are locally cached
      * @param localRepositoryFactory Factory for {@link LocalRepository} instances
      * @param classPathRepositoryFactory Factory for {@link ClasspathRepository} instances
+     * @param gitRepositoryFactory Factory for {@link GitRepository} instances
+     * @param httpRepositoryFactory Factory for {@link HttpRepository} instances
+     * @param archiveRepositoryFactory Factory for {@link ArchiveRepository} instances
      * @return The newly created repository
      */
     public abstract E createRepository(String cacheDirectoryPath, LocalRepository.Factory localRepositoryFactory,
-            ClasspathRepository.Factory classPathRepositoryFactory);
+            ClasspathRepository.Factory classPathRepositoryFactory, GitRepository.Factory gitRepositoryFactory,
+            HttpRepository.Factory httpRepositoryFactory, ArchiveRepository.Factory archiveRepositoryFactory);
 
     /**
      * Returns a String to be displayed to the user, containing all available information about the location of the
@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.types;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.phoenicis.repository.RepositoryException;
+import org.phoenicis.repository.cache.RepositorySnapshotCache;
+import org.phoenicis.repository.dto.ContentLoader;
+import org.phoenicis.repository.dto.RepositoryDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Locale;
+import java.util.zip.ZipFile;
+
+/**
+ * A repository contained inside a single zip archive, e.g. an immutable snapshot of a script repository.
+ * The archive is never extracted, the repository content is read directly from the archive and all scripts, icons and
+ * miniatures are loaded from the archive when they are needed, see {@link ArchiveRepositoryReader}.
+ * <p>
+ * The archive is expected to be replaced by a new file instead of being modified in place. When the archive has been
+ * replaced, the cached content of the previous archive is dropped.
+ */
+public class ArchiveRepository implements Repository {
+    private final static Logger LOGGER = LoggerFactory.getLogger(ArchiveRepository.class);
+
+    private final File archiveFile;
+
+    private final ObjectMapper objectMapper;
+    private final RepositorySnapshotCache snapshotCache;
+
+    // the last read content of the archive, it is returned as long as the archive doesn't change
+    private volatile ReadArchive lastReadArchive;
+
+    public ArchiveRepository(File archiveFile, ObjectMapper objectMapper, RepositorySnapshotCache snapshotCache) {
+        super();
+
+        this.archiveFile = archiveFile;
+        this.objectMapper = objectMapper;
+        this.snapshotCache = snapshotCache;
+    }
+
+    @Override
+    public RepositoryDTO fetchInstallableApplications() {
+        if (!archiveFile.isFile()) {
+            throw new RepositoryException(String.format("Repository archive %s does not exist.", archiveFile));
+        }
+
+        final String fingerprint = createFingerprint();
+
+        final ReadArchive readArchive = this.lastReadArchive;
+        if (readArchive != null && readArchive.fingerprint.equals(fingerprint)) {
+            return readArchive.repository;
+        }
+
+        // the archive has been replaced, but the locations of its content stay the same
+        if (readArchive != null) {
+            ContentLoader.invalidate(readArchive.repository);
+            closeCachedArchive();
+        }
+
+        final RepositoryDTO repositoryDTO = snapshotCache.fetch(getSnapshotKey(), fingerprint, this::readRepository);
+
+        this.lastReadArchive = new ReadArchive(fingerprint, repositoryDTO);
+
+        return repositoryDTO;
+    }
+
+    private RepositoryDTO readRepository() {
+        try (ZipFile archive = new ZipFile(archiveFile)) {
+            return new ArchiveRepositoryReader(archive, archiveFile, objectMapper)
+                    .read(FilenameUtils.getBaseName(archiveFile.getName()));
+        } catch (IOException e) {
+            throw new RepositoryException(String.format("Could not open repository archive %s", archiveFile), e);
+        }
+    }
+
+    /**
+     * Removes the archive from the cache of opened archives of the JDK, which is used when an icon or a miniature is
+     * loaded from a <code>jar:</code> URL, e.g. by JavaFX. Otherwise the replaced archive would still be read
+     */
+    private void closeCachedArchive() {
+        try {
+            final URLConnection connection = new URL("jar:" + archiveFile.toURI() + "!/").openConnection();
+
+            if (connection instanceof JarURLConnection) {
+                // closing a cached archive removes it from the cache
+                ((JarURLConnection) connection).getJarFile().close();
+            }
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Could not close the cached repository archive %s", archiveFile), e);
+        }
+    }
+
+    /**
+     * Creates a fingerprint of the archive consisting of its size and modification time together with the language
+     * used for the translations
+     *
+     * @return The fingerprint
+     */
+    private String createFingerprint() {
+        return archiveFile.length() + ":" + archiveFile.lastModified() + ":" + Locale.getDefault().getLanguage();
+    }
+
+    private String getSnapshotKey() {
+        return archiveFile.getAbsoluteFile().toURI().toString();
+    }
+
+    @Override
+    public void onDelete() {
+        this.lastReadArchive = null;
+        this.snapshotCache.delete(getSnapshotKey());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ArchiveRepository(archive: '%s')", archiveFile.getAbsolutePath());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ArchiveRepository that = (ArchiveRepository) o;
+
+        return new EqualsBuilder()
+                .append(archiveFile, that.archiveFile)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(archiveFile)
+                .toHashCode();
+    }
+
+    /**
+     * A read archive together with its repository content
+     */
+    private static class ReadArchive {
+        private final String fingerprint;
+        private final RepositoryDTO repository;
+
+        private ReadArchive(String fingerprint, RepositoryDTO repository) {
+            this.fingerprint = fingerprint;
+            this.repository = repository;
+        }
+    }
+
+    public static class Factory {
+        private final ObjectMapper objectMapper;
+        private final RepositorySnapshotCache snapshotCache;
+
+        /**
+         * Constructor
+         *
+         * @param objectMapper The object mapper used to parse the JSON files inside an archive
+         * @param snapshotCache The cache containing the snapshots of already read archives
+         */
+        public Factory(ObjectMapper objectMapper, RepositorySnapshotCache snapshotCache) {
+            this.objectMapper = objectMapper;
+            this.snapshotCache = snapshotCache;
+        }
+
+        public ArchiveRepository createInstance(File archiveFile) {
+            return new ArchiveRepository(archiveFile, objectMapper, snapshotCache);
+        }
+    }
+}
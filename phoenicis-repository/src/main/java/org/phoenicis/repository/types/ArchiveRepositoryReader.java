@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.types;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.phoenicis.repository.RepositoryException;
+import org.phoenicis.repository.dto.RepositoryDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads the content of a repository directly from a zip archive, without extracting it.
+ * The repository layout is the same as the one read by {@link LocalRepository}, optionally wrapped inside a single
+ * top level directory. JSON files are parsed straight from the archive entries, all other files referenced by the
+ * repository DTOs (scripts, icons, miniatures and resources) are referenced via <code>jar:</code> {@link URI}s
+ * pointing into the archive, so that they are only read when they are needed.
+ * <p>
+ * If the archive contains a prebuilt index in the format of the {@link ClasspathRepositoryIndex} next to the
+ * repository content, the index is read instead of the repository tree.
+ */
+class ArchiveRepositoryReader extends RepositoryTreeReader<ZipEntry> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArchiveRepositoryReader.class);
+
+    private final ZipFile archive;
+    private final ObjectMapper objectMapper;
+    // the location of the archive root, all entry locations start with it
+    private final String archiveLocation;
+    private final URI repositorySource;
+
+    /**
+     * Constructor
+     *
+     * @param archive The opened archive
+     * @param archiveFile The archive file
+     * @param objectMapper The object mapper used to parse the JSON files
+     */
+    ArchiveRepositoryReader(ZipFile archive, File archiveFile, ObjectMapper objectMapper) {
+        super(objectMapper, archiveFile.toURI());
+
+        this.archive = archive;
+        this.objectMapper = objectMapper;
+        this.repositorySource = archiveFile.toURI();
+        this.archiveLocation = "jar:" + this.repositorySource + "!/";
+    }
+
+    /**
+     * Reads the repository content of the archive
+     *
+     * @param name The name of the repository
+     * @return The repository content
+     * @throws RepositoryException If the archive can't be read
+     */
+    RepositoryDTO read(String name) {
+        LOGGER.info("Reading archive '{}'", repositorySource);
+
+        try {
+            final TreeNode<ZipEntry> root = findRepositoryRoot(readTree());
+
+            final ZipEntry index = root.getFile(ClasspathRepositoryIndex.INDEX_FILE_NAME);
+            if (index != null) {
+                return readIndex(index);
+            }
+
+            return readRepository(name, root);
+        } catch (IOException e) {
+            throw new RepositoryException(String.format("Could not read archive '%s'", repositorySource), e);
+        }
+    }
+
+    /**
+     * Reads the file tree of the archive from its central directory. The content of the entries isn't read
+     */
+    private TreeNode<ZipEntry> readTree() {
+        final TreeNode<ZipEntry> root = TreeNode.createRoot();
+
+        final Enumeration<? extends ZipEntry> entries = archive.entries();
+        while (entries.hasMoreElements()) {
+            final ZipEntry entry = entries.nextElement();
+            final String[] segments = entry.getName().split("/");
+
+            // ignore hidden files and directories like in a local repository
+            if (Arrays.stream(segments).anyMatch(segment -> segment.startsWith("."))) {
+                continue;
+            }
+
+            if (entry.isDirectory()) {
+                root.addDirectory(segments);
+            } else {
+                root.addFile(segments, entry);
+            }
+        }
+
+        return root;
+    }
+
+    /**
+     * Skips a single top level directory wrapping the repository content, like the one contained in the archives
+     * generated by GitHub
+     */
+    private TreeNode<ZipEntry> findRepositoryRoot(TreeNode<ZipEntry> root) {
+        TreeNode<ZipEntry> node = root;
+
+        while (node.size() == 1 && node.getDirectories().size() == 1) {
+            final TreeNode<ZipEntry> child = node.getDirectories().values().iterator().next();
+
+            if (child.getFile("type.json") != null) {
+                break;
+            }
+
+            node = child;
+        }
+
+        return node;
+    }
+
+    /**
+     * Reads the prebuilt index and resolves all relative locations against the location of the index
+     */
+    private RepositoryDTO readIndex(ZipEntry index) throws IOException {
+        final String indexName = index.getName();
+        final String baseLocation = archiveLocation + encode(indexName.substring(0, indexName.lastIndexOf('/') + 1));
+
+        final RepositoryDTO repositoryDTO;
+        try (InputStream inputStream = archive.getInputStream(index)) {
+            repositoryDTO = objectMapper.readValue(inputStream, RepositoryDTO.class);
+        }
+
+        return ClasspathRepositoryIndex.mapLocations(repositoryDTO,
+                location -> location.isAbsolute() || location.getPath() == null || location.getPath().startsWith("/")
+                        ? location
+                        : URI.create(baseLocation + location));
+    }
+
+    @Override
+    protected InputStream open(ZipEntry entry) throws IOException {
+        return archive.getInputStream(entry);
+    }
+
+    /**
+     * Creates the <code>jar:</code> {@link URI} of the given entry, which can be opened as an {@link java.net.URL}
+     *
+     * @param entry The archive entry
+     * @param fileName The name of the entry
+     * @return The {@link URI} pointing into the archive
+     */
+    @Override
+    protected URI toURI(ZipEntry entry, String fileName) {
+        return URI.create(archiveLocation + encode(entry.getName()));
+    }
+
+    /**
+     * Encodes the given path inside the archive, e.g. the spaces contained in the name of an application
+     */
+    private static String encode(String path) {
+        try {
+            return new URI(null, null, path, null).getRawPath();
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException(String.format("Invalid archive entry '%s'", path), e);
+        }
+    }
+}
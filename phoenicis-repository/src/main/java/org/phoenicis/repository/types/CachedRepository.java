@@ -21,22 +21,204 @@ package org.phoenicis.repository.types;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.phoenicis.repository.dto.RepositoryDTO;
+import org.phoenicis.repository.dto.RepositoryIndex;
 
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A repository caching the fetched {@link RepositoryDTO} of another repository.
+ * The cached repository is held in an immutable {@link Snapshot}, which is swapped atomically. Lookups only read the
+ * current snapshot and therefore never wait for a running refresh, which builds the next snapshot off to the side.
+ * Concurrent fetches of the same generation share a single fetch of the wrapped repository
+ */
 public class CachedRepository implements Repository {
     private final Repository repository;
-    private RepositoryDTO cache;
+    // the last fetched snapshot, null if nothing has been fetched yet
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    // increased by every invalidation, the cached snapshot is outdated if it belongs to an older generation.
+    // An outdated snapshot is still used for lookups until the refresh has finished
+    private final AtomicLong generation = new AtomicLong();
+    // guards the running fetch, lookups never acquire it
+    private final Object fetchLock = new Object();
+    // serializes the fetches of the wrapped repository
+    private final Object runLock = new Object();
+    // the fetch of the wrapped repository, which is currently running, guarded by fetchLock
+    private GenerationFetch runningFetch;
 
     public CachedRepository(Repository repository) {
         this.repository = repository;
     }
 
     @Override
-    public synchronized RepositoryDTO fetchInstallableApplications() {
-        if (cache == null) {
-            cache = repository.fetchInstallableApplications();
+    public RepositoryDTO fetchInstallableApplications() {
+        return fetchSnapshot().getRepository();
+    }
+
+    /**
+     * Fetches the repository asynchronously. An up to date cached repository completes the returned future
+     * immediately and a running fetch of the current generation is joined without blocking the calling thread.
+     * Otherwise the repository is fetched by the calling thread
+     *
+     * @return A future completed with the fetched repository
+     */
+    @Override
+    public CompletableFuture<RepositoryDTO> fetchInstallableApplicationsAsync() {
+        final Snapshot currentSnapshot = snapshot.get();
+        if (isCurrent(currentSnapshot)) {
+            return CompletableFuture.completedFuture(currentSnapshot.getRepository());
+        }
+
+        final Fetch fetch = startFetch();
+        if (fetch.isOwner()) {
+            runFetch(fetch.getFetch());
+        }
+
+        return fetch.getFetch().thenApply(Snapshot::getRepository);
+    }
+
+    /**
+     * Returns the current snapshot, if it is up to date, or fetches the next one otherwise.
+     * Concurrent callers of the same generation share a single fetch: the first caller fetches the wrapped repository,
+     * the following callers wait for its result instead of fetching the repository again. Lookups keep using the
+     * previous snapshot meanwhile
+     *
+     * @return The up to date snapshot
+     */
+    private Snapshot fetchSnapshot() {
+        final Snapshot currentSnapshot = snapshot.get();
+        if (isCurrent(currentSnapshot)) {
+            return currentSnapshot;
+        }
+
+        final Fetch fetch = startFetch();
+        if (fetch.isOwner()) {
+            runFetch(fetch.getFetch());
+        }
+
+        try {
+            return fetch.getFetch().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Joins the fetch of the current generation or starts a new one, if no such fetch is running
+     *
+     * @return The joined or started fetch
+     */
+    private Fetch startFetch() {
+        synchronized (fetchLock) {
+            final long currentGeneration = generation.get();
+            if (runningFetch != null && runningFetch.getGeneration() == currentGeneration) {
+                return new Fetch(runningFetch, false);
+            }
+
+            runningFetch = new GenerationFetch(currentGeneration);
+
+            return new Fetch(runningFetch, true);
+        }
+    }
+
+    /**
+     * Fetches the wrapped repository for the given fetch and publishes the fetched snapshot.
+     * The fetches are serialized, because the wrapped repository may not support concurrent fetches
+     *
+     * @param fetch The fetch
+     */
+    private void runFetch(GenerationFetch fetch) {
+        synchronized (runLock) {
+            try {
+                final Snapshot fetchedSnapshot = new Snapshot(repository.fetchInstallableApplications(),
+                        fetch.getGeneration());
+                snapshot.set(fetchedSnapshot);
+
+                finishFetch(fetch);
+                fetch.complete(fetchedSnapshot);
+            } catch (RuntimeException e) {
+                finishFetch(fetch);
+                fetch.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Removes the given fetch before its waiting callers are completed, so that following requests start a new fetch
+     *
+     * @param fetch The finished fetch
+     */
+    private void finishFetch(GenerationFetch fetch) {
+        synchronized (fetchLock) {
+            if (runningFetch == fetch) {
+                runningFetch = null;
+            }
         }
+    }
+
+    /**
+     * Returns the cached snapshot, even if it is stale. The snapshot is only fetched if nothing has been cached yet
+     *
+     * @return The cached snapshot
+     */
+    private Snapshot getSnapshot() {
+        final Snapshot cachedSnapshot = snapshot.get();
+
+        return cachedSnapshot != null ? cachedSnapshot : fetchSnapshot();
+    }
+
+    private boolean isCurrent(Snapshot snapshot) {
+        return snapshot != null && snapshot.getGeneration() == generation.get();
+    }
+
+    /**
+     * Returns the cached repository, even if it is stale. The repository is only fetched if nothing has been cached
+     * yet. This allows lookups to continue while a refresh is running
+     *
+     * @return The cached repository
+     */
+    @Override
+    public RepositoryDTO getRepository() {
+        return getSnapshot().getRepository();
+    }
+
+    /**
+     * Returns the index of the cached repository, even if it is stale. The index is built together with the snapshot,
+     * so lookups don't need to build or look it up
+     *
+     * @return The index of the cached repository
+     */
+    @Override
+    public RepositoryIndex getIndex() {
+        return getSnapshot().getIndex();
+    }
+
+    /**
+     * Returns the cached repository, if it is up to date
+     *
+     * @return The cached repository or {@link Optional#empty()} if nothing has been cached yet or the cached repository
+     *         is stale
+     */
+    public Optional<RepositoryDTO> getCurrentRepository() {
+        final Snapshot cachedSnapshot = snapshot.get();
 
-        return cache;
+        return isCurrent(cachedSnapshot) ? Optional.of(cachedSnapshot.getRepository()) : Optional.empty();
+    }
+
+    /**
+     * Returns the cached repository without fetching it
+     *
+     * @return The cached repository, which may be stale, or {@link Optional#empty()} if nothing has been cached yet
+     */
+    public Optional<RepositoryDTO> getCachedRepository() {
+        return Optional.ofNullable(snapshot.get()).map(Snapshot::getRepository);
     }
 
     @Override
@@ -49,8 +231,25 @@ public class CachedRepository implements Repository {
         this.repository.onDelete();
     }
 
+    @Override
+    public void requestUpdate() {
+        this.repository.requestUpdate();
+    }
+
+    /**
+     * Clears the cache. The cached repository is kept for lookups until the next fetch has finished, so readers
+     * don't wait for the refetch
+     */
     public void clearCache() {
-        this.cache = null;
+        invalidate();
+    }
+
+    /**
+     * Marks the cached repository as stale. The next call of {@link #fetchInstallableApplications()} fetches the
+     * repository again, until then the stale repository is kept
+     */
+    public void invalidate() {
+        this.generation.incrementAndGet();
     }
 
     @Override
@@ -76,4 +275,69 @@ public class CachedRepository implements Repository {
                 .append(repository)
                 .toHashCode();
     }
+
+    /**
+     * A fetch of the wrapped repository shared by all callers requesting the same generation
+     */
+    private static final class GenerationFetch extends CompletableFuture<Snapshot> {
+        private final long generation;
+
+        GenerationFetch(long generation) {
+            this.generation = generation;
+        }
+
+        long getGeneration() {
+            return generation;
+        }
+    }
+
+    /**
+     * A joined or started fetch
+     */
+    private static final class Fetch {
+        private final GenerationFetch fetch;
+        // true if the caller started the fetch and therefore needs to run it
+        private final boolean owner;
+
+        Fetch(GenerationFetch fetch, boolean owner) {
+            this.fetch = fetch;
+            this.owner = owner;
+        }
+
+        GenerationFetch getFetch() {
+            return fetch;
+        }
+
+        boolean isOwner() {
+            return owner;
+        }
+    }
+
+    /**
+     * An immutable fetched repository together with its index and the generation it has been fetched in
+     */
+    private static final class Snapshot {
+        private final RepositoryDTO repository;
+        private final RepositoryIndex index;
+        private final long generation;
+
+        Snapshot(RepositoryDTO repository, long generation) {
+            this.repository = repository;
+            // the index is built before the snapshot is published
+            this.index = repository != null ? RepositoryIndex.of(repository) : null;
+            this.generation = generation;
+        }
+
+        RepositoryDTO getRepository() {
+            return repository;
+        }
+
+        RepositoryIndex getIndex() {
+            return index;
+        }
+
+        long getGeneration() {
+            return generation;
+        }
+    }
 }
@@ -19,7 +19,7 @@
 package org.phoenicis.repository.types;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.commons.compress.utils.IOUtils;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
@@ -41,6 +41,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 public class ClasspathRepository implements Repository {
@@ -48,18 +49,63 @@ public class ClasspathRepository implements Repository {
     private final String packagePath;
     private final ResourcePatternResolver resourceResolver;
     private final ObjectMapper objectMapper;
+    private final ForkJoinPool forkJoinPool;
 
-    private static final String INVALID_ID_CHARS_REGEX = "[^a-zA-Z0-9_.]";
+    // the JSON readers are created once per DTO type and reused for all resources
+    private final ObjectReader typeReader;
+    private final ObjectReader categoryReader;
+    private final ObjectReader applicationReader;
+    private final ObjectReader scriptReader;
+
+    // the classpath doesn't change at runtime, therefore it only needs to be read once
+    private volatile RepositoryDTO repository;
 
     public ClasspathRepository(String packagePath, ResourcePatternResolver resourceResolver,
             ObjectMapper objectMapper) {
+        this(packagePath, resourceResolver, objectMapper, ForkJoinPool.commonPool());
+    }
+
+    public ClasspathRepository(String packagePath, ResourcePatternResolver resourceResolver,
+            ObjectMapper objectMapper, ForkJoinPool forkJoinPool) {
         this.packagePath = packagePath;
         this.resourceResolver = resourceResolver;
         this.objectMapper = objectMapper;
+        this.forkJoinPool = forkJoinPool;
+        this.typeReader = objectMapper.readerFor(TypeDTO.class);
+        this.categoryReader = objectMapper.readerFor(CategoryDTO.class);
+        this.applicationReader = objectMapper.readerFor(ApplicationDTO.class);
+        this.scriptReader = objectMapper.readerFor(ScriptDTO.class);
     }
 
     @Override
     public RepositoryDTO fetchInstallableApplications() {
+        if (repository == null) {
+            // the classpath is scanned inside the fork join pool to bound the number of parallel readers
+            repository = forkJoinPool.submit(this::readRepository).join();
+        }
+
+        return repository;
+    }
+
+    private RepositoryDTO readRepository() {
+        // prefer the index generated at build time, it contains the complete repository inside a single resource
+        final Resource index = resourceResolver
+                .getResource("classpath:" + packagePath + "/" + ClasspathRepositoryIndex.INDEX_FILE_NAME);
+        if (index.exists()) {
+            LOGGER.info("Reading classpath repository index '{}'", index);
+
+            return ClasspathRepositoryIndex.read(index, objectMapper);
+        }
+
+        return scanRepository();
+    }
+
+    /**
+     * Reads the repository by scanning the resources inside the package path
+     *
+     * @return The repository content
+     */
+    RepositoryDTO scanRepository() {
         try {
             final List<TypeDTO> typeDTOS = new ArrayList<>();
             Resource[] resources = resourceResolver.getResources(packagePath + "/*");
@@ -90,16 +136,12 @@ public class ClasspathRepository implements Repository {
             final String jsonTypePath = packagePath + "/" + typeFileName + "/type.json";
             final URL jsonTypeFile = getClass().getResource(jsonTypePath);
             if (jsonTypeFile != null) {
-                final TypeDTO typeDTO = objectMapper.readValue(jsonTypeFile, TypeDTO.class);
+                final TypeDTO typeDTO = typeReader.readValue(jsonTypeFile);
 
                 TypeDTO.Builder typeDTOBuilder = new TypeDTO.Builder(typeDTO);
 
                 if (StringUtils.isBlank(typeDTO.getId())) {
-                    if (!StringUtils.isBlank(typeDTO.getName())) {
-                        typeDTOBuilder.withId(typeDTO.getName().replaceAll(INVALID_ID_CHARS_REGEX, ""));
-                    } else {
-                        typeDTOBuilder.withId(typeFileName.replaceAll(INVALID_ID_CHARS_REGEX, ""));
-                    }
+                    typeDTOBuilder.withId(RepositoryTreeReader.createId(typeDTO.getName(), typeFileName));
                 }
 
                 typeDTOBuilder.withCategories(buildCategories(typeDTOBuilder.getId(), typeFileName)).build();
@@ -122,17 +164,13 @@ public class ClasspathRepository implements Repository {
         try {
             final String categoryScanClassPath = packagePath + "/" + typeFileName;
             Resource[] resources = resourceResolver.getResources(categoryScanClassPath + "/*");
-            final List<CategoryDTO> categoryDTOS = new ArrayList<>();
 
-            for (Resource resource : resources) {
-                final String fileName = resource.getFilename();
-                if (!"icon.png".equals(fileName) && !"category.json".equals(fileName)) {
-                    final CategoryDTO category = buildCategory(typeId, typeFileName, fileName);
-                    if (!category.getApplications().isEmpty()) {
-                        categoryDTOS.add(category);
-                    }
-                }
-            }
+            final List<CategoryDTO> categoryDTOS = Arrays.stream(resources).parallel()
+                    .map(Resource::getFilename)
+                    .filter(fileName -> !"icon.png".equals(fileName) && !"category.json".equals(fileName))
+                    .map(fileName -> buildCategory(typeId, typeFileName, fileName))
+                    .filter(category -> !category.getApplications().isEmpty())
+                    .collect(Collectors.toList());
 
             categoryDTOS.sort(Comparator.comparing(CategoryDTO::getName));
             return categoryDTOS;
@@ -148,17 +186,13 @@ public class ClasspathRepository implements Repository {
                     + "/category.json";
             final URL jsonCategoryFile = getClass().getResource(jsonCategoryPath);
             if (jsonCategoryFile != null) {
-                final CategoryDTO categoryDTO = objectMapper.readValue(jsonCategoryFile, CategoryDTO.class);
+                final CategoryDTO categoryDTO = categoryReader.readValue(jsonCategoryFile);
 
                 CategoryDTO.Builder categoryDTOBuilder = new CategoryDTO.Builder(categoryDTO)
                         .withTypeId(typeId);
 
                 if (StringUtils.isBlank(categoryDTO.getId())) {
-                    if (!StringUtils.isBlank(categoryDTO.getName())) {
-                        categoryDTOBuilder.withId(categoryDTO.getName().replaceAll(INVALID_ID_CHARS_REGEX, ""));
-                    } else {
-                        categoryDTOBuilder.withId(categoryFileName.replaceAll(INVALID_ID_CHARS_REGEX, ""));
-                    }
+                    categoryDTOBuilder.withId(RepositoryTreeReader.createId(categoryDTO.getName(), categoryFileName));
                 }
 
                 categoryDTOBuilder.withApplications(buildApplications(categoryDTOBuilder.getTypeId(),
@@ -186,18 +220,14 @@ public class ClasspathRepository implements Repository {
         try {
             final String categoryScanClassPath = packagePath + "/" + typeFileName + "/" + categoryFileName;
             Resource[] resources = resourceResolver.getResources(categoryScanClassPath + "/*");
-            final List<ApplicationDTO> applicationDTOS = new ArrayList<>();
 
-            for (Resource resource : resources) {
-                final String fileName = resource.getFilename();
-                if (!"icon.png".equals(fileName) && !"category.json".equals(fileName)) {
-                    final ApplicationDTO application = buildApplication(typeId, categoryId, typeFileName,
-                            categoryFileName, fileName);
-                    if (!application.getScripts().isEmpty()) {
-                        applicationDTOS.add(application);
-                    }
-                }
-            }
+            final List<ApplicationDTO> applicationDTOS = Arrays.stream(resources).parallel()
+                    .map(Resource::getFilename)
+                    .filter(fileName -> !"icon.png".equals(fileName) && !"category.json".equals(fileName))
+                    .map(fileName -> buildApplication(typeId, categoryId, typeFileName, categoryFileName,
+                            fileName))
+                    .filter(application -> !application.getScripts().isEmpty())
+                    .collect(Collectors.toList());
 
             applicationDTOS.sort(Comparator.comparing(ApplicationDTO::getName));
             return applicationDTOS;
@@ -214,20 +244,16 @@ public class ClasspathRepository implements Repository {
                     + applicationFileName;
             File applicationJson = new File(applicationDirectory, "application.json");
 
-            final ApplicationDTO applicationDTO = objectMapper
-                    .readValue(getClass().getResourceAsStream(applicationJson.getAbsolutePath()), ApplicationDTO.class);
+            final ApplicationDTO applicationDTO = applicationReader
+                    .readValue(getClass().getResourceAsStream(applicationJson.getAbsolutePath()));
 
             ApplicationDTO.Builder applicationDTOBuilder = new ApplicationDTO.Builder(applicationDTO)
                     .withTypeId(typeId)
                     .withCategoryId(categoryId);
 
             if (StringUtils.isBlank(applicationDTOBuilder.getId())) {
-                if (!StringUtils.isBlank(applicationDTOBuilder.getName())) {
-                    applicationDTOBuilder
-                            .withId(applicationDTOBuilder.getName().replaceAll(INVALID_ID_CHARS_REGEX, ""));
-                } else {
-                    applicationDTOBuilder.withId(applicationFileName.replaceAll(INVALID_ID_CHARS_REGEX, ""));
-                }
+                applicationDTOBuilder.withId(
+                        RepositoryTreeReader.createId(applicationDTOBuilder.getName(), applicationFileName));
             }
 
             applicationDTOBuilder
@@ -300,7 +326,7 @@ public class ClasspathRepository implements Repository {
                     + applicationFileName + "/"
                     + scriptFileName + "/script.json";
             final InputStream scriptJsonInputStream = getClass().getResourceAsStream(scriptJsonFile);
-            final InputStream scriptFile = getClass().getResourceAsStream(
+            final URL scriptFile = getClass().getResource(
                     packagePath + "/" + typeFileName + "/" + categoryFileName + "/" + applicationFileName + "/"
                             + scriptFileName + "/script.js");
 
@@ -323,20 +349,28 @@ public class ClasspathRepository implements Repository {
                 LOGGER.debug("Could not find script icon.");
             }
 
+            URI scriptLocation = null;
+            if (scriptFile != null) {
+                try {
+                    scriptLocation = scriptFile.toURI();
+                } catch (URISyntaxException e) {
+                    LOGGER.debug("Could not get URI of script.");
+                }
+            } else {
+                LOGGER.debug("Could not find script.");
+            }
+
             ScriptDTO.Builder scriptDTOBuilder = new ScriptDTO.Builder(
-                    objectMapper.readValue(scriptJsonInputStream, ScriptDTO.class))
+                    scriptReader.readValue(scriptJsonInputStream))
                             .withTypeId(typeId)
                             .withCategoryId(categoryId)
                             .withApplicationId(applicationId)
-                            .withScript(new String(IOUtils.toByteArray(scriptFile)))
+                            .withScriptLocation(scriptLocation)
                             .withIcon(icon);
 
             if (StringUtils.isBlank(scriptDTOBuilder.getId())) {
-                if (!StringUtils.isBlank(scriptDTOBuilder.getScriptName())) {
-                    scriptDTOBuilder.withId(scriptDTOBuilder.getScriptName().replaceAll(INVALID_ID_CHARS_REGEX, ""));
-                } else {
-                    scriptDTOBuilder.withId(scriptFileName.replaceAll(INVALID_ID_CHARS_REGEX, ""));
-                }
+                scriptDTOBuilder.withId(
+                        RepositoryTreeReader.createId(scriptDTOBuilder.getScriptName(), scriptFileName));
             }
 
             return scriptDTOBuilder.build();
@@ -376,14 +410,17 @@ public class ClasspathRepository implements Repository {
     public static class Factory {
         private final ObjectMapper objectMapper;
         private final ResourcePatternResolver resourceResolver;
+        private final ForkJoinPool forkJoinPool;
 
-        public Factory(ObjectMapper objectMapper, ResourcePatternResolver resourceResolver) {
+        public Factory(ObjectMapper objectMapper, ResourcePatternResolver resourceResolver,
+                ForkJoinPool forkJoinPool) {
             this.objectMapper = objectMapper;
             this.resourceResolver = resourceResolver;
+            this.forkJoinPool = forkJoinPool;
         }
 
         public ClasspathRepository createInstance(String packagePath) {
-            return new ClasspathRepository(packagePath, resourceResolver, objectMapper);
+            return new ClasspathRepository(packagePath, resourceResolver, objectMapper, forkJoinPool);
         }
     }
 
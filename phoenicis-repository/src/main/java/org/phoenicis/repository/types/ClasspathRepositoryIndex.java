@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.types;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.phoenicis.repository.RepositoryException;
+import org.phoenicis.repository.dto.*;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * A prebuilt index of a classpath repository. The index contains the complete {@link RepositoryDTO} of the
+ * repository inside a single resource next to the repository content, so that a {@link ClasspathRepository} doesn't
+ * need to scan the classpath at runtime.
+ * <p>
+ * All locations inside the index are stored relative to the repository package and are resolved against the location
+ * of the index when it is read. The index is generated during the build of the module containing the repository,
+ * after its resources have been copied, e.g. via the exec-maven-plugin:
+ *
+ * <pre>
+ * &lt;execution&gt;
+ *     &lt;phase&gt;process-classes&lt;/phase&gt;
+ *     &lt;goals&gt;&lt;goal&gt;java&lt;/goal&gt;&lt;/goals&gt;
+ *     &lt;configuration&gt;
+ *         &lt;mainClass&gt;org.phoenicis.repository.types.ClasspathRepositoryIndex&lt;/mainClass&gt;
+ *         &lt;arguments&gt;
+ *             &lt;argument&gt;/org/phoenicis/repository&lt;/argument&gt;
+ *             &lt;argument&gt;${project.build.outputDirectory}&lt;/argument&gt;
+ *         &lt;/arguments&gt;
+ *     &lt;/configuration&gt;
+ * &lt;/execution&gt;
+ * </pre>
+ */
+public final class ClasspathRepositoryIndex {
+    /**
+     * The name of the index resource inside the repository package
+     */
+    static final String INDEX_FILE_NAME = "repository-index.json";
+
+    private ClasspathRepositoryIndex() {
+        // Utility class
+    }
+
+    /**
+     * Generates the index of a classpath repository
+     *
+     * @param args The package path of the repository and the output directory containing the compiled resources
+     * @throws IOException If the index can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: ClasspathRepositoryIndex <package path> <output directory>");
+        }
+
+        write(args[0], new File(args[1]), new ObjectMapper());
+    }
+
+    /**
+     * Scans the classpath repository inside the given package and writes its index into the given output directory
+     *
+     * @param packagePath The package path of the repository, e.g. /org/phoenicis/repository
+     * @param outputDirectory The output directory containing the compiled resources
+     * @param objectMapper The object mapper used to write the index
+     * @throws IOException If the index can't be written
+     */
+    static void write(String packagePath, File outputDirectory, ObjectMapper objectMapper) throws IOException {
+        final URL packageLocation = ClasspathRepositoryIndex.class.getResource(packagePath);
+        if (packageLocation == null) {
+            throw new IOException(String.format("Package '%s' doesn't exist in the classpath", packagePath));
+        }
+
+        final String baseLocation = withTrailingSlash(toURI(packageLocation).toString());
+
+        final RepositoryDTO repositoryDTO = new ClasspathRepository(packagePath,
+                new PathMatchingResourcePatternResolver(), objectMapper).scanRepository();
+
+        final RepositoryDTO relativeRepositoryDTO = mapLocations(repositoryDTO, location -> {
+            final String absoluteLocation = location.toString();
+
+            return absoluteLocation.startsWith(baseLocation)
+                    ? URI.create(absoluteLocation.substring(baseLocation.length()))
+                    : location;
+        });
+
+        final File indexFile = new File(new File(outputDirectory, packagePath), INDEX_FILE_NAME);
+        Files.createDirectories(indexFile.getParentFile().toPath());
+
+        objectMapper.writeValue(indexFile, relativeRepositoryDTO);
+    }
+
+    /**
+     * Reads the given index
+     *
+     * @param index The index resource
+     * @param objectMapper The object mapper used to read the index
+     * @return The repository content with resolved locations
+     * @throws RepositoryException If the index can't be read
+     */
+    static RepositoryDTO read(Resource index, ObjectMapper objectMapper) {
+        try (InputStream inputStream = index.getInputStream()) {
+            final String indexLocation = index.getURI().toString();
+            final String baseLocation = indexLocation.substring(0, indexLocation.lastIndexOf('/') + 1);
+
+            final RepositoryDTO repositoryDTO = objectMapper.readValue(inputStream, RepositoryDTO.class);
+
+            // only relative locations point into the repository package
+            return mapLocations(repositoryDTO, location -> location.isAbsolute() || location.getPath() == null
+                    || location.getPath().startsWith("/") ? location : URI.create(baseLocation + location));
+        } catch (IOException e) {
+            throw new RepositoryException(String.format("Could not read classpath repository index '%s'", index), e);
+        }
+    }
+
+    /**
+     * Applies the given mapping to all locations inside the given repository
+     *
+     * @param repositoryDTO The repository
+     * @param mapping The mapping of the locations
+     * @return A new repository containing the mapped locations
+     */
+    static RepositoryDTO mapLocations(RepositoryDTO repositoryDTO, UnaryOperator<URI> mapping) {
+        final UnaryOperator<URI> nullSafeMapping = location -> location == null ? null : mapping.apply(location);
+
+        return new RepositoryDTO.Builder(repositoryDTO)
+                .withTypes(repositoryDTO.getTypes().stream()
+                        .map(type -> new TypeDTO.Builder(type)
+                                .withIcon(nullSafeMapping.apply(type.getIcon()))
+                                .withCategories(type.getCategories().stream()
+                                        .map(category -> mapLocations(category, nullSafeMapping))
+                                        .collect(Collectors.toList()))
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    private static CategoryDTO mapLocations(CategoryDTO categoryDTO, UnaryOperator<URI> mapping) {
+        return new CategoryDTO.Builder(categoryDTO)
+                .withIcon(mapping.apply(categoryDTO.getIcon()))
+                .withApplications(categoryDTO.getApplications().stream()
+                        .map(application -> new ApplicationDTO.Builder(application)
+                                .withIcon(mapping.apply(application.getIcon()))
+                                .withMiniatures(application.getMiniatures().stream()
+                                        .map(mapping)
+                                        .collect(Collectors.toList()))
+                                .withResources(application.getResources().stream()
+                                        .map(resource -> new ResourceDTO(resource.getName(),
+                                                mapping.apply(resource.getLocation())))
+                                        .collect(Collectors.toList()))
+                                .withScripts(application.getScripts().stream()
+                                        .map(script -> new ScriptDTO.Builder(script)
+                                                .withIcon(mapping.apply(script.getIcon()))
+                                                .withScriptLocation(mapping.apply(script.getScriptLocation()))
+                                                .build())
+                                        .collect(Collectors.toList()))
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    private static URI toURI(URL url) throws IOException {
+        try {
+            return url.toURI();
+        } catch (URISyntaxException e) {
+            throw new IOException(String.format("Invalid location '%s'", url), e);
+        }
+    }
+
+    private static String withTrailingSlash(String location) {
+        return location.endsWith("/") ? location : location + "/";
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.types;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.util.FS;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * Locations of files stored inside the object database of a local git repository.
+ * A location names the git repository folder, the id of the blob and the original file name, e.g.
+ * <code>git-blob:///home/user/.Phoenicis/repositories/git123.git/7a1c...e3/icon.png</code>.
+ * The blob is read directly from the object database when the location is opened, no file is written for it.
+ * Because blobs are immutable, a location stays valid as long as the blob is contained in the git repository, even
+ * after the tracked branch has moved
+ */
+public final class GitBlob {
+    /**
+     * The scheme of git blob locations
+     */
+    public static final String SCHEME = "git-blob";
+
+    private GitBlob() {
+        // Utility class
+    }
+
+    /**
+     * Creates the location of the given blob
+     *
+     * @param repositoryFolder The folder of the git repository
+     * @param blobId The id of the blob
+     * @param fileName The original file name
+     * @return The location of the blob
+     */
+    public static URI toURI(File repositoryFolder, ObjectId blobId, String fileName) {
+        final String path = repositoryFolder.getAbsoluteFile().toURI().getPath();
+
+        try {
+            return new URI(SCHEME, "", (path.endsWith("/") ? path : path + "/") + blobId.getName() + "/" + fileName,
+                    null);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException(String.format("Invalid blob file name '%s'", fileName), e);
+        }
+    }
+
+    /**
+     * Checks whether the given location points to a git blob
+     *
+     * @param location The location
+     * @return True if the location is a git blob location
+     */
+    public static boolean isGitBlob(URI location) {
+        return SCHEME.equals(location.getScheme());
+    }
+
+    /**
+     * Reads the content of the blob at the given location from the object database of its git repository
+     *
+     * @param location The location of the blob
+     * @return The content of the blob
+     * @throws IOException If the git repository or the blob can't be read
+     */
+    public static byte[] read(URI location) throws IOException {
+        final String path = location.getPath();
+        final int blobIdStart = getBlobIdStart(location);
+
+        final File repositoryFolder = new File(path.substring(0, blobIdStart));
+        final ObjectId blobId = ObjectId.fromString(path.substring(blobIdStart + 1, path.lastIndexOf('/')));
+
+        // the opened repositories are kept by jgit, therefore following reads don't open the repository again
+        try (org.eclipse.jgit.lib.Repository gitRepository = RepositoryCache
+                .open(RepositoryCache.FileKey.exact(repositoryFolder, FS.DETECTED), true)) {
+            return gitRepository.open(blobId).getBytes();
+        }
+    }
+
+    /**
+     * Returns the folder of the git repository containing the blob at the given location
+     *
+     * @param location The location of the blob
+     * @return The folder of the git repository
+     * @throws IOException If the location is no valid git blob location
+     */
+    public static File getRepositoryFolder(URI location) throws IOException {
+        return new File(location.getPath().substring(0, getBlobIdStart(location)));
+    }
+
+    private static int getBlobIdStart(URI location) throws IOException {
+        final String path = location.getPath();
+
+        final int fileNameStart = path.lastIndexOf('/');
+        final int blobIdStart = fileNameStart > 0 ? path.lastIndexOf('/', fileNameStart - 1) : -1;
+        if (blobIdStart <= 0) {
+            throw new IOException(String.format("Invalid git blob location '%s'", location));
+        }
+
+        return blobIdStart;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.types;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.net.spi.URLStreamHandlerProvider;
+
+/**
+ * Allows {@link GitBlob} locations to be opened as {@link URL}s, e.g. by JavaFX when it loads an icon or a miniature
+ */
+public class GitBlobURLStreamHandlerProvider extends URLStreamHandlerProvider {
+    @Override
+    public URLStreamHandler createURLStreamHandler(String protocol) {
+        if (!GitBlob.SCHEME.equals(protocol)) {
+            return null;
+        }
+
+        return new URLStreamHandler() {
+            @Override
+            protected URLConnection openConnection(URL url) {
+                return new GitBlobConnection(url);
+            }
+        };
+    }
+
+    private static class GitBlobConnection extends URLConnection {
+        private GitBlobConnection(URL url) {
+            super(url);
+        }
+
+        @Override
+        public void connect() {
+            this.connected = true;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            try {
+                return new ByteArrayInputStream(GitBlob.read(getURL().toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException(String.format("Invalid git blob location '%s'", getURL()), e);
+            }
+        }
+    }
+}
@@ -18,12 +18,20 @@
 
 package org.phoenicis.repository.types;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.TagOpt;
 import org.phoenicis.repository.RepositoryException;
+import org.phoenicis.repository.cache.RepositorySnapshotCache;
 import org.phoenicis.repository.dto.RepositoryDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,41 +41,103 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.channels.FileLock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class GitRepository implements Repository {
     private final static Logger LOGGER = LoggerFactory.getLogger(GitRepository.class);
 
     private final URI repositoryUri;
     private final String branch;
+    // the minimum time between two checks for new commits in the remote repository
+    private final Duration minimumRefreshInterval;
 
-    private final LocalRepository.Factory localRepositoryFactory;
+    private final ObjectMapper objectMapper;
+    private final RepositorySnapshotCache snapshotCache;
 
+    // the bare clone of the repository, the repository content is read directly from its object database
     private final File localFolder;
+    // the checked out working tree created by older versions
+    private final File legacyFolder;
     // lock file to avoid concurrent access to the git clone
     private final File lockFile;
 
-    private static final Object mutex = new Object();
+    /*
+     * The in-process locks per local folder. The file lock only guards a clone against other processes, concurrent
+     * access to the same clone from inside this process is guarded by these locks. Repositories with different local
+     * folders are refreshed in parallel
+     */
+    private static final ConcurrentMap<File, Object> LOCKS = new ConcurrentHashMap<>();
 
-    public GitRepository(URI repositoryUri, String branch, String cacheDirectoryPath,
-            LocalRepository.Factory localRepositoryFactory) {
+    // the time of the last check for new commits in the remote repository, null if no check has been done yet
+    private volatile Instant lastRefresh;
+
+    // true if the next fetch should check for new commits regardless of the minimum refresh interval
+    private volatile boolean updateRequested;
+
+    // the last read commit together with its content, it is returned as long as the branch doesn't move
+    private volatile ReadCommit lastReadCommit;
+
+    public GitRepository(URI repositoryUri, String branch, String cacheDirectoryPath, ObjectMapper objectMapper,
+            RepositorySnapshotCache snapshotCache) {
+        this(repositoryUri, branch, cacheDirectoryPath, objectMapper, snapshotCache, Duration.ZERO);
+    }
+
+    public GitRepository(URI repositoryUri, String branch, String cacheDirectoryPath, ObjectMapper objectMapper,
+            RepositorySnapshotCache snapshotCache, Duration minimumRefreshInterval) {
         super();
 
         this.repositoryUri = repositoryUri;
         this.branch = branch == null ? "master" : branch;
-        this.localRepositoryFactory = localRepositoryFactory;
-
-        this.localFolder = createRepositoryLocation(cacheDirectoryPath);
-        this.lockFile = new File(this.localFolder.getAbsolutePath() + ".lock");
+        this.objectMapper = objectMapper;
+        this.snapshotCache = snapshotCache;
+        this.minimumRefreshInterval = minimumRefreshInterval;
+
+        final String repositoryName = createRepositoryName();
+        this.localFolder = new File(cacheDirectoryPath, repositoryName + ".git");
+        this.legacyFolder = new File(cacheDirectoryPath, repositoryName);
+        this.lockFile = new File(cacheDirectoryPath, repositoryName + ".lock");
     }
 
-    private File createRepositoryLocation(String cacheDirectoryPath) {
+    private String createRepositoryName() {
         int hashcode = new HashCodeBuilder().append(this.repositoryUri).append(this.branch).toHashCode();
 
-        return new File(cacheDirectoryPath + "/git" + hashcode);
+        return "git" + hashcode;
+    }
+
+    /**
+     * Removes the checked out working tree created by older versions, which is replaced by the bare clone.
+     * This method must only be called while holding the lock of the local folder
+     */
+    private void removeLegacyCheckout() {
+        if (legacyFolder.isDirectory()) {
+            try {
+                FileUtils.deleteDirectory(legacyFolder);
+
+                LOGGER.info("Deleted legacy checkout '{}' of git-repository '{}'", legacyFolder.getAbsolutePath(),
+                        this.repositoryUri);
+            } catch (IOException e) {
+                LOGGER.warn(String.format("Couldn't delete legacy checkout '%s'", legacyFolder.getAbsolutePath()),
+                        e);
+            }
+        }
+    }
+
+    /**
+     * Fetches the in-process lock guarding the local folder of this repository
+     *
+     * @return The lock
+     */
+    private Object getLock() {
+        return LOCKS.computeIfAbsent(this.localFolder.getAbsoluteFile(), folder -> new Object());
     }
 
     private void cloneOrUpdateWithLock() throws RepositoryException {
-        synchronized (mutex) {
+        synchronized (getLock()) {
             try {
                 LOGGER.info("Begin fetching process of '{}' to '{}'",
                         this.repositoryUri, this.localFolder.getAbsolutePath());
@@ -103,6 +173,10 @@ public class GitRepository implements Repository {
     private void cloneOrUpdate() throws RepositoryException {
         final boolean folderExists = this.localFolder.exists();
 
+        if (!folderExists) {
+            removeLegacyCheckout();
+        }
+
         // check that the repository folder exists
         if (!folderExists) {
             LOGGER.info("Creating local folder '{}' for git-repository '{}'",
@@ -120,43 +194,115 @@ public class GitRepository implements Repository {
             LOGGER.info("Cloning git-repository '{}' to '{}'",
                     this.repositoryUri, this.localFolder.getAbsolutePath());
 
+            // only the tracked branch is cloned, without any tags and without a working tree
             try (final Git gitRepository = Git.cloneRepository()
                     .setURI(this.repositoryUri.toString())
                     .setDirectory(this.localFolder)
+                    .setBare(true)
+                    .setCloneAllBranches(false)
+                    .setBranchesToClone(Collections.singletonList(Constants.R_HEADS + this.branch))
+                    .setNoTags()
                     .setBranch(this.branch).call()) {
                 LOGGER.info("Finished cloning git-repository '{}' to '{}'", this.repositoryUri, this.localFolder);
+
+                this.lastRefresh = Instant.now();
+                this.updateRequested = false;
             } catch (GitAPIException e) {
                 final String message = String.format("Folder '%s' is no git-repository",
                         this.localFolder.getAbsolutePath());
 
                 throw new RepositoryException(message, e);
             }
-        } else {
+        } else if (isRefreshDue()) {
             LOGGER.info("Opening git-repository at '{}'", this.localFolder.getAbsolutePath());
 
-            // if anything doesn't work here, we still have our local checkout
+            // if anything doesn't work here, we still have our local clone
             // e.g. could be that the git repository cannot be accessed, there is not Internet connection etc.
-            // TODO: it might make sense to ensure that our local checkout is not empty / a valid git repository
+            // TODO: it might make sense to ensure that our local clone is not empty / a valid git repository
             try (final Git gitRepository = Git.open(this.localFolder)) {
-                LOGGER.info("Pulling new commits to '{}'", this.localFolder.getAbsolutePath());
-
-                gitRepository.pull().call();
-
-                LOGGER.info("Finished pulling new commits to '{}'", this.localFolder.getAbsolutePath());
+                // only fetch if the tracked branch has moved, checking the remote refs is much cheaper than a fetch
+                if (isRemoteBranchChanged(gitRepository)) {
+                    LOGGER.info("Fetching new commits to '{}'", this.localFolder.getAbsolutePath());
+
+                    final String branchRef = Constants.R_HEADS + this.branch;
+                    gitRepository.fetch()
+                            .setRemote(this.repositoryUri.toString())
+                            .setRefSpecs(new RefSpec("+" + branchRef + ":" + branchRef))
+                            .setTagOpt(TagOpt.NO_TAGS)
+                            .call();
+
+                    LOGGER.info("Finished fetching new commits to '{}'", this.localFolder.getAbsolutePath());
+                } else {
+                    LOGGER.info("Git-repository '{}' is up to date", this.repositoryUri);
+                }
             } catch (IOException | GitAPIException e) {
-                LOGGER.warn("Could not update {0}. Local checkout will be used.", e);
+                LOGGER.warn("Could not update {0}. Local clone will be used.", e);
+            } finally {
+                // don't retry immediately if the remote repository can't be reached
+                this.lastRefresh = Instant.now();
             }
+        } else {
+            LOGGER.info("Skipping update of git-repository '{}', it has been checked for new commits at {}",
+                    this.repositoryUri, this.lastRefresh);
         }
     }
 
+    /**
+     * Checks whether an update has been requested or the minimum refresh interval has passed since the last check
+     * for new commits
+     *
+     * @return True if the remote repository should be checked for new commits
+     */
+    private boolean isRefreshDue() {
+        if (this.updateRequested) {
+            this.updateRequested = false;
+
+            return true;
+        }
+
+        final Instant lastRefresh = this.lastRefresh;
+
+        return lastRefresh == null || !Instant.now().isBefore(lastRefresh.plus(this.minimumRefreshInterval));
+    }
+
+    /**
+     * Requests a check for new commits with the next fetch, the minimum refresh interval only throttles automatic
+     * refreshes
+     */
+    @Override
+    public void requestUpdate() {
+        this.updateRequested = true;
+    }
+
+    /**
+     * Compares the head of the tracked branch in the remote repository with the one in the local clone
+     *
+     * @param gitRepository The local git repository
+     * @return True if the remote branch points to another commit than the local branch
+     * @throws IOException If the local commit can't be determined
+     * @throws GitAPIException If the remote refs can't be fetched
+     */
+    private boolean isRemoteBranchChanged(Git gitRepository) throws IOException, GitAPIException {
+        final Ref remoteBranch = gitRepository.lsRemote()
+                .setRemote(this.repositoryUri.toString())
+                .setHeads(true)
+                .callAsMap()
+                .get(Constants.R_HEADS + this.branch);
+
+        final ObjectId head = gitRepository.getRepository().resolve(Constants.R_HEADS + this.branch);
+
+        return remoteBranch == null || head == null || !head.equals(remoteBranch.getObjectId());
+    }
+
     @Override
     public RepositoryDTO fetchInstallableApplications() {
         try {
-            cloneOrUpdateWithLock();
+            final RepositoryDTO result;
+            synchronized (getLock()) {
+                cloneOrUpdateWithLock();
 
-            final RepositoryDTO result = this.localRepositoryFactory
-                    .createInstance(this.localFolder, this.repositoryUri)
-                    .fetchInstallableApplications();
+                result = readRepository();
+            }
 
             return result;
         } catch (RepositoryException e) {
@@ -167,8 +313,55 @@ public class GitRepository implements Repository {
         }
     }
 
+    /**
+     * Reads the repository content of the tracked branch from the local clone.
+     * The content of a commit is read only once, afterwards it is taken from memory or from the snapshot cache
+     *
+     * @return The repository content
+     */
+    private RepositoryDTO readRepository() {
+        try (final Git gitRepository = Git.open(this.localFolder)) {
+            final ObjectId commitId = gitRepository.getRepository().resolve(Constants.R_HEADS + this.branch);
+
+            if (commitId == null) {
+                throw new RepositoryException(
+                        String.format("Branch '%s' doesn't exist in git-repository '%s'", this.branch,
+                                this.repositoryUri));
+            }
+
+            final String fingerprint = commitId.getName() + ":" + Locale.getDefault().getLanguage();
+
+            final ReadCommit readCommit = this.lastReadCommit;
+            if (readCommit != null && readCommit.fingerprint.equals(fingerprint)) {
+                return readCommit.repository;
+            }
+
+            final GitRepositoryReader reader = new GitRepositoryReader(gitRepository.getRepository(),
+                    this.objectMapper, this.repositoryUri);
+            final String repositoryName = FilenameUtils.removeExtension(this.localFolder.getName());
+
+            // the snapshot references blobs inside the local clone, fetches never prune them
+            final RepositoryDTO repositoryDTO = this.snapshotCache.fetch(getSnapshotKey(), fingerprint,
+                    () -> reader.read(repositoryName, commitId));
+
+            this.lastReadCommit = new ReadCommit(fingerprint, repositoryDTO);
+
+            return repositoryDTO;
+        } catch (IOException e) {
+            throw new RepositoryException(
+                    String.format("Could not read git-repository at '%s'", this.localFolder.getAbsolutePath()), e);
+        }
+    }
+
+    private String getSnapshotKey() {
+        return this.repositoryUri + "@" + this.branch;
+    }
+
     @Override
     public void onDelete() {
+        this.lastReadCommit = null;
+        this.snapshotCache.delete(getSnapshotKey());
+
         try {
             FileUtils.deleteDirectory(this.localFolder);
 
@@ -215,4 +408,43 @@ public class GitRepository implements Repository {
                 .append(this.branch)
                 .toHashCode();
     }
+
+    /**
+     * A read commit together with its repository content
+     */
+    private static class ReadCommit {
+        // the id of the commit together with the language used for the translations
+        private final String fingerprint;
+        private final RepositoryDTO repository;
+
+        private ReadCommit(String fingerprint, RepositoryDTO repository) {
+            this.fingerprint = fingerprint;
+            this.repository = repository;
+        }
+    }
+
+    public static class Factory {
+        private final ObjectMapper objectMapper;
+        private final RepositorySnapshotCache snapshotCache;
+        private final Duration minimumRefreshInterval;
+
+        /**
+         * Constructor
+         *
+         * @param objectMapper The object mapper used to parse the JSON files inside a repository
+         * @param snapshotCache The cache containing the snapshots of already read commits
+         * @param minimumRefreshInterval The minimum time between two checks for new commits in a remote repository
+         */
+        public Factory(ObjectMapper objectMapper, RepositorySnapshotCache snapshotCache,
+                Duration minimumRefreshInterval) {
+            this.objectMapper = objectMapper;
+            this.snapshotCache = snapshotCache;
+            this.minimumRefreshInterval = minimumRefreshInterval;
+        }
+
+        public GitRepository createInstance(URI repositoryUri, String branch, String cacheDirectoryPath) {
+            return new GitRepository(repositoryUri, branch, cacheDirectoryPath, objectMapper, snapshotCache,
+                    minimumRefreshInterval);
+        }
+    }
 }
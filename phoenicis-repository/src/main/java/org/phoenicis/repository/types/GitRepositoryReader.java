@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.types;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.phoenicis.repository.RepositoryException;
+import org.phoenicis.repository.dto.RepositoryDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Arrays;
+
+/**
+ * Reads the content of a git repository directly from its object database, without a checked out working tree.
+ * JSON files are parsed straight from their blobs, all other files referenced by the repository DTOs (scripts, icons,
+ * miniatures and resources) are referenced via {@link GitBlob} locations, so that they are only read from the object
+ * database when they are needed.
+ */
+class GitRepositoryReader extends RepositoryTreeReader<ObjectId> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GitRepositoryReader.class);
+
+    private final org.eclipse.jgit.lib.Repository gitRepository;
+    private final URI repositorySource;
+
+    /**
+     * Constructor
+     *
+     * @param gitRepository The git repository to read
+     * @param objectMapper The object mapper used to parse the JSON files
+     * @param repositorySource The source of the repository, stored inside the script DTOs
+     */
+    GitRepositoryReader(org.eclipse.jgit.lib.Repository gitRepository, ObjectMapper objectMapper,
+            URI repositorySource) {
+        super(objectMapper, repositorySource);
+
+        this.gitRepository = gitRepository;
+        this.repositorySource = repositorySource;
+    }
+
+    /**
+     * Reads the repository content of the given commit
+     *
+     * @param name The name of the repository
+     * @param commitId The commit to read
+     * @return The repository content
+     * @throws RepositoryException If the commit can't be read
+     */
+    RepositoryDTO read(String name, ObjectId commitId) {
+        LOGGER.info("Reading commit {} of git-repository '{}'", commitId.getName(), repositorySource);
+
+        try {
+            return readRepository(name, readTree(commitId));
+        } catch (IOException e) {
+            throw new RepositoryException(
+                    String.format("Could not read commit %s of git-repository '%s'", commitId.getName(),
+                            repositorySource),
+                    e);
+        }
+    }
+
+    /**
+     * Reads the complete file tree of the given commit into memory. Only the object ids of the files are read
+     */
+    private TreeNode<ObjectId> readTree(ObjectId commitId) throws IOException {
+        final TreeNode<ObjectId> root = TreeNode.createRoot();
+
+        try (RevWalk revWalk = new RevWalk(gitRepository); TreeWalk treeWalk = new TreeWalk(gitRepository)) {
+            final RevCommit commit = revWalk.parseCommit(commitId);
+
+            treeWalk.addTree(commit.getTree());
+            treeWalk.setRecursive(true);
+
+            while (treeWalk.next()) {
+                final String[] segments = treeWalk.getPathString().split("/");
+
+                // ignore hidden files and directories like in a local repository
+                if (Arrays.stream(segments).noneMatch(segment -> segment.startsWith("."))) {
+                    root.addFile(segments, treeWalk.getObjectId(0));
+                }
+            }
+        }
+
+        return root;
+    }
+
+    @Override
+    protected InputStream open(ObjectId blobId) throws IOException {
+        return gitRepository.open(blobId).openStream();
+    }
+
+    /**
+     * Creates the location of the given blob, which is read from the object database when it is opened
+     *
+     * @param blobId The blob
+     * @param fileName The original file name
+     * @return The {@link GitBlob} location of the blob
+     */
+    @Override
+    protected URI toURI(ObjectId blobId, String fileName) {
+        return GitBlob.toURI(gitRepository.getDirectory(), blobId, fileName);
+    }
+}
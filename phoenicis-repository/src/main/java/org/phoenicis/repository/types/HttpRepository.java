@@ -0,0 +1,361 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.types;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.phoenicis.repository.RepositoryException;
+import org.phoenicis.repository.cache.RepositorySnapshotCache;
+import org.phoenicis.repository.dto.ContentLoader;
+import org.phoenicis.repository.dto.RepositoryDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A repository consisting of a single prebuilt repository index, which is downloaded via HTTP(S).
+ * The index uses the same format as the index of a {@link ClasspathRepository}, i.e. it contains the complete
+ * {@link RepositoryDTO} as JSON. Relative locations inside the index are resolved against the location of the index.
+ * <p>
+ * The last successfully downloaded index is kept in the {@link RepositorySnapshotCache} together with the validators
+ * returned by the server. Later downloads are conditional requests using these validators, so that an unchanged index
+ * is only transferred once. If the server can't be reached, the last downloaded index is used.
+ */
+public class HttpRepository implements Repository {
+    private final static Logger LOGGER = LoggerFactory.getLogger(HttpRepository.class);
+
+    private final URI repositoryUri;
+    private final Duration timeout;
+
+    private final ObjectMapper objectMapper;
+    private final RepositorySnapshotCache snapshotCache;
+
+    // the validators of the last downloaded index
+    private final File validatorsFile;
+
+    // the last downloaded index, it is returned as long as the server reports it as unchanged
+    private volatile DownloadedIndex lastDownloadedIndex;
+
+    public HttpRepository(URI repositoryUri, String cacheDirectoryPath, ObjectMapper objectMapper,
+            RepositorySnapshotCache snapshotCache, Duration timeout) {
+        super();
+
+        this.repositoryUri = repositoryUri;
+        this.objectMapper = objectMapper;
+        this.snapshotCache = snapshotCache;
+        this.timeout = timeout;
+
+        final int hashcode = new HashCodeBuilder().append(this.repositoryUri).toHashCode();
+        this.validatorsFile = new File(cacheDirectoryPath, "http" + hashcode + ".properties");
+    }
+
+    @Override
+    public synchronized RepositoryDTO fetchInstallableApplications() {
+        final DownloadedIndex cachedIndex = loadCachedIndex();
+
+        DownloadedIndex currentIndex;
+        try {
+            currentIndex = download(cachedIndex);
+        } catch (IOException | RepositoryException e) {
+            if (cachedIndex == null) {
+                throw new RepositoryException(String.format(
+                        "Could not fetch installable applications for http-repository %s", this.toString()), e);
+            }
+
+            LOGGER.warn(String.format("Could not update http-repository '%s'. The cached index will be used.",
+                    this.repositoryUri), e);
+
+            currentIndex = cachedIndex;
+        }
+
+        this.lastDownloadedIndex = currentIndex;
+
+        return currentIndex.repository;
+    }
+
+    /**
+     * Fetches the last downloaded index, either from memory or from the cache directory
+     *
+     * @return The last downloaded index or null if no index has been downloaded yet
+     */
+    private DownloadedIndex loadCachedIndex() {
+        final DownloadedIndex downloadedIndex = this.lastDownloadedIndex;
+        if (downloadedIndex != null) {
+            return downloadedIndex;
+        }
+
+        if (!this.validatorsFile.isFile()) {
+            return null;
+        }
+
+        final Properties validators = new Properties();
+        try (InputStream inputStream = new FileInputStream(this.validatorsFile)) {
+            validators.load(inputStream);
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Could not read validators '%s'", this.validatorsFile.getAbsolutePath()), e);
+
+            return null;
+        }
+
+        final String fingerprint = validators.getProperty("fingerprint");
+        if (fingerprint == null) {
+            return null;
+        }
+
+        // without a matching snapshot a conditional request would return no content
+        return this.snapshotCache.load(getSnapshotKey(), fingerprint)
+                .map(repositoryDTO -> new DownloadedIndex(fingerprint, validators.getProperty("etag"),
+                        validators.getProperty("lastModified"), repositoryDTO))
+                .orElse(null);
+    }
+
+    /**
+     * Downloads the index, if it differs from the given cached index
+     *
+     * @param cachedIndex The last downloaded index or null
+     * @return The current index
+     * @throws IOException If the index can't be downloaded
+     * @throws RepositoryException If the location of the index is no http or https URI
+     */
+    private DownloadedIndex download(DownloadedIndex cachedIndex) throws IOException {
+        final URLConnection urlConnection = this.repositoryUri.toURL().openConnection();
+        if (!(urlConnection instanceof HttpURLConnection)) {
+            throw new RepositoryException(
+                    String.format("The repository index '%s' is no http or https URI", this.repositoryUri));
+        }
+
+        final HttpURLConnection connection = (HttpURLConnection) urlConnection;
+        try {
+            connection.setConnectTimeout((int) this.timeout.toMillis());
+            connection.setReadTimeout((int) this.timeout.toMillis());
+            connection.setRequestProperty("Accept", "application/json");
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+
+            if (cachedIndex != null) {
+                if (cachedIndex.etag != null) {
+                    connection.setRequestProperty("If-None-Match", cachedIndex.etag);
+                }
+                if (cachedIndex.lastModified != null) {
+                    connection.setRequestProperty("If-Modified-Since", cachedIndex.lastModified);
+                }
+            }
+
+            final int responseCode = connection.getResponseCode();
+
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cachedIndex != null) {
+                LOGGER.info("Http-repository '{}' is up to date", this.repositoryUri);
+
+                return cachedIndex;
+            }
+
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException(String.format("Server responded with %d %s", responseCode,
+                        connection.getResponseMessage()));
+            }
+
+            final byte[] content;
+            try (InputStream inputStream = openContent(connection)) {
+                content = IOUtils.toByteArray(inputStream);
+            }
+
+            final String fingerprint = DigestUtils.sha1Hex(content);
+
+            // the server may not support conditional requests, in which case the index is transferred every time
+            if (cachedIndex != null && cachedIndex.fingerprint.equals(fingerprint)) {
+                return cachedIndex;
+            }
+
+            LOGGER.info("Downloaded new index of http-repository '{}'", this.repositoryUri);
+
+            final DownloadedIndex downloadedIndex = new DownloadedIndex(fingerprint,
+                    connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"),
+                    readIndex(content));
+
+            this.snapshotCache.store(getSnapshotKey(), fingerprint, downloadedIndex.repository);
+            storeValidators(downloadedIndex);
+
+            // the scripts and resources of the new index may have changed behind the same locations
+            if (cachedIndex != null) {
+                ContentLoader.invalidate(cachedIndex.repository);
+            }
+
+            return downloadedIndex;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private InputStream openContent(HttpURLConnection connection) throws IOException {
+        final InputStream inputStream = connection.getInputStream();
+
+        return "gzip".equalsIgnoreCase(connection.getContentEncoding()) ? new GZIPInputStream(inputStream)
+                : inputStream;
+    }
+
+    /**
+     * Parses the given index and resolves all relative locations against the location of the index
+     *
+     * @param content The downloaded index
+     * @return The repository content
+     * @throws IOException If the index can't be parsed
+     */
+    private RepositoryDTO readIndex(byte[] content) throws IOException {
+        final RepositoryDTO repositoryDTO = this.objectMapper.readValue(content, RepositoryDTO.class);
+
+        return ClasspathRepositoryIndex.mapLocations(repositoryDTO,
+                location -> location.isAbsolute() ? location : this.repositoryUri.resolve(location));
+    }
+
+    /**
+     * Stores the validators of the given index next to its snapshot.
+     * The validators are written to a temporary file first, to never leave a partially written file behind
+     *
+     * @param downloadedIndex The downloaded index
+     */
+    private void storeValidators(DownloadedIndex downloadedIndex) {
+        final Properties validators = new Properties();
+        validators.setProperty("fingerprint", downloadedIndex.fingerprint);
+        if (downloadedIndex.etag != null) {
+            validators.setProperty("etag", downloadedIndex.etag);
+        }
+        if (downloadedIndex.lastModified != null) {
+            validators.setProperty("lastModified", downloadedIndex.lastModified);
+        }
+
+        try {
+            final File cacheDirectory = this.validatorsFile.getAbsoluteFile().getParentFile();
+            Files.createDirectories(cacheDirectory.toPath());
+
+            final File temporaryFile = File.createTempFile(this.validatorsFile.getName(), ".tmp", cacheDirectory);
+            try {
+                try (OutputStream outputStream = new FileOutputStream(temporaryFile)) {
+                    validators.store(outputStream, this.repositoryUri.toString());
+                }
+
+                Files.move(temporaryFile.toPath(), this.validatorsFile.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile.toPath());
+            }
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Could not write validators '%s'", this.validatorsFile.getAbsolutePath()), e);
+        }
+    }
+
+    private String getSnapshotKey() {
+        return this.repositoryUri.toString();
+    }
+
+    @Override
+    public void onDelete() {
+        this.lastDownloadedIndex = null;
+        this.snapshotCache.delete(getSnapshotKey());
+
+        try {
+            Files.deleteIfExists(this.validatorsFile.toPath());
+        } catch (IOException e) {
+            LOGGER.error(String.format("Couldn't delete validators '%s' for http-repository '%s'",
+                    this.validatorsFile.getAbsolutePath(), this.repositoryUri), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HttpRepository(url: '%s')", this.repositoryUri);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        HttpRepository that = (HttpRepository) o;
+
+        return new EqualsBuilder()
+                .append(this.repositoryUri, that.repositoryUri)
+                .append(this.validatorsFile, that.validatorsFile)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(this.repositoryUri)
+                .append(this.validatorsFile)
+                .toHashCode();
+    }
+
+    /**
+     * A downloaded index together with its validators
+     */
+    private static class DownloadedIndex {
+        // the hash of the downloaded content
+        private final String fingerprint;
+        private final String etag;
+        private final String lastModified;
+        private final RepositoryDTO repository;
+
+        private DownloadedIndex(String fingerprint, String etag, String lastModified, RepositoryDTO repository) {
+            this.fingerprint = fingerprint;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.repository = repository;
+        }
+    }
+
+    public static class Factory {
+        private final ObjectMapper objectMapper;
+        private final RepositorySnapshotCache snapshotCache;
+        private final Duration timeout;
+
+        /**
+         * Constructor
+         *
+         * @param objectMapper The object mapper used to parse the repository index
+         * @param snapshotCache The cache containing the last downloaded index of each repository
+         * @param timeout The connect and read timeout of a download
+         */
+        public Factory(ObjectMapper objectMapper, RepositorySnapshotCache snapshotCache, Duration timeout) {
+            this.objectMapper = objectMapper;
+            this.snapshotCache = snapshotCache;
+            this.timeout = timeout;
+        }
+
+        public HttpRepository createInstance(URI repositoryUri, String cacheDirectoryPath) {
+            return new HttpRepository(repositoryUri, cacheDirectoryPath, objectMapper, snapshotCache, timeout);
+        }
+    }
+}
@@ -19,14 +19,14 @@
 package org.phoenicis.repository.types;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.commons.io.IOUtils;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
-import org.phoenicis.configuration.localisation.Localisation;
-import org.phoenicis.configuration.localisation.PropertiesResourceBundle;
 import org.phoenicis.repository.RepositoryException;
+import org.phoenicis.repository.cache.RepositorySnapshotCache;
 import org.phoenicis.repository.dto.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,7 +35,14 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 public class LocalRepository implements Repository {
@@ -44,20 +51,52 @@ public class LocalRepository implements Repository {
     private static final String ICON_NAME = "icon.png";
 
     private final File repositoryDirectory;
-    private final ObjectMapper objectMapper;
+    // the JSON readers are created once per DTO type and reused for all files
+    private final ObjectReader typeReader;
+    private final ObjectReader categoryReader;
+    private final ObjectReader applicationReader;
+    private final ObjectReader scriptReader;
+    private final RepositorySnapshotCache snapshotCache;
+    private final ForkJoinPool forkJoinPool;
 
     private final URI repositorySource;
 
-    private static final String INVALID_ID_CHARS_REGEX = "[^a-zA-Z0-9_.]";
-
-    private LocalRepository(File repositoryDirectory, URI repositorySource, ObjectMapper objectMapper) {
+    /*
+     * The application directories read during the last scan together with their fingerprints.
+     * Applications and scripts whose fingerprint didn't change since the last scan are reused instead of being read
+     * again
+     */
+    private Map<File, ScannedApplication> previousApplications = new ConcurrentHashMap<>();
+    private Map<File, ScannedApplication> scannedApplications = new ConcurrentHashMap<>();
+
+    /*
+     * The fingerprints of all directories inside the repository directory, which have been created before the
+     * current scan
+     */
+    private Map<File, String> directoryFingerprints = Collections.emptyMap();
+
+    /*
+     * The last fetched repository content together with its fingerprint.
+     * As long as the fingerprint doesn't change, the same RepositoryDTO instance is returned, which allows consumers
+     * to detect unchanged repositories by identity
+     */
+    private volatile FetchedRepository lastFetchedRepository;
+
+    private LocalRepository(File repositoryDirectory, URI repositorySource, ObjectMapper objectMapper,
+            RepositorySnapshotCache snapshotCache, ForkJoinPool forkJoinPool) {
         this.repositoryDirectory = repositoryDirectory;
-        this.objectMapper = objectMapper;
+        this.typeReader = objectMapper.readerFor(TypeDTO.class);
+        this.categoryReader = objectMapper.readerFor(CategoryDTO.class);
+        this.applicationReader = objectMapper.readerFor(ApplicationDTO.class);
+        this.scriptReader = objectMapper.readerFor(ScriptDTO.class);
+        this.snapshotCache = snapshotCache;
+        this.forkJoinPool = forkJoinPool;
         this.repositorySource = repositorySource;
     }
 
-    private LocalRepository(File repositoryDirectory, ObjectMapper objectMapper) {
-        this(repositoryDirectory, repositoryDirectory.toURI(), objectMapper);
+    private LocalRepository(File repositoryDirectory, ObjectMapper objectMapper,
+            RepositorySnapshotCache snapshotCache, ForkJoinPool forkJoinPool) {
+        this(repositoryDirectory, repositoryDirectory.toURI(), objectMapper, snapshotCache, forkJoinPool);
     }
 
     @Override
@@ -68,6 +107,30 @@ public class LocalRepository implements Repository {
                     String.format("Repository %s directory does not exist.", repositoryDirectory));
         }
 
+        // the fingerprints of the repository, its applications and its scripts are created in a single walk
+        final Map<File, String> fingerprints = createFingerprints();
+        final String fingerprint = createFingerprint(fingerprints);
+
+        final FetchedRepository fetchedRepository = lastFetchedRepository;
+        if (fingerprint != null && fetchedRepository != null && fingerprint.equals(fetchedRepository.fingerprint)) {
+            return fetchedRepository.repository;
+        }
+
+        final RepositoryDTO repositoryDTO = snapshotCache.fetch(getSnapshotKey(), fingerprint,
+                () -> readRepository(fingerprints));
+
+        lastFetchedRepository = new FetchedRepository(fingerprint, repositoryDTO);
+
+        return repositoryDTO;
+    }
+
+    @Override
+    public void onDelete() {
+        lastFetchedRepository = null;
+        snapshotCache.delete(getSnapshotKey());
+    }
+
+    private synchronized RepositoryDTO readRepository(Map<File, String> fingerprints) {
         final File[] typeDirectories = repositoryDirectory.listFiles();
 
         if (typeDirectories == null) {
@@ -75,8 +138,17 @@ public class LocalRepository implements Repository {
         }
 
         LOGGER.info("Reading directory : " + repositoryDirectory);
+
+        // only keep the applications which still exist after this scan
+        previousApplications = scannedApplications;
+        scannedApplications = new ConcurrentHashMap<>();
+        directoryFingerprints = fingerprints;
+
+        // the repository tree is walked inside the fork join pool to bound the number of parallel readers
+        final List<TypeDTO> types = forkJoinPool.submit(() -> fetchTypes(typeDirectories)).join();
+
         final RepositoryDTO.Builder repositoryDTOBuilder = new RepositoryDTO.Builder()
-                .withName(repositoryDirectory.getName()).withTypes(fetchTypes(typeDirectories));
+                .withName(repositoryDirectory.getName()).withTypes(types);
 
         final File i18nDirectory = new File(repositoryDirectory, "i18n");
         if (i18nDirectory.exists()) {
@@ -84,22 +156,99 @@ public class LocalRepository implements Repository {
                     .listFiles((dir, name) -> name.endsWith(Locale.getDefault().getLanguage() + ".properties"));
             Properties mergedProperties = new Properties();
             for (File translationFile : translationFiles) {
-                try {
-                    Properties langProperties = new Properties();
-                    langProperties.load(new FileInputStream(translationFile));
-                    mergedProperties.putAll(langProperties);
+                try (FileInputStream inputStream = new FileInputStream(translationFile)) {
+                    mergedProperties.load(inputStream);
                 } catch (IOException e) {
                     LOGGER.error("Could not read translation properties", e);
                 }
             }
             repositoryDTOBuilder.withTranslations(new TranslationDTO.Builder()
                     .withLanguage(Locale.getDefault().getLanguage()).withProperties(mergedProperties).build());
-            Localisation.setAdditionalTranslations(new PropertiesResourceBundle(mergedProperties));
         }
 
         return repositoryDTOBuilder.build();
     }
 
+    private String getSnapshotKey() {
+        return repositorySource + "@" + repositoryDirectory.getAbsolutePath();
+    }
+
+    /**
+     * Creates the fingerprint of the repository content from the fingerprints of its directories
+     *
+     * @param fingerprints The fingerprints of all directories inside the repository directory
+     * @return The fingerprint or null if it couldn't be created
+     */
+    private String createFingerprint(Map<File, String> fingerprints) {
+        final String language = Locale.getDefault().getLanguage();
+        final String directoryFingerprint = fingerprints.get(repositoryDirectory);
+
+        return directoryFingerprint == null ? null : directoryFingerprint + ":" + language;
+    }
+
+    /**
+     * Creates the fingerprints of the repository directory and of all directories inside it in a single walk.
+     * The fingerprint of a directory is a hash over the names, sizes and modification times of its files and the names
+     * and fingerprints of its subdirectories, i.e. it changes whenever anything inside the directory changes.
+     * Reading the file attributes is much cheaper than parsing the repository.
+     *
+     * @return The fingerprints of all directories or an empty map if they couldn't be created
+     */
+    private Map<File, String> createFingerprints() {
+        final Path rootPath = repositoryDirectory.toPath();
+        final Map<File, String> fingerprints = new HashMap<>();
+        // the entries of the directories which are currently walked, the innermost directory is on top
+        final Deque<List<String>> entries = new ArrayDeque<>();
+
+        try {
+            Files.walkFileTree(rootPath, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+                    if (!directory.equals(rootPath) && directory.getFileName().toString().startsWith(".")) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+
+                    entries.push(new ArrayList<>());
+
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    entries.peek().add(file.getFileName() + ":" + attributes.size() + ":"
+                            + attributes.lastModifiedTime().toMillis());
+
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path directory, IOException exception) throws IOException {
+                    if (exception != null) {
+                        throw exception;
+                    }
+
+                    final List<String> directoryEntries = entries.pop();
+                    Collections.sort(directoryEntries);
+
+                    final String fingerprint = DigestUtils.sha1Hex(String.join("\n", directoryEntries));
+                    fingerprints.put(directory.toFile(), fingerprint);
+
+                    if (!entries.isEmpty()) {
+                        entries.peek().add(directory.getFileName() + "/:" + fingerprint);
+                    }
+
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Could not create fingerprint of directory %s", repositoryDirectory), e);
+
+            return Collections.emptyMap();
+        }
+
+        return fingerprints;
+    }
+
     private List<TypeDTO> fetchTypes(File[] typeDirectories) {
         final List<TypeDTO> results = new ArrayList<>();
 
@@ -112,11 +261,8 @@ public class LocalRepository implements Repository {
                     final TypeDTO.Builder typeDTOBuilder = new TypeDTO.Builder(jsonTypeDTO);
 
                     if (StringUtils.isBlank(jsonTypeDTO.getId())) {
-                        if (!StringUtils.isBlank(jsonTypeDTO.getName())) {
-                            typeDTOBuilder.withId(jsonTypeDTO.getName().replaceAll(INVALID_ID_CHARS_REGEX, ""));
-                        } else {
-                            typeDTOBuilder.withId(typeDirectory.getName().replaceAll(INVALID_ID_CHARS_REGEX, ""));
-                        }
+                        typeDTOBuilder.withId(
+                                RepositoryTreeReader.createId(jsonTypeDTO.getName(), typeDirectory.getName()));
                     }
 
                     final File typeIconFile = new File(typeDirectory, ICON_NAME);
@@ -142,43 +288,40 @@ public class LocalRepository implements Repository {
             return Collections.emptyList();
         }
 
-        final List<CategoryDTO> results = new ArrayList<>();
-
-        for (File categoryDirectory : categoryDirectories) {
-            if (categoryDirectory.isDirectory() && !categoryDirectory.getName().startsWith(".")) {
-                final File categoryJson = new File(categoryDirectory, "category.json");
+        // the categories are read in parallel, this method is called from inside the fork join pool
+        final List<CategoryDTO> results = Arrays.stream(categoryDirectories).parallel()
+                .filter(categoryDirectory -> categoryDirectory.isDirectory()
+                        && !categoryDirectory.getName().startsWith(".")
+                        && new File(categoryDirectory, "category.json").exists())
+                .map(categoryDirectory -> fetchCategory(typeId, categoryDirectory))
+                .collect(Collectors.toList());
 
-                if (categoryJson.exists()) {
-                    final CategoryDTO jsonCategoryDTO = unSerializeCategory(categoryJson);
-                    final CategoryDTO.Builder categoryDTOBuilder = new CategoryDTO.Builder(jsonCategoryDTO);
+        results.sort(Comparator.comparing(CategoryDTO::getName));
+        return results;
+    }
 
-                    categoryDTOBuilder.withTypeId(typeId);
+    private CategoryDTO fetchCategory(String typeId, File categoryDirectory) {
+        final File categoryJson = new File(categoryDirectory, "category.json");
 
-                    if (StringUtils.isBlank(jsonCategoryDTO.getId())) {
-                        if (!StringUtils.isBlank(jsonCategoryDTO.getName())) {
-                            categoryDTOBuilder.withId(jsonCategoryDTO.getName().replaceAll(INVALID_ID_CHARS_REGEX, ""));
-                        } else {
-                            categoryDTOBuilder
-                                    .withId(categoryDirectory.getName().replaceAll(INVALID_ID_CHARS_REGEX, ""));
-                        }
-                    }
+        final CategoryDTO jsonCategoryDTO = unSerializeCategory(categoryJson);
+        final CategoryDTO.Builder categoryDTOBuilder = new CategoryDTO.Builder(jsonCategoryDTO);
 
-                    final File categoryIconFile = new File(categoryDirectory, ICON_NAME);
-                    if (categoryIconFile.exists()) {
-                        categoryDTOBuilder.withIcon(categoryIconFile.toURI());
-                    }
+        categoryDTOBuilder.withTypeId(typeId);
 
-                    categoryDTOBuilder.withApplications(fetchApplications(categoryDTOBuilder.getTypeId(),
-                            categoryDTOBuilder.getId(), categoryDirectory));
+        if (StringUtils.isBlank(jsonCategoryDTO.getId())) {
+            categoryDTOBuilder.withId(
+                    RepositoryTreeReader.createId(jsonCategoryDTO.getName(), categoryDirectory.getName()));
+        }
 
-                    final CategoryDTO category = categoryDTOBuilder.build();
-                    results.add(category);
-                }
-            }
+        final File categoryIconFile = new File(categoryDirectory, ICON_NAME);
+        if (categoryIconFile.exists()) {
+            categoryDTOBuilder.withIcon(categoryIconFile.toURI());
         }
 
-        results.sort(Comparator.comparing(CategoryDTO::getName));
-        return results;
+        categoryDTOBuilder.withApplications(fetchApplications(categoryDTOBuilder.getTypeId(),
+                categoryDTOBuilder.getId(), categoryDirectory));
+
+        return categoryDTOBuilder.build();
     }
 
     private List<ApplicationDTO> fetchApplications(String typeId, String categoryId, File categoryDirectory) {
@@ -187,53 +330,74 @@ public class LocalRepository implements Repository {
             return Collections.emptyList();
         }
 
-        final List<ApplicationDTO> results = new ArrayList<>();
+        final List<ApplicationDTO> results = Arrays.stream(applicationDirectories).parallel()
+                .filter(File::isDirectory)
+                .map(applicationDirectory -> fetchApplication(typeId, categoryId, applicationDirectory))
+                .collect(Collectors.toList());
 
-        for (File applicationDirectory : applicationDirectories) {
-            if (applicationDirectory.isDirectory()) {
-                final ApplicationDTO.Builder applicationDTOBuilder;
-                final File applicationJson = new File(applicationDirectory, "application.json");
-                if (applicationJson.exists()) {
-                    applicationDTOBuilder = new ApplicationDTO.Builder(
-                            unSerializeApplication(applicationJson));
-                } else {
-                    applicationDTOBuilder = new ApplicationDTO.Builder();
-                }
+        Collections.sort(results, Comparator.comparing(ApplicationDTO::getName));
+        return results;
+    }
 
-                applicationDTOBuilder.withTypeId(typeId)
-                        .withCategoryId(categoryId);
+    /**
+     * Fetches the application inside the given directory. If the content of the directory didn't change since the
+     * last scan the previously read application is returned
+     */
+    private ApplicationDTO fetchApplication(String typeId, String categoryId, File applicationDirectory) {
+        final String directoryFingerprint = directoryFingerprints.get(applicationDirectory);
+        final String fingerprint = typeId + "/" + categoryId + "/" + directoryFingerprint;
 
-                if (StringUtils.isBlank(applicationDTOBuilder.getId())) {
-                    if (!StringUtils.isBlank(applicationDTOBuilder.getName())) {
-                        applicationDTOBuilder
-                                .withId(applicationDTOBuilder.getName().replaceAll(INVALID_ID_CHARS_REGEX, ""));
-                    } else {
-                        applicationDTOBuilder
-                                .withId(applicationDirectory.getName().replaceAll(INVALID_ID_CHARS_REGEX, ""));
-                    }
-                }
+        final ScannedApplication previousApplication = previousApplications.get(applicationDirectory);
+        if (directoryFingerprint != null && previousApplication != null
+                && fingerprint.equals(previousApplication.fingerprint)) {
+            scannedApplications.put(applicationDirectory, previousApplication);
 
-                final File miniaturesDirectory = new File(applicationDirectory, "miniatures");
+            return previousApplication.application;
+        }
 
-                if (miniaturesDirectory.exists() && miniaturesDirectory.isDirectory()) {
-                    try {
-                        applicationDTOBuilder.withMiniatures(fetchMiniatures(miniaturesDirectory));
-                    } catch (IOException e) {
-                        LOGGER.warn("Unable to read miniatures", e);
-                    }
-                }
+        final Map<File, ScannedScript> previousScripts = previousApplication == null ? Collections.emptyMap()
+                : previousApplication.scripts;
+        final Map<File, ScannedScript> scripts = new HashMap<>();
+
+        final ApplicationDTO.Builder applicationDTOBuilder;
+        final File applicationJson = new File(applicationDirectory, "application.json");
+        if (applicationJson.exists()) {
+            applicationDTOBuilder = new ApplicationDTO.Builder(
+                    unSerializeApplication(applicationJson));
+        } else {
+            applicationDTOBuilder = new ApplicationDTO.Builder();
+        }
+
+        applicationDTOBuilder.withTypeId(typeId)
+                .withCategoryId(categoryId);
+
+        if (StringUtils.isBlank(applicationDTOBuilder.getId())) {
+            applicationDTOBuilder.withId(
+                    RepositoryTreeReader.createId(applicationDTOBuilder.getName(), applicationDirectory.getName()));
+        }
 
-                applicationDTOBuilder.withScripts(fetchScripts(applicationDTOBuilder.getTypeId(),
-                        applicationDTOBuilder.getCategoryId(), applicationDTOBuilder.getId(), applicationDirectory))
-                        .withResources(fetchResources(applicationDirectory));
+        final File miniaturesDirectory = new File(applicationDirectory, "miniatures");
 
-                ApplicationDTO app = applicationDTOBuilder.build();
-                results.add(app);
+        if (miniaturesDirectory.exists() && miniaturesDirectory.isDirectory()) {
+            try {
+                applicationDTOBuilder.withMiniatures(fetchMiniatures(miniaturesDirectory));
+            } catch (IOException e) {
+                LOGGER.warn("Unable to read miniatures", e);
             }
         }
 
-        Collections.sort(results, Comparator.comparing(ApplicationDTO::getName));
-        return results;
+        applicationDTOBuilder.withScripts(fetchScripts(applicationDTOBuilder.getTypeId(),
+                applicationDTOBuilder.getCategoryId(), applicationDTOBuilder.getId(), applicationDirectory,
+                previousScripts, scripts))
+                .withResources(fetchResources(applicationDirectory));
+
+        final ApplicationDTO application = applicationDTOBuilder.build();
+
+        if (directoryFingerprint != null) {
+            scannedApplications.put(applicationDirectory, new ScannedApplication(fingerprint, application, scripts));
+        }
+
+        return application;
     }
 
     private List<URI> fetchMiniatures(File miniaturesDirectory) throws IOException {
@@ -256,12 +420,9 @@ public class LocalRepository implements Repository {
 
         for (File resourceFile : resources) {
             if (!resourceFile.isDirectory() && !resourceFile.getName().startsWith(".")) {
-                try {
-                    results.add(new ResourceDTO(resourceFile.getName(),
-                            IOUtils.toByteArray(new FileInputStream(resourceFile))));
-                } catch (IOException ignored) {
+                ContentLoader.invalidate(resourceFile.toURI());
 
-                }
+                results.add(new ResourceDTO(resourceFile.getName(), resourceFile.toURI()));
             }
         }
 
@@ -269,7 +430,7 @@ public class LocalRepository implements Repository {
     }
 
     private List<ScriptDTO> fetchScripts(String typeId, String categoryId, String applicationId,
-            File applicationDirectory) {
+            File applicationDirectory, Map<File, ScannedScript> previousScripts, Map<File, ScannedScript> scripts) {
         final File[] scriptDirectories = applicationDirectory.listFiles();
         if (scriptDirectories == null) {
             return Collections.emptyList();
@@ -280,62 +441,78 @@ public class LocalRepository implements Repository {
         for (File scriptDirectory : scriptDirectories) {
             if (scriptDirectory.isDirectory() && !"miniatures".equals(scriptDirectory.getName())
                     && !"resources".equals(scriptDirectory.getName())) {
-                final ScriptDTO.Builder scriptDTOBuilder;
-                final File scriptJson = new File(scriptDirectory, "script.json");
-                if (scriptJson.exists()) {
-                    final ScriptDTO scriptDTOFromJsonFile = unSerializeScript(scriptJson);
-                    scriptDTOBuilder = new ScriptDTO.Builder(scriptDTOFromJsonFile);
-
-                    if (StringUtils.isBlank(scriptDTOFromJsonFile.getScriptName())) {
-                        scriptDTOBuilder.withScriptName(scriptDirectory.getName());
-                    }
+                final String directoryFingerprint = directoryFingerprints.get(scriptDirectory);
+                final String fingerprint = typeId + "/" + categoryId + "/" + applicationId + "/"
+                        + directoryFingerprint;
+
+                final ScannedScript previousScript = previousScripts.get(scriptDirectory);
+                final ScriptDTO script;
+                if (directoryFingerprint != null && previousScript != null
+                        && fingerprint.equals(previousScript.fingerprint)) {
+                    script = previousScript.script;
                 } else {
-                    scriptDTOBuilder = new ScriptDTO.Builder();
-                    scriptDTOBuilder.withScriptName(scriptDirectory.getName());
+                    script = fetchScript(typeId, categoryId, applicationId, scriptDirectory);
                 }
 
-                if (StringUtils.isBlank(scriptDTOBuilder.getId())) {
-                    if (!StringUtils.isBlank(scriptDTOBuilder.getScriptName())) {
-                        scriptDTOBuilder
-                                .withId(scriptDTOBuilder.getScriptName().replaceAll(INVALID_ID_CHARS_REGEX, ""));
-                    } else {
-                        scriptDTOBuilder.withId(scriptDirectory.getName().replaceAll(INVALID_ID_CHARS_REGEX, ""));
-                    }
+                if (directoryFingerprint != null) {
+                    scripts.put(scriptDirectory, new ScannedScript(fingerprint, script));
                 }
 
-                scriptDTOBuilder.withTypeId(typeId)
-                        .withCategoryId(categoryId)
-                        .withApplicationId(applicationId)
-                        .withScriptSource(repositorySource);
+                results.add(script);
+            }
+        }
 
-                final File scriptFile = new File(scriptDirectory, "script.js");
+        return results;
+    }
 
-                if (scriptFile.exists()) {
-                    try {
-                        scriptDTOBuilder.withScript(new String(IOUtils.toByteArray(new FileInputStream(scriptFile))));
-                    } catch (IOException e) {
-                        LOGGER.warn("Script not found", e);
-                    }
-                }
+    private ScriptDTO fetchScript(String typeId, String categoryId, String applicationId, File scriptDirectory) {
+        final ScriptDTO.Builder scriptDTOBuilder;
+        final File scriptJson = new File(scriptDirectory, "script.json");
+        if (scriptJson.exists()) {
+            final ScriptDTO scriptDTOFromJsonFile = unSerializeScript(scriptJson);
+            scriptDTOBuilder = new ScriptDTO.Builder(scriptDTOFromJsonFile);
 
-                final File iconFile = new File(scriptDirectory, "icon.png");
+            if (StringUtils.isBlank(scriptDTOFromJsonFile.getScriptName())) {
+                scriptDTOBuilder.withScriptName(scriptDirectory.getName());
+            }
+        } else {
+            scriptDTOBuilder = new ScriptDTO.Builder();
+            scriptDTOBuilder.withScriptName(scriptDirectory.getName());
+        }
 
-                if (iconFile.exists()) {
-                    scriptDTOBuilder.withIcon(iconFile.toURI());
-                } else {
-                    LOGGER.debug("Icon not found: " + iconFile.getAbsolutePath());
-                }
+        if (StringUtils.isBlank(scriptDTOBuilder.getId())) {
+            scriptDTOBuilder.withId(
+                    RepositoryTreeReader.createId(scriptDTOBuilder.getScriptName(), scriptDirectory.getName()));
+        }
 
-                results.add(scriptDTOBuilder.build());
-            }
+        scriptDTOBuilder.withTypeId(typeId)
+                .withCategoryId(categoryId)
+                .withApplicationId(applicationId)
+                .withScriptSource(repositorySource);
+
+        final File scriptFile = new File(scriptDirectory, "script.js");
+
+        if (scriptFile.exists()) {
+            // the script may have been changed since it has been loaded for the last time
+            ContentLoader.invalidate(scriptFile.toURI());
+
+            scriptDTOBuilder.withScriptLocation(scriptFile.toURI());
         }
 
-        return results;
+        final File iconFile = new File(scriptDirectory, "icon.png");
+
+        if (iconFile.exists()) {
+            scriptDTOBuilder.withIcon(iconFile.toURI());
+        } else {
+            LOGGER.debug("Icon not found: " + iconFile.getAbsolutePath());
+        }
+
+        return scriptDTOBuilder.build();
     }
 
     private TypeDTO unSerializeType(File jsonFile) {
         try {
-            return objectMapper.readValue(jsonFile, TypeDTO.class);
+            return typeReader.readValue(jsonFile);
         } catch (IOException e) {
             LOGGER.debug("JSON file not found", e);
             return new TypeDTO.Builder().build();
@@ -344,7 +521,7 @@ public class LocalRepository implements Repository {
 
     private CategoryDTO unSerializeCategory(File jsonFile) {
         try {
-            return objectMapper.readValue(jsonFile, CategoryDTO.class);
+            return categoryReader.readValue(jsonFile);
         } catch (IOException e) {
             LOGGER.debug("JSON file not found", e);
             return new CategoryDTO.Builder().build();
@@ -353,7 +530,7 @@ public class LocalRepository implements Repository {
 
     private ScriptDTO unSerializeScript(File jsonFile) {
         try {
-            return objectMapper.readValue(jsonFile, ScriptDTO.class);
+            return scriptReader.readValue(jsonFile);
         } catch (IOException e) {
             LOGGER.debug("JSON file not found");
             return new ScriptDTO.Builder().build();
@@ -362,7 +539,7 @@ public class LocalRepository implements Repository {
 
     private ApplicationDTO unSerializeApplication(File jsonFile) {
         try {
-            return objectMapper.readValue(jsonFile, ApplicationDTO.class);
+            return applicationReader.readValue(jsonFile);
         } catch (IOException e) {
             LOGGER.debug("JSON file not found", e);
             return new ApplicationDTO.Builder().build();
@@ -399,19 +576,64 @@ public class LocalRepository implements Repository {
                 .toHashCode();
     }
 
+    /**
+     * An application read during a scan together with the fingerprint of its directory and its scripts
+     */
+    private static class ScannedApplication {
+        private final String fingerprint;
+        private final ApplicationDTO application;
+        private final Map<File, ScannedScript> scripts;
+
+        private ScannedApplication(String fingerprint, ApplicationDTO application, Map<File, ScannedScript> scripts) {
+            this.fingerprint = fingerprint;
+            this.application = application;
+            this.scripts = scripts;
+        }
+    }
+
+    /**
+     * A script read during a scan together with the fingerprint of its directory
+     */
+    private static class ScannedScript {
+        private final String fingerprint;
+        private final ScriptDTO script;
+
+        private ScannedScript(String fingerprint, ScriptDTO script) {
+            this.fingerprint = fingerprint;
+            this.script = script;
+        }
+    }
+
+    /**
+     * A fetched repository content together with the fingerprint of the repository directory
+     */
+    private static class FetchedRepository {
+        private final String fingerprint;
+        private final RepositoryDTO repository;
+
+        private FetchedRepository(String fingerprint, RepositoryDTO repository) {
+            this.fingerprint = fingerprint;
+            this.repository = repository;
+        }
+    }
+
     public static class Factory {
         private final ObjectMapper objectMapper;
+        private final RepositorySnapshotCache snapshotCache;
+        private final ForkJoinPool forkJoinPool;
 
-        public Factory(ObjectMapper objectMapper) {
+        public Factory(ObjectMapper objectMapper, RepositorySnapshotCache snapshotCache, ForkJoinPool forkJoinPool) {
             this.objectMapper = objectMapper;
+            this.snapshotCache = snapshotCache;
+            this.forkJoinPool = forkJoinPool;
         }
 
         public LocalRepository createInstance(File path) {
-            return new LocalRepository(path, objectMapper);
+            return new LocalRepository(path, objectMapper, snapshotCache, forkJoinPool);
         }
 
         public LocalRepository createInstance(File path, URI source) {
-            return new LocalRepository(path, source, objectMapper);
+            return new LocalRepository(path, source, objectMapper, snapshotCache, forkJoinPool);
         }
     }
 }
@@ -3,21 +3,48 @@
  */
 package org.phoenicis.repository.types;
 
-import org.apache.commons.codec.digest.DigestUtils;
-import org.phoenicis.configuration.localisation.Localisation;
-import org.phoenicis.configuration.localisation.PropertiesResourceBundle;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.phoenicis.repository.cache.ContentHashIndex;
 import org.phoenicis.repository.dto.*;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.lang.ref.WeakReference;
 import java.net.URI;
 import java.util.*;
+import java.util.function.BinaryOperator;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 abstract class MergeableRepository implements Repository {
     private final static org.slf4j.Logger LOGGER = LoggerFactory.getLogger(MergeableRepository.class);
 
+    /**
+     * The index containing the hashes of the miniatures, used to find duplicate miniatures
+     */
+    private final ContentHashIndex miniatureHashIndex;
+
+    /*
+     * The results of the last merge: the merged repository DTOs in the order in which they were merged and the
+     * merged repository itself. The merged repository DTOs are only referenced weakly, the merge result shares the
+     * subtrees it took from them but does not keep the rest of their trees alive
+     */
+    private List<WeakReference<RepositoryDTO>> lastMergedRepositories = Collections.emptyList();
+    private RepositoryDTO lastMergeResult;
+
+    /*
+     * The merged types, categories and applications, keyed by the left and then by the right merged DTO. Subtrees
+     * which are not touched by a changed repository are taken from an earlier merge instead of being merged again.
+     * Both keys are weak references compared by identity, so an entry is dropped as soon as one of its merged DTOs is
+     * no longer used by its repository. The merged values don't reference their keys, only the unmerged subtrees
+     */
+    private final Cache<Object, Cache<Object, Object>> merges = CacheBuilder.newBuilder().weakKeys().build();
+
+    protected MergeableRepository(ContentHashIndex miniatureHashIndex) {
+        this.miniatureHashIndex = miniatureHashIndex;
+    }
+
     /**
      * This method merges multiple application sources into a single list of
      * category dtos. For this it receives a map, containing a binding between
@@ -33,30 +60,44 @@ abstract class MergeableRepository implements Repository {
      * @param repositories A list containing all application sources in the order in
      *            which they should be merged
      * @return A list containing category dtos of the merged application
-     *         sources. If no application sources were given, an empty list is
+     *         sources. If no application sources were given, an empty repository is
      *         returned
      */
-    protected RepositoryDTO mergeRepositories(Map<Repository, RepositoryDTO> repositoriesMap,
+    protected synchronized RepositoryDTO mergeRepositories(Map<Repository, RepositoryDTO> repositoriesMap,
             List<Repository> repositories) {
         int numberOfRepositories = repositories.size();
 
         if (numberOfRepositories == 0) {
-            return null;
+            return new RepositoryDTO.Builder().withName("merged repository").build();
+        }
+
+        final List<RepositoryDTO> mergedRepositories = repositories.stream().map(repositoriesMap::get)
+                .collect(Collectors.toList());
+
+        /*
+         * The translations are merged in the same order as the repositories, later translations override earlier
+         * ones. The catalog is only merged again if the translations of a repository have changed
+         */
+        final TranslationCatalog translationCatalog = TranslationCatalog.of(mergedRepositories.stream()
+                .map(RepositoryDTO::getTranslations)
+                .collect(Collectors.toList()));
+        translationCatalog.activate();
+
+        /*
+         * Reuse the last result if neither the repository DTOs nor their order have changed
+         */
+        if (isSameInstances(mergedRepositories, lastMergedRepositories)) {
+            return lastMergeResult;
         }
 
         RepositoryDTO.Builder repositoryDTOBuilder = new RepositoryDTO.Builder().withName("merged repository");
 
-        Properties translationProperties = new Properties();
         Map<Repository, List<TypeDTO>> typesMap = new HashMap<>();
 
         for (Map.Entry<Repository, RepositoryDTO> entry : repositoriesMap.entrySet()) {
-            RepositoryDTO repositoryDTO = entry.getValue();
-            translationProperties.putAll(repositoryDTO.getTranslations().getProperties());
-            typesMap.put(entry.getKey(), repositoryDTO.getTypes());
+            typesMap.put(entry.getKey(), entry.getValue().getTypes());
         }
-        repositoryDTOBuilder.withTranslations(new TranslationDTO.Builder()
-                .withLanguage(Locale.getDefault().getLanguage()).withProperties(translationProperties).build());
-        Localisation.setAdditionalTranslations(new PropertiesResourceBundle(translationProperties));
+        repositoryDTOBuilder.withTranslations(translationCatalog.getTranslations());
 
         /*
          * Take the first application source, from behind, as the default one
@@ -74,7 +115,7 @@ abstract class MergeableRepository implements Repository {
 
                 if (mergedTypes.containsKey(entry.getKey())) {
                     mergedTypes.put(entry.getKey(),
-                            mergeTypes(mergedTypes.get(entry.getKey()), type));
+                            memoize(mergedTypes.get(entry.getKey()), type, this::mergeTypes));
                 } else {
                     mergedTypes.put(entry.getKey(), type);
                 }
@@ -84,6 +125,11 @@ abstract class MergeableRepository implements Repository {
         RepositoryDTO mergedRepositoryDTO = repositoryDTOBuilder
                 .withTypes(new ArrayList<>(mergedTypes.values())).build();
 
+        miniatureHashIndex.save();
+
+        lastMergedRepositories = mergedRepositories.stream().map(WeakReference::new).collect(Collectors.toList());
+        lastMergeResult = mergedRepositoryDTO;
+
         return mergedRepositoryDTO;
 
     }
@@ -100,7 +146,8 @@ abstract class MergeableRepository implements Repository {
             final CategoryDTO category = entry.getValue();
 
             if (mergedCategories.containsKey(entry.getKey())) {
-                mergedCategories.put(entry.getKey(), mergeCategories(mergedCategories.get(entry.getKey()), category));
+                mergedCategories.put(entry.getKey(),
+                        memoize(mergedCategories.get(entry.getKey()), category, this::mergeCategories));
             } else {
                 mergedCategories.put(entry.getKey(), category);
             }
@@ -128,7 +175,8 @@ abstract class MergeableRepository implements Repository {
             final ApplicationDTO application = entry.getValue();
 
             if (mergedApps.containsKey(entry.getKey())) {
-                mergedApps.put(entry.getKey(), mergeApplications(mergedApps.get(entry.getKey()), application));
+                mergedApps.put(entry.getKey(),
+                        memoize(mergedApps.get(entry.getKey()), application, this::mergeApplications));
             } else {
                 mergedApps.put(entry.getKey(), application);
             }
@@ -190,8 +238,8 @@ abstract class MergeableRepository implements Repository {
          * Remove duplicates
          */
         for (URI miniatureUri : miniatures) {
-            try (InputStream inputStream = miniatureUri.toURL().openStream()) {
-                String checksum = DigestUtils.md5Hex(inputStream);
+            try {
+                String checksum = miniatureHashIndex.getHash(miniatureUri);
                 if (!mergedMiniatures.containsKey(checksum)) {
                     mergedMiniatures.put(checksum, miniatureUri);
                 }
@@ -223,6 +271,40 @@ abstract class MergeableRepository implements Repository {
         return result;
     }
 
+    /**
+     * Merges the two given DTOs using the given merger. If the same two DTO instances have already been merged by an
+     * earlier merge, the result of the earlier merge is reused
+     *
+     * @param left The left DTO
+     * @param right The right DTO
+     * @param merger The function merging the two DTOs
+     * @param <T> The type of the DTOs
+     * @return The merged DTO
+     */
+    private <T> T memoize(T left, T right, BinaryOperator<T> merger) {
+        final Cache<Object, Object> rightMerges = merges.asMap().computeIfAbsent(left,
+                key -> CacheBuilder.newBuilder().weakKeys().build());
+
+        @SuppressWarnings("unchecked")
+        final T result = (T) rightMerges.asMap().computeIfAbsent(right, key -> merger.apply(left, right));
+
+        return result;
+    }
+
+    private boolean isSameInstances(List<RepositoryDTO> list, List<WeakReference<RepositoryDTO>> otherList) {
+        if (list.size() != otherList.size()) {
+            return false;
+        }
+
+        for (int index = 0; index < list.size(); index++) {
+            if (list.get(index) != otherList.get(index).get()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     protected <T> Map<String, T> createSortedMap(List<T> dtos, Function<T, String> nameProvider) {
         final SortedMap<String, T> map = new TreeMap<>();
         dtos.forEach(dto -> map.put(nameProvider.apply(dto), dto));
@@ -21,6 +21,7 @@ package org.phoenicis.repository.types;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
+import org.phoenicis.repository.cache.ContentHashIndex;
 import org.phoenicis.repository.dto.RepositoryDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,10 +35,16 @@ public class MultipleRepository extends MergeableRepository {
     private List<Repository> repositories;
 
     public MultipleRepository(Repository... repositories) {
-        this.repositories = new ArrayList<>(Arrays.asList(repositories));
+        this(new ContentHashIndex(), new ArrayList<>(Arrays.asList(repositories)));
     }
 
     public MultipleRepository(List<Repository> repositories) {
+        this(new ContentHashIndex(), repositories);
+    }
+
+    public MultipleRepository(ContentHashIndex miniatureHashIndex, List<Repository> repositories) {
+        super(miniatureHashIndex);
+
         this.repositories = repositories;
     }
 
@@ -61,6 +68,11 @@ public class MultipleRepository extends MergeableRepository {
         repositories.stream().forEach(Repository::onDelete);
     }
 
+    @Override
+    public void requestUpdate() {
+        repositories.forEach(Repository::requestUpdate);
+    }
+
     public int size() {
         return this.repositories.size();
     }
@@ -23,7 +23,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 public interface Repository {
@@ -44,6 +44,14 @@ public interface Repository {
         // do nothing
     }
 
+    /**
+     * Requests that the next fetch checks the source of the repository for updates, even if the repository would
+     * skip the check otherwise, e.g. because it has been checked recently
+     */
+    default void requestUpdate() {
+        // do nothing
+    }
+
     default void fetchInstallableApplications(Consumer<RepositoryDTO> callback, Consumer<Exception> errorCallback) {
         try {
             callback.accept(fetchInstallableApplications());
@@ -61,21 +69,21 @@ public interface Repository {
         return fetchInstallableApplications();
     }
 
+    /**
+     * fetches the index of the RepositoryDTO
+     * @return RepositoryIndex
+     */
+    default RepositoryIndex getIndex() {
+        return RepositoryIndex.of(getRepository());
+    }
+
     /**
      * fetches the TypeDTO for a given path (e.g. ["applications"])
      * @param path path in the JS namespace
      * @return TypeDTO
      */
     default TypeDTO getType(List<String> path) {
-        final String wantedId = path.get(0);
-        final Optional<TypeDTO> typeDTO = fetchInstallableApplications().getTypes().stream()
-                .filter(type -> wantedId.equals(type.getId())).findFirst();
-
-        if (!typeDTO.isPresent()) {
-            LOGGER.error(String.format("Could not find TypeDTO with ID \"%s\"", wantedId));
-        }
-
-        return typeDTO.orElse(null);
+        return findType(getIndex(), path);
     }
 
     /**
@@ -84,20 +92,7 @@ public interface Repository {
      * @return CategoryDTO
      */
     default CategoryDTO getCategory(List<String> path) {
-        final String wantedId = path.get(1);
-        final TypeDTO typeDTO = getType(path);
-        if (typeDTO == null) {
-            return null;
-        }
-
-        final Optional<CategoryDTO> categoryDTO = typeDTO.getCategories().stream()
-                .filter(category -> wantedId.equals(category.getId())).findFirst();
-
-        if (!categoryDTO.isPresent()) {
-            LOGGER.error(String.format("Could not find CategoryDTO with ID \"%s\"", wantedId));
-        }
-
-        return categoryDTO.orElse(null);
+        return findCategory(getIndex(), path);
     }
 
     /**
@@ -107,20 +102,7 @@ public interface Repository {
      * @return ApplicationDTO
      */
     default ApplicationDTO getApplication(List<String> path) {
-        final String wantedId = path.get(2);
-        final CategoryDTO categoryDTO = getCategory(path);
-        if (categoryDTO == null) {
-            return null;
-        }
-
-        final Optional<ApplicationDTO> applicationDTO = categoryDTO.getApplications().stream()
-                .filter(application -> wantedId.equals(application.getId())).findFirst();
-
-        if (!applicationDTO.isPresent()) {
-            LOGGER.error(String.format("Could not find ApplicationDTO with ID \"%s\"", wantedId));
-        }
-
-        return applicationDTO.orElse(null);
+        return findApplication(getIndex(), path);
     }
 
     /**
@@ -130,19 +112,7 @@ public interface Repository {
      * @return ScriptDTO
      */
     default ScriptDTO getScript(List<String> path) {
-        final String wantedId = path.get(3);
-        final ApplicationDTO applicationDTO = getApplication(path);
-
-        if (applicationDTO != null) {
-            for (ScriptDTO scriptDTO : applicationDTO.getScripts()) {
-                if (wantedId.equals(scriptDTO.getId())) {
-                    return scriptDTO;
-                }
-            }
-        }
-
-        LOGGER.error(String.format("Could not find ScriptDTO with ID \"%s\"", wantedId));
-        return null;
+        return findScript(getIndex(), path);
     }
 
     /**
@@ -151,23 +121,101 @@ public interface Repository {
      * @return ScriptDTO
      */
     default ScriptDTO getScript(String id) {
-        RepositoryDTO repositoryDTO = getRepository();
-
-        for (TypeDTO typeDTO : repositoryDTO.getTypes()) {
-            for (CategoryDTO categoryDTO : typeDTO.getCategories()) {
-                for (ApplicationDTO applicationDTO : categoryDTO.getApplications()) {
-                    for (ScriptDTO scriptDTO : applicationDTO.getScripts()) {
-                        if (id.equals(scriptDTO.getId())) {
-                            return scriptDTO;
-                        }
-                    }
-                }
+        return getIndex().getScript(id);
+    }
+
+    default void getScript(List<String> path, Consumer<ScriptDTO> callback, Consumer<Exception> errorCallback) {
+        callback.accept(getScript(path));
+    }
+
+    /**
+     * fetches the RepositoryDTO asynchronously.
+     * The returned future is completed by the thread fetching the repository. By default the repository is fetched
+     * by the calling thread, asynchronous repositories override this method
+     * @return A future completed with the RepositoryDTO
+     */
+    default CompletableFuture<RepositoryDTO> fetchInstallableApplicationsAsync() {
+        final CompletableFuture<RepositoryDTO> result = new CompletableFuture<>();
+        fetchInstallableApplications(result::complete, result::completeExceptionally);
+
+        return result;
+    }
+
+    /**
+     * fetches the ScriptDTO for a given path asynchronously, see {@link #getScript(List)}
+     * @param path path in the JS namespace
+     * @return A future completed with the ScriptDTO or null if the script doesn't exist
+     */
+    default CompletableFuture<ScriptDTO> fetchScriptAsync(List<String> path) {
+        return fetchInstallableApplicationsAsync()
+                .thenApply(repositoryDTO -> findScript(RepositoryIndex.of(repositoryDTO), path));
+    }
+
+    /**
+     * finds the ScriptDTO for a given path inside the given index
+     * @param index The index of the repository
+     * @param path path in the JS namespace
+     * @return ScriptDTO or null if the script doesn't exist
+     */
+    static ScriptDTO findScript(RepositoryIndex index, List<String> path) {
+        final String wantedId = path.get(3);
+
+        if (findApplication(index, path) != null) {
+            final ScriptDTO scriptDTO = index.getScript(path.get(0), path.get(1), path.get(2), wantedId);
+
+            if (scriptDTO != null) {
+                return scriptDTO;
             }
         }
+
+        LOGGER.error(String.format("Could not find ScriptDTO with ID \"%s\"", wantedId));
         return null;
     }
 
-    default void getScript(List<String> path, Consumer<ScriptDTO> callback, Consumer<Exception> errorCallback) {
-        callback.accept(getScript(path));
+    private static TypeDTO findType(RepositoryIndex index, List<String> path) {
+        final String wantedId = path.get(0);
+        final TypeDTO typeDTO = index.getType(wantedId);
+
+        if (typeDTO == null) {
+            LOGGER.error(String.format("Could not find TypeDTO with ID \"%s\"", wantedId));
+        }
+
+        return typeDTO;
+    }
+
+    private static CategoryDTO findCategory(RepositoryIndex index, List<String> path) {
+        final String wantedId = path.get(1);
+        if (findType(index, path) == null) {
+            return null;
+        }
+
+        final CategoryDTO categoryDTO = index.getCategory(path.get(0), wantedId);
+
+        if (categoryDTO == null) {
+            LOGGER.error(String.format("Could not find CategoryDTO with ID \"%s\"", wantedId));
+        }
+
+        return categoryDTO;
+    }
+
+    /**
+     * finds the ApplicationDTO for a given path inside the given index
+     * @param index The index of the repository
+     * @param path path in the JS namespace
+     * @return ApplicationDTO or null if the application doesn't exist
+     */
+    static ApplicationDTO findApplication(RepositoryIndex index, List<String> path) {
+        final String wantedId = path.get(2);
+        if (findCategory(index, path) == null) {
+            return null;
+        }
+
+        final ApplicationDTO applicationDTO = index.getApplication(path.get(0), path.get(1), wantedId);
+
+        if (applicationDTO == null) {
+            LOGGER.error(String.format("Could not find ApplicationDTO with ID \"%s\"", wantedId));
+        }
+
+        return applicationDTO;
     }
 }
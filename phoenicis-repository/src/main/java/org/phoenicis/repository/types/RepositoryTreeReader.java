@@ -0,0 +1,390 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.types;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.commons.lang.StringUtils;
+import org.phoenicis.repository.dto.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the repository content from an in-memory file tree, whose files are stored in another place, e.g. in the
+ * object database of a git repository or inside a zip archive.
+ * The repository layout is the same as the one read by {@link LocalRepository}. JSON files are parsed when the tree is
+ * read, all other files referenced by the repository DTOs (scripts, icons, miniatures and resources) are only
+ * referenced by {@link URI}s, which are provided by the concrete reader.
+ *
+ * @param <F> The type of the handles of the files inside the tree
+ */
+abstract class RepositoryTreeReader<F> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RepositoryTreeReader.class);
+
+    private static final String ICON_NAME = "icon.png";
+    private static final String INVALID_ID_CHARS_REGEX = "[^a-zA-Z0-9_.]";
+
+    // the JSON readers are created once per DTO type and reused for all files
+    private final ObjectReader typeReader;
+    private final ObjectReader categoryReader;
+    private final ObjectReader applicationReader;
+    private final ObjectReader scriptReader;
+    private final URI repositorySource;
+
+    /**
+     * Constructor
+     *
+     * @param objectMapper The object mapper used to parse the JSON files
+     * @param repositorySource The source of the repository, stored inside the script DTOs
+     */
+    RepositoryTreeReader(ObjectMapper objectMapper, URI repositorySource) {
+        this.typeReader = objectMapper.readerFor(TypeDTO.class);
+        this.categoryReader = objectMapper.readerFor(CategoryDTO.class);
+        this.applicationReader = objectMapper.readerFor(ApplicationDTO.class);
+        this.scriptReader = objectMapper.readerFor(ScriptDTO.class);
+        this.repositorySource = repositorySource;
+    }
+
+    /**
+     * Opens the content of the given file
+     *
+     * @param file The file
+     * @return A stream of the file content
+     * @throws IOException If the file can't be opened
+     */
+    protected abstract InputStream open(F file) throws IOException;
+
+    /**
+     * Creates the {@link URI}, under which the content of the given file can be loaded later on
+     *
+     * @param file The file
+     * @param fileName The name of the file
+     * @return The {@link URI} of the file
+     */
+    protected abstract URI toURI(F file, String fileName);
+
+    /**
+     * Creates the ID of a type, category, application or script without an explicitly defined ID
+     *
+     * @param name The name of the type, category, application or script, may be blank
+     * @param fileName The name of the file or directory defining the type, category, application or script
+     * @return The ID
+     */
+    static String createId(String name, String fileName) {
+        return (StringUtils.isBlank(name) ? fileName : name).replaceAll(INVALID_ID_CHARS_REGEX, "");
+    }
+
+    /**
+     * Reads the repository content from the given file tree
+     *
+     * @param name The name of the repository
+     * @param root The root directory of the repository
+     * @return The repository content
+     */
+    protected RepositoryDTO readRepository(String name, TreeNode<F> root) {
+        final RepositoryDTO.Builder repositoryDTOBuilder = new RepositoryDTO.Builder()
+                .withName(name)
+                .withTypes(readTypes(root));
+
+        final TreeNode<F> i18nDirectory = root.getDirectory("i18n");
+        if (i18nDirectory != null) {
+            repositoryDTOBuilder.withTranslations(readTranslations(i18nDirectory));
+        }
+
+        return repositoryDTOBuilder.build();
+    }
+
+    private List<TypeDTO> readTypes(TreeNode<F> root) {
+        final List<TypeDTO> results = new ArrayList<>();
+
+        for (Map.Entry<String, TreeNode<F>> typeEntry : root.getDirectories().entrySet()) {
+            final TreeNode<F> typeDirectory = typeEntry.getValue();
+            final F typeJson = typeDirectory.getFile("type.json");
+
+            if (typeJson != null) {
+                final TypeDTO jsonTypeDTO = parse(typeJson, typeReader, new TypeDTO.Builder().build());
+                final TypeDTO.Builder typeDTOBuilder = new TypeDTO.Builder(jsonTypeDTO);
+
+                if (StringUtils.isBlank(jsonTypeDTO.getId())) {
+                    typeDTOBuilder.withId(createId(jsonTypeDTO.getName(), typeEntry.getKey()));
+                }
+
+                final F typeIcon = typeDirectory.getFile(ICON_NAME);
+                if (typeIcon != null) {
+                    typeDTOBuilder.withIcon(toURI(typeIcon, ICON_NAME));
+                }
+
+                typeDTOBuilder.withCategories(readCategories(typeDTOBuilder.getId(), typeDirectory));
+
+                results.add(typeDTOBuilder.build());
+            }
+        }
+
+        results.sort(Comparator.comparing(TypeDTO::getName));
+        return results;
+    }
+
+    private List<CategoryDTO> readCategories(String typeId, TreeNode<F> typeDirectory) {
+        final List<CategoryDTO> results = new ArrayList<>();
+
+        for (Map.Entry<String, TreeNode<F>> categoryEntry : typeDirectory.getDirectories().entrySet()) {
+            final TreeNode<F> categoryDirectory = categoryEntry.getValue();
+            final F categoryJson = categoryDirectory.getFile("category.json");
+
+            if (categoryJson != null) {
+                final CategoryDTO jsonCategoryDTO = parse(categoryJson, categoryReader,
+                        new CategoryDTO.Builder().build());
+                final CategoryDTO.Builder categoryDTOBuilder = new CategoryDTO.Builder(jsonCategoryDTO)
+                        .withTypeId(typeId);
+
+                if (StringUtils.isBlank(jsonCategoryDTO.getId())) {
+                    categoryDTOBuilder.withId(createId(jsonCategoryDTO.getName(), categoryEntry.getKey()));
+                }
+
+                final F categoryIcon = categoryDirectory.getFile(ICON_NAME);
+                if (categoryIcon != null) {
+                    categoryDTOBuilder.withIcon(toURI(categoryIcon, ICON_NAME));
+                }
+
+                categoryDTOBuilder.withApplications(
+                        readApplications(typeId, categoryDTOBuilder.getId(), categoryDirectory));
+
+                results.add(categoryDTOBuilder.build());
+            }
+        }
+
+        results.sort(Comparator.comparing(CategoryDTO::getName));
+        return results;
+    }
+
+    private List<ApplicationDTO> readApplications(String typeId, String categoryId, TreeNode<F> categoryDirectory) {
+        final List<ApplicationDTO> results = new ArrayList<>();
+
+        for (Map.Entry<String, TreeNode<F>> applicationEntry : categoryDirectory.getDirectories().entrySet()) {
+            results.add(readApplication(typeId, categoryId, applicationEntry.getKey(), applicationEntry.getValue()));
+        }
+
+        results.sort(Comparator.comparing(ApplicationDTO::getName));
+        return results;
+    }
+
+    private ApplicationDTO readApplication(String typeId, String categoryId, String directoryName,
+            TreeNode<F> applicationDirectory) {
+        final F applicationJson = applicationDirectory.getFile("application.json");
+
+        final ApplicationDTO.Builder applicationDTOBuilder;
+        if (applicationJson != null) {
+            applicationDTOBuilder = new ApplicationDTO.Builder(
+                    parse(applicationJson, applicationReader, new ApplicationDTO.Builder().build()));
+        } else {
+            applicationDTOBuilder = new ApplicationDTO.Builder();
+        }
+
+        applicationDTOBuilder.withTypeId(typeId)
+                .withCategoryId(categoryId);
+
+        if (StringUtils.isBlank(applicationDTOBuilder.getId())) {
+            applicationDTOBuilder.withId(createId(applicationDTOBuilder.getName(), directoryName));
+        }
+
+        final TreeNode<F> miniaturesDirectory = applicationDirectory.getDirectory("miniatures");
+        if (miniaturesDirectory != null) {
+            applicationDTOBuilder.withMiniatures(miniaturesDirectory.getFiles().entrySet().stream()
+                    .map(miniature -> toURI(miniature.getValue(), miniature.getKey()))
+                    .collect(Collectors.toList()));
+        }
+
+        final List<ScriptDTO> scripts = new ArrayList<>();
+        for (Map.Entry<String, TreeNode<F>> scriptEntry : applicationDirectory.getDirectories().entrySet()) {
+            if (!"miniatures".equals(scriptEntry.getKey()) && !"resources".equals(scriptEntry.getKey())) {
+                scripts.add(readScript(typeId, categoryId, applicationDTOBuilder.getId(), scriptEntry.getKey(),
+                        scriptEntry.getValue()));
+            }
+        }
+
+        final List<ResourceDTO> resources = new ArrayList<>();
+        final TreeNode<F> resourcesDirectory = applicationDirectory.getDirectory("resources");
+        if (resourcesDirectory != null) {
+            for (Map.Entry<String, F> resource : resourcesDirectory.getFiles().entrySet()) {
+                resources.add(new ResourceDTO(resource.getKey(), toURI(resource.getValue(), resource.getKey())));
+            }
+        }
+
+        return applicationDTOBuilder.withScripts(scripts)
+                .withResources(resources)
+                .build();
+    }
+
+    private ScriptDTO readScript(String typeId, String categoryId, String applicationId, String directoryName,
+            TreeNode<F> scriptDirectory) {
+        final F scriptJson = scriptDirectory.getFile("script.json");
+
+        final ScriptDTO.Builder scriptDTOBuilder;
+        if (scriptJson != null) {
+            final ScriptDTO scriptDTOFromJsonFile = parse(scriptJson, scriptReader,
+                    new ScriptDTO.Builder().build());
+            scriptDTOBuilder = new ScriptDTO.Builder(scriptDTOFromJsonFile);
+
+            if (StringUtils.isBlank(scriptDTOFromJsonFile.getScriptName())) {
+                scriptDTOBuilder.withScriptName(directoryName);
+            }
+        } else {
+            scriptDTOBuilder = new ScriptDTO.Builder().withScriptName(directoryName);
+        }
+
+        if (StringUtils.isBlank(scriptDTOBuilder.getId())) {
+            scriptDTOBuilder.withId(createId(scriptDTOBuilder.getScriptName(), directoryName));
+        }
+
+        scriptDTOBuilder.withTypeId(typeId)
+                .withCategoryId(categoryId)
+                .withApplicationId(applicationId)
+                .withScriptSource(repositorySource);
+
+        final F script = scriptDirectory.getFile("script.js");
+        if (script != null) {
+            scriptDTOBuilder.withScriptLocation(toURI(script, "script.js"));
+        }
+
+        final F scriptIcon = scriptDirectory.getFile(ICON_NAME);
+        if (scriptIcon != null) {
+            scriptDTOBuilder.withIcon(toURI(scriptIcon, ICON_NAME));
+        }
+
+        return scriptDTOBuilder.build();
+    }
+
+    private TranslationDTO readTranslations(TreeNode<F> i18nDirectory) {
+        final String language = Locale.getDefault().getLanguage();
+        final Properties mergedProperties = new Properties();
+
+        for (Map.Entry<String, F> translationFile : i18nDirectory.getFiles().entrySet()) {
+            if (translationFile.getKey().endsWith(language + ".properties")) {
+                try (InputStream inputStream = open(translationFile.getValue())) {
+                    final Properties langProperties = new Properties();
+                    langProperties.load(inputStream);
+                    mergedProperties.putAll(langProperties);
+                } catch (IOException e) {
+                    LOGGER.error("Could not read translation properties", e);
+                }
+            }
+        }
+
+        return new TranslationDTO.Builder().withLanguage(language).withProperties(mergedProperties).build();
+    }
+
+    private <T> T parse(F file, ObjectReader reader, T defaultValue) {
+        try (InputStream inputStream = open(file)) {
+            return reader.readValue(inputStream);
+        } catch (IOException e) {
+            LOGGER.debug("Could not parse JSON file " + file, e);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * A directory or file inside the file tree
+     *
+     * @param <F> The type of the file handles
+     */
+    static class TreeNode<F> {
+        // the handle of a file, null for directories
+        private final F file;
+        private final SortedMap<String, TreeNode<F>> children = new TreeMap<>();
+
+        private TreeNode(F file) {
+            this.file = file;
+        }
+
+        /**
+         * Creates an empty root directory
+         *
+         * @param <F> The type of the file handles
+         * @return The root directory
+         */
+        static <F> TreeNode<F> createRoot() {
+            return new TreeNode<>(null);
+        }
+
+        /**
+         * Adds a file below this directory, all missing parent directories are created
+         *
+         * @param segments The path segments of the file, relative to this directory
+         * @param file The file handle
+         */
+        void addFile(String[] segments, F file) {
+            addDirectory(Arrays.copyOf(segments, segments.length - 1)).children
+                    .put(segments[segments.length - 1], new TreeNode<>(file));
+        }
+
+        /**
+         * Adds a directory below this directory, all missing parent directories are created. Empty segments are
+         * skipped
+         *
+         * @param segments The path segments of the directory, relative to this directory
+         * @return The directory
+         */
+        TreeNode<F> addDirectory(String[] segments) {
+            TreeNode<F> node = this;
+            for (String segment : segments) {
+                if (!segment.isEmpty()) {
+                    node = node.children.computeIfAbsent(segment, key -> new TreeNode<>(null));
+                }
+            }
+
+            return node;
+        }
+
+        int size() {
+            return children.size();
+        }
+
+        SortedMap<String, TreeNode<F>> getDirectories() {
+            return children.entrySet().stream()
+                    .filter(child -> child.getValue().file == null)
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (left, right) -> left,
+                            TreeMap::new));
+        }
+
+        SortedMap<String, F> getFiles() {
+            return children.entrySet().stream()
+                    .filter(child -> child.getValue().file != null)
+                    .collect(Collectors.toMap(Map.Entry::getKey, child -> child.getValue().file,
+                            (left, right) -> left, TreeMap::new));
+        }
+
+        TreeNode<F> getDirectory(String name) {
+            final TreeNode<F> child = children.get(name);
+
+            return child != null && child.file == null ? child : null;
+        }
+
+        F getFile(String name) {
+            final TreeNode<F> child = children.get(name);
+
+            return child == null ? null : child.file;
+        }
+    }
+}
@@ -20,6 +20,7 @@ package org.phoenicis.repository.types;
 
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.phoenicis.repository.cache.ContentHashIndex;
 import org.phoenicis.repository.dto.RepositoryDTO;
 
 import java.util.Arrays;
@@ -37,6 +38,8 @@ public class TeeRepository extends MergeableRepository {
      * @param rightRepository
      */
     public TeeRepository(Repository leftRepository, Repository rightRepository) {
+        super(new ContentHashIndex());
+
         this.leftRepository = leftRepository;
         this.rightRepository = rightRepository;
     }
@@ -55,6 +58,12 @@ public class TeeRepository extends MergeableRepository {
         this.rightRepository.onDelete();
     }
 
+    @Override
+    public void requestUpdate() {
+        this.leftRepository.requestUpdate();
+        this.rightRepository.requestUpdate();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.phoenicis.repository.cache.ContentHashIndex;
+import org.phoenicis.repository.dto.CategoryDTO;
+import org.phoenicis.repository.dto.RepositoryDTO;
+import org.phoenicis.repository.dto.RepositoryDelta;
+import org.phoenicis.repository.dto.TypeDTO;
+import org.phoenicis.repository.location.RepositoryLocation;
+import org.phoenicis.repository.types.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class DefaultRepositoryManagerTest {
+    private final List<RepositoryDTO> publishedRepositories = new ArrayList<>();
+    private final List<Exception> publishedErrors = new ArrayList<>();
+
+    private Repository repository;
+    private RepositoryLocation<Repository> repositoryLocation;
+    private DefaultRepositoryManager repositoryManager;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        repository = mock(Repository.class);
+
+        repositoryLocation = mock(RepositoryLocation.class);
+        when(repositoryLocation.createRepository(anyString(), any(), any(), any(), any(), any()))
+                .thenReturn(repository);
+
+        // run all background work directly to keep the order of the publications deterministic
+        repositoryManager = new DefaultRepositoryManager(MoreExecutors.newDirectExecutorService(), "cache", null,
+                null, null, null, null, new ContentHashIndex());
+
+        when(repository.fetchInstallableApplications()).thenReturn(createRepository("category1"));
+        repositoryManager.addRepositories(repositoryLocation);
+
+        repositoryManager.addCallbacks(publishedRepositories::add, publishedErrors::add);
+    }
+
+    @Test
+    public void testLastKnownRepositoryStaysAvailableWhileRefreshFails() {
+        repositoryManager.triggerCallbacks();
+
+        when(repository.fetchInstallableApplications()).thenThrow(new IllegalStateException("offline"));
+        repositoryManager.triggerRepositoryChange();
+
+        assertEquals(1, publishedRepositories.size());
+        assertEquals(1, publishedErrors.size());
+        assertEquals("category1",
+                repositoryManager.getCategory(Arrays.asList("type1", "category1")).getId());
+    }
+
+    @Test
+    public void testRefreshIsOnlyPublishedIfRepositoryChanged() {
+        repositoryManager.triggerCallbacks();
+        assertEquals(1, publishedRepositories.size());
+
+        repositoryManager.triggerRepositoryChange();
+        assertEquals(1, publishedRepositories.size());
+
+        when(repository.fetchInstallableApplications()).thenReturn(createRepository("category2"));
+        repositoryManager.triggerRepositoryChange();
+
+        assertEquals(2, publishedRepositories.size());
+        assertEquals("category2", getCategoryId(publishedRepositories.get(1)));
+    }
+
+    @Test
+    public void testRemovingAllRepositoriesPublishesEmptyRepository() {
+        repositoryManager.triggerCallbacks();
+
+        repositoryManager.removeRepositories(repositoryLocation);
+
+        assertEquals(2, publishedRepositories.size());
+        assertTrue(publishedRepositories.get(1).getTypes().isEmpty());
+        assertTrue(publishedErrors.isEmpty());
+    }
+
+    @Test
+    public void testCheckForUpdatesRequestsUpdateBeforeRefresh() {
+        repositoryManager.triggerRepositoryChange();
+        verify(repository, never()).requestUpdate();
+
+        repositoryManager.checkForUpdates();
+
+        final InOrder inOrder = inOrder(repository);
+        inOrder.verify(repository).requestUpdate();
+        inOrder.verify(repository).fetchInstallableApplications();
+    }
+
+    @Test
+    public void testDeltaCallbacksReceiveChanges() {
+        final List<RepositoryDelta> publishedDeltas = new ArrayList<>();
+        repositoryManager.addDeltaCallbacks((repositoryDTO, delta) -> publishedDeltas.add(delta),
+                publishedErrors::add);
+
+        repositoryManager.triggerCallbacks();
+        assertEquals(1, publishedDeltas.size());
+        assertEquals(1, publishedDeltas.get(0).getAddedCategories().size());
+
+        when(repository.fetchInstallableApplications()).thenReturn(createRepository("category2"));
+        repositoryManager.triggerRepositoryChange();
+
+        assertEquals(2, publishedDeltas.size());
+        assertEquals("category2", publishedDeltas.get(1).getAddedCategories().get(0).getId());
+        assertEquals("category1", publishedDeltas.get(1).getRemovedCategories().get(0).getId());
+        assertEquals(1, publishedDeltas.get(1).getChangedTypes().size());
+    }
+
+    @Test
+    public void testRapidChangesAreCoalescedIntoOneRefresh() {
+        final List<Runnable> submittedTasks = new ArrayList<>();
+        final ExecutorService executorService = createQueueingExecutor(submittedTasks);
+
+        final DefaultRepositoryManager coalescingRepositoryManager = new DefaultRepositoryManager(executorService,
+                "cache", null, null, null, null, null, new ContentHashIndex());
+        coalescingRepositoryManager.addCallbacks(publishedRepositories::add, publishedErrors::add);
+        coalescingRepositoryManager.addRepositories(repositoryLocation);
+
+        coalescingRepositoryManager.moveRepository(repositoryLocation, 0);
+        coalescingRepositoryManager.triggerRepositoryChange();
+
+        assertEquals(1, submittedTasks.size());
+        submittedTasks.get(0).run();
+
+        verify(repository, times(1)).fetchInstallableApplications();
+        assertEquals(1, publishedRepositories.size());
+
+        // the refresh has finished, the next change is scheduled again
+        coalescingRepositoryManager.triggerRepositoryChange();
+        assertEquals(2, submittedTasks.size());
+    }
+
+    @Test
+    public void testFetchRepositoryIsCompletedByRefresh() {
+        final List<Runnable> submittedTasks = new ArrayList<>();
+        final DefaultRepositoryManager asyncRepositoryManager = new DefaultRepositoryManager(
+                createQueueingExecutor(submittedTasks), "cache", null, null, null, null, null, new ContentHashIndex());
+        asyncRepositoryManager.addRepositories(repositoryLocation);
+
+        final CompletableFuture<RepositoryDTO> repositoryFuture = asyncRepositoryManager.fetchRepository();
+        final CompletableFuture<String> applicationFuture = asyncRepositoryManager
+                .fetchApplication(Arrays.asList("type1", "category1", "application1"))
+                .thenApply(applicationDTO -> applicationDTO == null ? "missing" : applicationDTO.getId());
+
+        assertEquals(1, submittedTasks.size());
+        assertFalse(repositoryFuture.isDone());
+
+        submittedTasks.get(0).run();
+
+        assertEquals("category1", getCategoryId(repositoryFuture.join()));
+        assertEquals("missing", applicationFuture.join());
+        verify(repository, times(1)).fetchInstallableApplications();
+    }
+
+    @Test
+    public void testFetchRepositoryUsesCurrentRepository() {
+        repositoryManager.triggerCallbacks();
+
+        final CompletableFuture<RepositoryDTO> repositoryFuture = repositoryManager.fetchRepository();
+
+        assertTrue(repositoryFuture.isDone());
+        assertEquals("category1", getCategoryId(repositoryFuture.join()));
+        verify(repository, times(1)).fetchInstallableApplications();
+    }
+
+    @Test
+    public void testFetchRepositoryWithDeadline() throws InterruptedException {
+        final DefaultRepositoryManager asyncRepositoryManager = new DefaultRepositoryManager(
+                createQueueingExecutor(new ArrayList<>()), "cache", null, null, null, null, null,
+                new ContentHashIndex());
+        asyncRepositoryManager.addRepositories(repositoryLocation);
+
+        final CompletableFuture<RepositoryDTO> repositoryFuture = asyncRepositoryManager.fetchRepository()
+                .orTimeout(10, TimeUnit.MILLISECONDS);
+
+        try {
+            repositoryFuture.get();
+            fail("The fetch should have timed out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    @Test
+    public void testCancelledFetchIsNotCompleted() {
+        final List<Runnable> submittedTasks = new ArrayList<>();
+        final DefaultRepositoryManager asyncRepositoryManager = new DefaultRepositoryManager(
+                createQueueingExecutor(submittedTasks), "cache", null, null, null, null, null, new ContentHashIndex());
+        asyncRepositoryManager.addRepositories(repositoryLocation);
+
+        final CompletableFuture<RepositoryDTO> cancelledFuture = asyncRepositoryManager.fetchRepository();
+        final CompletableFuture<RepositoryDTO> repositoryFuture = asyncRepositoryManager.fetchRepository();
+        cancelledFuture.cancel(false);
+
+        submittedTasks.get(0).run();
+
+        assertTrue(cancelledFuture.isCancelled());
+        assertEquals("category1", getCategoryId(repositoryFuture.join()));
+    }
+
+    private ExecutorService createQueueingExecutor(List<Runnable> submittedTasks) {
+        final ExecutorService executorService = mock(ExecutorService.class);
+        when(executorService.submit(any(Runnable.class))).thenAnswer(invocation -> {
+            submittedTasks.add((Runnable) invocation.getArguments()[0]);
+            return null;
+        });
+
+        return executorService;
+    }
+
+    private RepositoryDTO createRepository(String categoryId) {
+        return new RepositoryDTO.Builder().withTypes(Collections.singletonList(new TypeDTO.Builder()
+                .withId("type1")
+                .withCategories(Collections.singletonList(new CategoryDTO.Builder()
+                        .withId(categoryId)
+                        .withName(categoryId)
+                        .build()))
+                .build()))
+                .build();
+    }
+
+    private String getCategoryId(RepositoryDTO repositoryDTO) {
+        return repositoryDTO.getTypes().get(0).getCategories().get(0).getId();
+    }
+}
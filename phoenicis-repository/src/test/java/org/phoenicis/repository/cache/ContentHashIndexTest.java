@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.phoenicis.repository.types.GitBlob;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ContentHashIndexTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private String cacheDirectoryPath;
+    private File miniature;
+
+    @Before
+    public void setUp() throws IOException {
+        cacheDirectoryPath = temporaryFolder.newFolder("cache").getAbsolutePath();
+        miniature = temporaryFolder.newFile("main.png");
+        FileUtils.writeStringToFile(miniature, "miniature", StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testHashIsMd5OfContent() throws IOException {
+        assertEquals(DigestUtils.md5Hex("miniature"), new ContentHashIndex().getHash(miniature.toURI()));
+    }
+
+    @Test
+    public void testSavedHashIsReusedWithoutReadingTheContent() throws IOException {
+        final ContentHashIndex index = new ContentHashIndex(cacheDirectoryPath, new ObjectMapper());
+        index.getHash(miniature.toURI());
+        index.save();
+
+        final String key = miniature.toURI() + ":" + miniature.length() + ":" + miniature.lastModified();
+        final File indexFile = new File(cacheDirectoryPath, "content-hashes.json");
+        FileUtils.writeStringToFile(indexFile, "{\"" + key + "\":\"storedHash\"}", StandardCharsets.UTF_8);
+
+        assertEquals("storedHash",
+                new ContentHashIndex(cacheDirectoryPath, new ObjectMapper()).getHash(miniature.toURI()));
+    }
+
+    @Test
+    public void testChangedFileIsHashedAgain() throws IOException {
+        final ContentHashIndex index = new ContentHashIndex(cacheDirectoryPath, new ObjectMapper());
+        index.getHash(miniature.toURI());
+        index.save();
+
+        FileUtils.writeStringToFile(miniature, "changed miniature", StandardCharsets.UTF_8);
+
+        assertEquals(DigestUtils.md5Hex("changed miniature"),
+                new ContentHashIndex(cacheDirectoryPath, new ObjectMapper()).getHash(miniature.toURI()));
+    }
+
+    @Test
+    public void testUnusedHashesAreKeptBySave() throws IOException {
+        final File otherMiniature = temporaryFolder.newFile("other.png");
+        FileUtils.writeStringToFile(otherMiniature, "other miniature", StandardCharsets.UTF_8);
+
+        final ContentHashIndex index = new ContentHashIndex(cacheDirectoryPath, new ObjectMapper());
+        index.getHash(miniature.toURI());
+        index.getHash(otherMiniature.toURI());
+        index.save();
+
+        // only one of the miniatures is used again, e.g. because the other application has been reused by a merge
+        FileUtils.writeStringToFile(miniature, "changed miniature", StandardCharsets.UTF_8);
+
+        final ContentHashIndex reusedIndex = new ContentHashIndex(cacheDirectoryPath, new ObjectMapper());
+        reusedIndex.getHash(miniature.toURI());
+        reusedIndex.save();
+
+        final Map<String, String> savedHashes = readIndexFile();
+
+        assertEquals(2, savedHashes.size());
+        assertEquals(DigestUtils.md5Hex("changed miniature"), savedHashes.get(createKey(miniature)));
+        assertEquals(DigestUtils.md5Hex("other miniature"), savedHashes.get(createKey(otherMiniature)));
+    }
+
+    @Test
+    public void testHashesOfRemovedFilesAreDroppedBySave() throws IOException {
+        final File otherMiniature = temporaryFolder.newFile("other.png");
+        FileUtils.writeStringToFile(otherMiniature, "other miniature", StandardCharsets.UTF_8);
+
+        final ContentHashIndex index = new ContentHashIndex(cacheDirectoryPath, new ObjectMapper());
+        index.getHash(miniature.toURI());
+        index.getHash(otherMiniature.toURI());
+        index.save();
+
+        assertTrue(otherMiniature.delete());
+        FileUtils.writeStringToFile(miniature, "changed miniature", StandardCharsets.UTF_8);
+
+        final ContentHashIndex reusedIndex = new ContentHashIndex(cacheDirectoryPath, new ObjectMapper());
+        reusedIndex.getHash(miniature.toURI());
+        reusedIndex.save();
+
+        assertEquals(Collections.singleton(createKey(miniature)), readIndexFile().keySet());
+    }
+
+    @Test
+    public void testGitBlobHashIsReusedWithoutReadingTheBlob() throws IOException {
+        final File repositoryFolder = temporaryFolder.newFolder("repository.git");
+
+        final ObjectId blobId;
+        try (Repository repository = FileRepositoryBuilder.create(repositoryFolder)) {
+            repository.create(true);
+
+            try (ObjectInserter inserter = repository.newObjectInserter()) {
+                blobId = inserter.insert(Constants.OBJ_BLOB, "miniature".getBytes(StandardCharsets.UTF_8));
+                inserter.flush();
+            }
+        }
+
+        final URI blobUri = GitBlob.toURI(repositoryFolder, blobId, "main.png");
+
+        final ContentHashIndex index = new ContentHashIndex(cacheDirectoryPath, new ObjectMapper());
+        assertEquals(DigestUtils.md5Hex("miniature"), index.getHash(blobUri));
+        index.save();
+
+        // blobs never change, therefore their location alone is the key
+        assertEquals(Collections.singleton(blobUri.toString()), readIndexFile().keySet());
+
+        final File indexFile = new File(cacheDirectoryPath, "content-hashes.json");
+        FileUtils.writeStringToFile(indexFile, "{\"" + blobUri + "\":\"storedHash\"}", StandardCharsets.UTF_8);
+
+        assertEquals("storedHash", new ContentHashIndex(cacheDirectoryPath, new ObjectMapper()).getHash(blobUri));
+    }
+
+    @Test
+    public void testRemoteContentIsDownloadedOnce() throws IOException {
+        final AtomicInteger downloads = new AtomicInteger();
+        final byte[] content = "remote miniature".getBytes(StandardCharsets.UTF_8);
+
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            downloads.incrementAndGet();
+
+            exchange.sendResponseHeaders(200, content.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(content);
+            }
+        });
+        server.start();
+
+        try {
+            final URI miniatureUri = URI.create(String.format("http://%s:%d/main.png",
+                    server.getAddress().getHostString(), server.getAddress().getPort()));
+
+            final ContentHashIndex index = new ContentHashIndex();
+            assertEquals(DigestUtils.md5Hex(content), index.getHash(miniatureUri));
+            assertEquals(DigestUtils.md5Hex(content), index.getHash(miniatureUri));
+
+            assertEquals(1, downloads.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private String createKey(File file) {
+        return file.toURI() + ":" + file.length() + ":" + file.lastModified();
+    }
+
+    private Map<String, String> readIndexFile() throws IOException {
+        return new ObjectMapper().readValue(new File(cacheDirectoryPath, "content-hashes.json"),
+                new TypeReference<Map<String, String>>() {
+                    // Default
+                });
+    }
+}
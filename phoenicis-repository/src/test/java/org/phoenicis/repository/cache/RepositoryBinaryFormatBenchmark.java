@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.phoenicis.entities.OperatingSystem;
+import org.phoenicis.repository.dto.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares the JSON serialization of a large repository with the {@link RepositoryBinaryFormat}.
+ * This is no unit test, run it manually via its main method, e.g. from the IDE.
+ */
+public class RepositoryBinaryFormatBenchmark {
+    private static final int NUMBER_OF_APPLICATIONS = 5000;
+    private static final int NUMBER_OF_CATEGORIES = 20;
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 20;
+
+    public static void main(String[] args) throws IOException {
+        final RepositoryDTO repositoryDTO = createRepository();
+
+        final ObjectMapper objectMapper = new ObjectMapper();
+        final ObjectWriter jsonWriter = objectMapper.writerFor(RepositoryDTO.class);
+        final ObjectReader jsonReader = objectMapper.readerFor(RepositoryDTO.class);
+
+        final byte[] json = jsonWriter.writeValueAsBytes(repositoryDTO);
+        final byte[] binary = writeBinary(repositoryDTO);
+
+        System.out.printf("Repository with %d applications%n", NUMBER_OF_APPLICATIONS);
+        System.out.printf("JSON size:   %,10d bytes%n", json.length);
+        System.out.printf("Binary size: %,10d bytes%n", binary.length);
+
+        measure("JSON write", () -> jsonWriter.writeValueAsBytes(repositoryDTO));
+        measure("JSON read", () -> jsonReader.readValue(json));
+        measure("Binary write", () -> writeBinary(repositoryDTO));
+        measure("Binary read", () -> RepositoryBinaryFormat.read(new ByteArrayInputStream(binary)));
+    }
+
+    private static void measure(String name, Action action) throws IOException {
+        for (int iteration = 0; iteration < WARMUP_ITERATIONS; iteration++) {
+            action.run();
+        }
+
+        final long start = System.nanoTime();
+        for (int iteration = 0; iteration < MEASURED_ITERATIONS; iteration++) {
+            action.run();
+        }
+        final long duration = System.nanoTime() - start;
+
+        System.out.printf("%-13s %8.2f ms/op%n", name + ":", duration / 1e6 / MEASURED_ITERATIONS);
+    }
+
+    private static byte[] writeBinary(RepositoryDTO repositoryDTO) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        RepositoryBinaryFormat.write(repositoryDTO, outputStream);
+
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Creates a large repository containing a single type with {@link #NUMBER_OF_APPLICATIONS} applications
+     *
+     * @return The created repository
+     */
+    public static RepositoryDTO createRepository() {
+        final List<CategoryDTO> categories = new ArrayList<>();
+
+        for (int categoryIndex = 0; categoryIndex < NUMBER_OF_CATEGORIES; categoryIndex++) {
+            final String categoryId = "category" + categoryIndex;
+            final List<ApplicationDTO> applications = new ArrayList<>();
+
+            for (int applicationIndex = 0; applicationIndex < NUMBER_OF_APPLICATIONS
+                    / NUMBER_OF_CATEGORIES; applicationIndex++) {
+                final String applicationId = categoryId + "application" + applicationIndex;
+                final String applicationPath = "file:/repository/Applications/" + categoryId + "/" + applicationId;
+
+                final ScriptDTO script = new ScriptDTO.Builder()
+                        .withTypeId("Applications")
+                        .withCategoryId(categoryId)
+                        .withApplicationId(applicationId)
+                        .withId("Online")
+                        .withScriptName("Online")
+                        .withScriptSource(URI.create("https://github.com/PhoenicisOrg/scripts"))
+                        .withCompatibleOperatingSystems(Collections.singletonList(OperatingSystem.LINUX))
+                        .withTestingOperatingSystems(Collections.singletonList(OperatingSystem.LINUX))
+                        .withFree(true)
+                        .withRequiresPatch(false)
+                        .withScriptLocation(URI.create(applicationPath + "/Online/script.js"))
+                        .build();
+
+                applications.add(new ApplicationDTO.Builder()
+                        .withTypeId("Applications")
+                        .withCategoryId(categoryId)
+                        .withId(applicationId)
+                        .withName("Application " + applicationIndex)
+                        .withDescription("<p>The description of application " + applicationIndex + "</p>")
+                        .withMiniatures(Collections.singletonList(URI.create(applicationPath + "/miniatures/main.png")))
+                        .withScripts(Collections.singletonList(script))
+                        .build());
+            }
+
+            categories.add(new CategoryDTO.Builder()
+                    .withTypeId("Applications")
+                    .withId(categoryId)
+                    .withName("Category " + categoryIndex)
+                    .withType(CategoryDTO.CategoryType.INSTALLERS)
+                    .withApplications(applications)
+                    .build());
+        }
+
+        return new RepositoryDTO.Builder()
+                .withName("benchmark")
+                .withTypes(Collections.singletonList(new TypeDTO.Builder()
+                        .withId("Applications")
+                        .withName("Applications")
+                        .withCategories(categories)
+                        .build()))
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface Action {
+        void run() throws IOException;
+    }
+}
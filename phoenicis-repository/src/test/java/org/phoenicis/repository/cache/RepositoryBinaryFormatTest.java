@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.phoenicis.entities.OperatingSystem;
+import org.phoenicis.repository.dto.*;
+import org.phoenicis.repository.types.ClasspathRepository;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RepositoryBinaryFormatTest {
+    @Test
+    public void testClasspathRepositoryRoundTrip() throws IOException {
+        final RepositoryDTO repositoryDTO = new ClasspathRepository("/org/phoenicis/repository/repositoryTest",
+                new PathMatchingResourcePatternResolver(), new ObjectMapper()).fetchInstallableApplications();
+
+        assertEquals(repositoryDTO, roundTrip(repositoryDTO));
+    }
+
+    @Test
+    public void testAllFieldsRoundTrip() throws IOException {
+        final ScriptDTO scriptDTO = new ScriptDTO.Builder()
+                .withTypeId("type")
+                .withCategoryId("category")
+                .withApplicationId("application")
+                .withId("script")
+                .withScriptName("Script")
+                .withScriptSource(URI.create("https://example.org/repository.git"))
+                .withCompatibleOperatingSystems(Arrays.asList(OperatingSystem.LINUX, OperatingSystem.MACOSX))
+                .withTestingOperatingSystems(Collections.singletonList(OperatingSystem.LINUX))
+                .withFree(true)
+                .withRequiresPatch(false)
+                .withScript("include(\"engines.wine\"); // é")
+                .withIcon(URI.create("file:/tmp/icon.png"))
+                .build();
+
+        final ApplicationDTO applicationDTO = new ApplicationDTO.Builder()
+                .withTypeId("type")
+                .withCategoryId("category")
+                .withId("application")
+                .withName("Application")
+                .withDescription("Description")
+                .withMiniatures(Collections.singletonList(URI.create("file:/tmp/miniature.png")))
+                .withResources(Collections.singletonList(new ResourceDTO("resource", URI.create("file:/tmp/r"))))
+                .withScripts(Collections.singletonList(scriptDTO))
+                .build();
+
+        final Properties properties = new Properties();
+        properties.setProperty("Application", "Anwendung");
+
+        final RepositoryDTO repositoryDTO = new RepositoryDTO.Builder()
+                .withName("repository")
+                .withTypes(Collections.singletonList(new TypeDTO.Builder()
+                        .withId("type")
+                        .withName("Type")
+                        .withCategories(Collections.singletonList(new CategoryDTO.Builder()
+                                .withTypeId("type")
+                                .withId("category")
+                                .withName("Category")
+                                .withType(CategoryDTO.CategoryType.INSTALLERS)
+                                .withApplications(Collections.singletonList(applicationDTO))
+                                .build()))
+                        .build()))
+                .withTranslations(new TranslationDTO.Builder().withLanguage("de").withProperties(properties).build())
+                .build();
+
+        final RepositoryDTO result = roundTrip(repositoryDTO);
+
+        assertEquals(repositoryDTO, result);
+        assertEquals(properties, result.getTranslations().getProperties());
+    }
+
+    @Test
+    public void testBinaryFormatIsSmallerThanJson() throws IOException {
+        final RepositoryDTO repositoryDTO = new ClasspathRepository("/org/phoenicis/repository/repositoryTest",
+                new PathMatchingResourcePatternResolver(), new ObjectMapper()).fetchInstallableApplications();
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        RepositoryBinaryFormat.write(repositoryDTO, outputStream);
+
+        assertTrue(outputStream.size() < new ObjectMapper().writeValueAsBytes(repositoryDTO).length);
+    }
+
+    @Test(expected = IOException.class)
+    public void testOtherDataIsRejected() throws IOException {
+        RepositoryBinaryFormat.read(new ByteArrayInputStream("{\"name\":\"repository\"}".getBytes()));
+    }
+
+    private RepositoryDTO roundTrip(RepositoryDTO repositoryDTO) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        RepositoryBinaryFormat.write(repositoryDTO, outputStream);
+
+        return RepositoryBinaryFormat.read(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.phoenicis.repository.dto.RepositoryDTO;
+import org.phoenicis.repository.types.ClasspathRepository;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class RepositorySnapshotCacheTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private RepositorySnapshotCache snapshotCache;
+
+    private final RepositoryDTO repositoryDTO = new ClasspathRepository("/org/phoenicis/repository/repositoryTest",
+            new PathMatchingResourcePatternResolver(), new ObjectMapper()).fetchInstallableApplications();
+
+    @Before
+    public void setUp() throws IOException {
+        snapshotCache = new RepositorySnapshotCache(temporaryFolder.newFolder().getAbsolutePath());
+    }
+
+    @Test
+    public void testStoredSnapshotIsEqualToRepository() {
+        snapshotCache.store("repository", "fingerprint", repositoryDTO);
+
+        assertEquals(repositoryDTO, snapshotCache.load("repository", "fingerprint").orElse(null));
+    }
+
+    @Test
+    public void testSnapshotWithDifferentFingerprintIsIgnored() {
+        snapshotCache.store("repository", "fingerprint", repositoryDTO);
+
+        assertFalse(snapshotCache.load("repository", "otherFingerprint").isPresent());
+        assertFalse(snapshotCache.load("otherRepository", "fingerprint").isPresent());
+    }
+
+    @Test
+    public void testDeletedSnapshotIsIgnored() {
+        snapshotCache.store("repository", "fingerprint", repositoryDTO);
+        snapshotCache.delete("repository");
+
+        assertFalse(snapshotCache.load("repository", "fingerprint").isPresent());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFetchOnlyReadsRepositoryWhenFingerprintChanges() {
+        final Supplier<RepositoryDTO> fetcher = mock(Supplier.class);
+        when(fetcher.get()).thenReturn(repositoryDTO);
+
+        snapshotCache.fetch("repository", "fingerprint", fetcher);
+        snapshotCache.fetch("repository", "fingerprint", fetcher);
+        verify(fetcher, times(1)).get();
+
+        snapshotCache.fetch("repository", "otherFingerprint", fetcher);
+        verify(fetcher, times(2)).get();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.dto;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class RepositoryDeltaTest {
+    private final ScriptDTO script1 = createScript("script1", "Script 1");
+    private final ScriptDTO script2 = createScript("script2", "Script 2");
+
+    @Test
+    public void testEqualRepositoriesHaveEmptyDelta() {
+        final RepositoryDelta delta = RepositoryDelta.between(createRepository(script1, script2),
+                createRepository(script1, script2));
+
+        assertTrue(delta.isEmpty());
+        assertFalse(delta.affectsType("type1"));
+    }
+
+    @Test
+    public void testFirstRepositoryIsAdded() {
+        final RepositoryDelta delta = RepositoryDelta.between(null, createRepository(script1));
+
+        assertEquals(1, delta.getAddedTypes().size());
+        assertEquals(1, delta.getAddedCategories().size());
+        assertEquals(1, delta.getAddedApplications().size());
+        assertEquals(Collections.singletonList(script1), delta.getAddedScripts());
+        assertTrue(delta.getRemovedTypes().isEmpty());
+        assertTrue(delta.getChangedTypes().isEmpty());
+    }
+
+    @Test
+    public void testChangedScriptChangesItsParents() {
+        final ScriptDTO changedScript1 = createScript("script1", "Changed script 1");
+
+        final RepositoryDelta delta = RepositoryDelta.between(createRepository(script1, script2),
+                createRepository(changedScript1, script2));
+
+        assertEquals(Collections.singletonList(changedScript1), delta.getChangedScripts());
+        assertEquals(1, delta.getChangedApplications().size());
+        assertEquals(1, delta.getChangedCategories().size());
+        assertEquals(1, delta.getChangedTypes().size());
+        assertTrue(delta.getAddedScripts().isEmpty());
+        assertTrue(delta.getRemovedScripts().isEmpty());
+        assertTrue(delta.affectsType("type1"));
+        assertFalse(delta.affectsType("type2"));
+    }
+
+    @Test
+    public void testAddedAndRemovedScripts() {
+        final RepositoryDelta delta = RepositoryDelta.between(createRepository(script1),
+                createRepository(script2));
+
+        assertEquals(Collections.singletonList(script2), delta.getAddedScripts());
+        assertEquals(Collections.singletonList(script1), delta.getRemovedScripts());
+        assertTrue(delta.getChangedScripts().isEmpty());
+        assertEquals(1, delta.getChangedApplications().size());
+    }
+
+    @Test
+    public void testRemovedTypeContainsAllEntries() {
+        final RepositoryDelta delta = RepositoryDelta.between(createRepository(script1, script2),
+                new RepositoryDTO.Builder().build());
+
+        assertEquals(1, delta.getRemovedTypes().size());
+        assertEquals(1, delta.getRemovedCategories().size());
+        assertEquals(1, delta.getRemovedApplications().size());
+        assertEquals(Arrays.asList(script1, script2), delta.getRemovedScripts());
+        assertTrue(delta.getAddedTypes().isEmpty());
+    }
+
+    private ScriptDTO createScript(String id, String name) {
+        return new ScriptDTO.Builder()
+                .withTypeId("type1")
+                .withCategoryId("category1")
+                .withApplicationId("application1")
+                .withId(id)
+                .withScriptName(name)
+                .build();
+    }
+
+    private RepositoryDTO createRepository(ScriptDTO... scripts) {
+        return new RepositoryDTO.Builder().withTypes(Collections.singletonList(new TypeDTO.Builder()
+                .withId("type1")
+                .withCategories(Collections.singletonList(new CategoryDTO.Builder()
+                        .withTypeId("type1")
+                        .withId("category1")
+                        .withApplications(Collections.singletonList(new ApplicationDTO.Builder()
+                                .withTypeId("type1")
+                                .withCategoryId("category1")
+                                .withId("application1")
+                                .withScripts(Arrays.asList(scripts))
+                                .build()))
+                        .build()))
+                .build()))
+                .build();
+    }
+}
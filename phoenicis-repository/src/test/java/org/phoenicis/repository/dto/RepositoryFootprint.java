@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.dto;
+
+import java.lang.ref.Reference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An estimate of the heap memory retained by one or more repository trees.
+ * <p>
+ * All objects reachable from the given repositories are visited once, i.e. objects shared between multiple trees, like
+ * interned ids or subtrees reused by a merge, are only counted once. The size of every object is estimated for a 64 bit
+ * JVM using compressed references: a 12 byte object header, 4 bytes per reference and a padding to 8 bytes. The
+ * internals of JDK classes, like strings, URIs and collections, are estimated from their content.
+ * <p>
+ * The estimate walks the whole tree using reflection, it is only meant to be used by tests and benchmarks.
+ */
+public final class RepositoryFootprint {
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    // the estimated size of an entry of a hash based collection
+    private static final int HASH_ENTRY = 32;
+
+    private final long bytes;
+    private final long numberOfObjects;
+    private final int numberOfApplications;
+
+    private RepositoryFootprint(long bytes, long numberOfObjects, int numberOfApplications) {
+        this.bytes = bytes;
+        this.numberOfObjects = numberOfObjects;
+        this.numberOfApplications = numberOfApplications;
+    }
+
+    /**
+     * Estimates the heap memory retained by the given repositories together
+     *
+     * @param repositories The repositories
+     * @return The footprint of the repositories
+     */
+    public static RepositoryFootprint of(RepositoryDTO... repositories) {
+        return measure(Arrays.asList(repositories), Collections.emptyList());
+    }
+
+    /**
+     * Estimates the heap memory retained by the given repository together with everything strongly reachable from
+     * the given owners, e.g. the repository which produced the repository and the caches it keeps
+     *
+     * @param repository The repository
+     * @param owners The owners of the repository
+     * @return The footprint of the repository and its owners
+     */
+    public static RepositoryFootprint retainedBy(RepositoryDTO repository, Object... owners) {
+        return measure(Collections.singletonList(repository), Arrays.asList(owners));
+    }
+
+    private static RepositoryFootprint measure(List<RepositoryDTO> repositories, List<Object> owners) {
+        final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Deque<Object> pending = new ArrayDeque<>();
+
+        final Set<String> applications = new HashSet<>();
+        for (RepositoryDTO repository : repositories) {
+            if (repository != null) {
+                pending.push(repository);
+
+                repository.getTypes().stream()
+                        .flatMap(type -> type.getCategories().stream())
+                        .flatMap(category -> category.getApplications().stream())
+                        .forEach(application -> applications.add(String.join("/", application.getTypeId(),
+                                application.getCategoryId(), application.getId())));
+            }
+        }
+        owners.forEach(owner -> push(owner, pending));
+
+        long bytes = 0;
+        while (!pending.isEmpty()) {
+            final Object object = pending.pop();
+
+            if (visited.add(object)) {
+                bytes += estimate(object, pending);
+            }
+        }
+
+        return new RepositoryFootprint(bytes, visited.size(), applications.size());
+    }
+
+    /**
+     * Estimates the size of the given object and adds the objects referenced by it to the pending objects
+     *
+     * @param object The object
+     * @param pending The objects still to be visited
+     * @return The estimated size in bytes
+     */
+    private static long estimate(Object object, Deque<Object> pending) {
+        // constants shared by the whole application
+        if (object instanceof Enum || object instanceof Boolean || object instanceof Class) {
+            return 0;
+        }
+
+        if (object instanceof String) {
+            return estimateString((String) object);
+        }
+
+        if (object instanceof URI) {
+            // a parsed URI keeps its complete string as well as its components
+            return shallowSize(URI.class) + 2 * estimateString(object.toString());
+        }
+
+        if (object instanceof Collection) {
+            final Collection<?> collection = (Collection<?>) object;
+            collection.forEach(element -> push(element, pending));
+
+            return shallowSize(object.getClass()) + align(ARRAY_HEADER + (long) REFERENCE * collection.size())
+                    + (object instanceof Set ? (long) HASH_ENTRY * collection.size() : 0);
+        }
+
+        if (object instanceof Map) {
+            final Map<?, ?> map = (Map<?, ?>) object;
+            map.forEach((key, value) -> {
+                push(key, pending);
+                push(value, pending);
+            });
+
+            return shallowSize(object.getClass()) + align(ARRAY_HEADER + (long) REFERENCE * map.size())
+                    + (long) HASH_ENTRY * map.size();
+        }
+
+        if (object.getClass().isArray()) {
+            final Class<?> componentType = object.getClass().getComponentType();
+            final int length = Array.getLength(object);
+
+            if (!componentType.isPrimitive()) {
+                for (int index = 0; index < length; index++) {
+                    push(Array.get(object, index), pending);
+                }
+            }
+
+            return align(ARRAY_HEADER + (long) fieldSize(componentType) * length);
+        }
+
+        if (object instanceof AtomicReferenceArray) {
+            final AtomicReferenceArray<?> array = (AtomicReferenceArray<?>) object;
+            for (int index = 0; index < array.length(); index++) {
+                push(array.get(index), pending);
+            }
+
+            return shallowSize(object.getClass()) + align(ARRAY_HEADER + (long) REFERENCE * array.length());
+        }
+
+        if (object.getClass().getName().startsWith("java.")) {
+            return shallowSize(object.getClass());
+        }
+
+        // weak and soft references, e.g. the entries of caches with weak keys, don't retain their referents
+        Class<?> clazz = object.getClass();
+        for (; clazz != null && clazz != Reference.class; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+                    try {
+                        field.setAccessible(true);
+                        push(field.get(object), pending);
+                    } catch (ReflectiveOperationException | RuntimeException e) {
+                        // the referenced object can't be reached and is therefore not counted
+                    }
+                }
+            }
+        }
+
+        return shallowSize(object.getClass());
+    }
+
+    private static void push(Object object, Deque<Object> pending) {
+        if (object != null) {
+            pending.push(object);
+        }
+    }
+
+    private static long estimateString(String string) {
+        final boolean latin1 = string.chars().allMatch(character -> character < 256);
+
+        return shallowSize(String.class) + align(ARRAY_HEADER + (long) string.length() * (latin1 ? 1 : 2));
+    }
+
+    private static long shallowSize(Class<?> type) {
+        long size = OBJECT_HEADER;
+
+        for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    size += fieldSize(field.getType());
+                }
+            }
+        }
+
+        return align(size);
+    }
+
+    private static int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+
+        return REFERENCE;
+    }
+
+    private static long align(long size) {
+        return (size + 7) / 8 * 8;
+    }
+
+    /**
+     * Returns the estimated number of bytes retained by the repositories
+     *
+     * @return The estimated number of bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of distinct objects retained by the repositories
+     *
+     * @return The number of objects
+     */
+    public long getNumberOfObjects() {
+        return numberOfObjects;
+    }
+
+    /**
+     * Returns the number of distinct applications, applications with the same type, category and id are counted once
+     *
+     * @return The number of applications
+     */
+    public int getNumberOfApplications() {
+        return numberOfApplications;
+    }
+
+    /**
+     * Returns the estimated number of bytes per application
+     *
+     * @return The estimated number of bytes per application or 0 if the repositories contain no applications
+     */
+    public long getBytesPerApplication() {
+        return numberOfApplications == 0 ? 0 : bytes / numberOfApplications;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d bytes in %,d objects for %,d applications (%,d bytes per application)", bytes,
+                numberOfObjects, numberOfApplications, getBytesPerApplication());
+    }
+}
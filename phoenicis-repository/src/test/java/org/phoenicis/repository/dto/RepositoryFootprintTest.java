@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.phoenicis.repository.dto;
+
+import org.junit.Test;
+import org.phoenicis.entities.OperatingSystem;
+
+import java.lang.ref.WeakReference;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RepositoryFootprintTest {
+    private static final int NUMBER_OF_APPLICATIONS = 300;
+
+    @Test
+    public void testRepeatedValuesAreShared() {
+        final ScriptDTO script1 = createScript(1);
+        final ScriptDTO script2 = createScript(2);
+
+        assertSame(script1.getTypeId(), script2.getTypeId());
+        assertSame(script1.getCategoryId(), script2.getCategoryId());
+        assertSame(script1.getScriptName(), script2.getScriptName());
+        assertSame(script1.getScriptSource(), script2.getScriptSource());
+        assertSame(script1.getCompatibleOperatingSystems(), script2.getCompatibleOperatingSystems());
+        assertEquals(Arrays.asList(OperatingSystem.LINUX, OperatingSystem.MACOSX),
+                script1.getCompatibleOperatingSystems());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSharedOperatingSystemsAreImmutable() {
+        createScript(1).getCompatibleOperatingSystems().add(OperatingSystem.LINUX);
+    }
+
+    @Test
+    public void testSharedObjectsAreCountedOnce() {
+        final RepositoryDTO repository = createRepository();
+
+        final RepositoryFootprint footprint = RepositoryFootprint.of(repository);
+        final RepositoryFootprint doubleFootprint = RepositoryFootprint.of(repository, repository);
+
+        assertEquals(NUMBER_OF_APPLICATIONS, footprint.getNumberOfApplications());
+        assertEquals(footprint.getBytes(), doubleFootprint.getBytes());
+        assertEquals(footprint.getNumberOfApplications(), doubleFootprint.getNumberOfApplications());
+    }
+
+    @Test
+    public void testCopiesAreCounted() {
+        final RepositoryFootprint footprint = RepositoryFootprint.of(createRepository());
+        final RepositoryFootprint copiesFootprint = RepositoryFootprint.of(createRepository(), createRepository());
+
+        assertEquals(NUMBER_OF_APPLICATIONS, copiesFootprint.getNumberOfApplications());
+        assertTrue(copiesFootprint.getBytes() > footprint.getBytes());
+        // the repeated values are shared between both copies
+        assertTrue(copiesFootprint.getBytes() < 2 * footprint.getBytes());
+    }
+
+    @Test
+    public void testWeakReferencesAreNotCounted() {
+        final RepositoryDTO repository = createRepository();
+        final RepositoryDTO otherRepository = createRepository();
+
+        // a subclass, like the entries of the caches with weak keys
+        final WeakReference<RepositoryDTO> reference = new WeakReference<RepositoryDTO>(otherRepository) {
+        };
+
+        final RepositoryFootprint footprint = RepositoryFootprint.of(repository);
+        final RepositoryFootprint strongFootprint = RepositoryFootprint.retainedBy(repository, otherRepository);
+        final RepositoryFootprint weakFootprint = RepositoryFootprint.retainedBy(repository, reference);
+
+        assertTrue(strongFootprint.getBytes() > footprint.getBytes() + 1000);
+        assertTrue(weakFootprint.getBytes() < footprint.getBytes() + 100);
+    }
+
+    @Test
+    public void testBytesPerApplication() {
+        final RepositoryFootprint footprint = RepositoryFootprint.of(createRepository());
+
+        assertTrue(footprint.toString(), footprint.getBytesPerApplication() > 0);
+        assertTrue(footprint.toString(), footprint.getBytesPerApplication() < 1500);
+    }
+
+    private RepositoryDTO createRepository() {
+        final List<ApplicationDTO> applications = new ArrayList<>();
+        for (int index = 0; index < NUMBER_OF_APPLICATIONS; index++) {
+            applications.add(new ApplicationDTO.Builder()
+                    .withTypeId(new String("Applications"))
+                    .withCategoryId(new String("Games"))
+                    .withId("application" + index)
+                    .withName("Application " + index)
+                    .withScripts(Collections.singletonList(createScript(index)))
+                    .build());
+        }
+
+        return new RepositoryDTO.Builder()
+                .withName("repository")
+                .withTypes(Collections.singletonList(new TypeDTO.Builder()
+                        .withId("Applications")
+                        .withCategories(Collections.singletonList(new CategoryDTO.Builder()
+                                .withTypeId("Applications")
+                                .withId("Games")
+                                .withApplications(applications)
+                                .build()))
+                        .build()))
+                .build();
+    }
+
+    private ScriptDTO createScript(int index) {
+        return new ScriptDTO.Builder()
+                .withTypeId(new String("Applications"))
+                .withCategoryId(new String("Games"))
+                .withApplicationId("application" + index)
+                .withId(new String("Online"))
+                .withScriptSource(URI.create("https://github.com/PhoenicisOrg/scripts"))
+                .withCompatibleOperatingSystems(
+                        new ArrayList<>(Arrays.asList(OperatingSystem.LINUX, OperatingSystem.MACOSX)))
+                .withScriptLocation(URI.create("file:/repository/application" + index + "/Online/script.js"))
+                .build();
+    }
+}
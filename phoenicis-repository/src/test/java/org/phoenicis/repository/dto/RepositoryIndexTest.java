@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.phoenicis.repository.types.ClasspathRepository;
+import org.phoenicis.repository.types.Repository;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class RepositoryIndexTest {
+    private final Repository repository = new ClasspathRepository("/org/phoenicis/repository/repositoryTest",
+            new PathMatchingResourcePatternResolver(), new ObjectMapper());
+
+    private final RepositoryDTO repositoryDTO = repository.fetchInstallableApplications();
+
+    private final TypeDTO type = repositoryDTO.getTypes().get(0);
+    private final CategoryDTO category = type.getCategories().get(1);
+    private final ApplicationDTO application = category.getApplications().get(0);
+    private final ScriptDTO script = application.getScripts().get(0);
+
+    @Test
+    public void testIndexIsBuiltOncePerRepository() {
+        assertSame(RepositoryIndex.of(repositoryDTO), RepositoryIndex.of(repositoryDTO));
+    }
+
+    @Test
+    public void testLookupByPath() {
+        final RepositoryIndex index = RepositoryIndex.of(repositoryDTO);
+
+        assertSame(type, index.getType(type.getId()));
+        assertSame(category, index.getCategory(type.getId(), category.getId()));
+        assertSame(application, index.getApplication(type.getId(), category.getId(), application.getId()));
+        assertSame(script, index.getScript(type.getId(), category.getId(), application.getId(), script.getId()));
+    }
+
+    @Test
+    public void testLookupByScriptId() {
+        assertSame(script, RepositoryIndex.of(repositoryDTO).getScript(script.getId()));
+    }
+
+    @Test
+    public void testMissingEntriesAreNull() {
+        final RepositoryIndex index = RepositoryIndex.of(repositoryDTO);
+
+        assertNull(index.getType("unknown"));
+        assertNull(index.getCategory(type.getId(), "unknown"));
+        assertNull(index.getScript("unknown"));
+    }
+
+    @Test
+    public void testRepositoryLookupsUseIndex() {
+        assertEquals(script, repository.getScript(
+                Arrays.asList(type.getId(), category.getId(), application.getId(), script.getId())));
+        assertEquals(script, repository.getScript(script.getId()));
+        assertNull(repository.getApplication(Arrays.asList(type.getId(), "unknown", application.getId())));
+    }
+}
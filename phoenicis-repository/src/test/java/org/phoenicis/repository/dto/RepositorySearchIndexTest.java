@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.dto;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RepositorySearchIndexTest {
+    private final ApplicationDTO photofiltre = createApplication("photofiltre", "PhotoFiltre",
+            "<p>A free image retouching program</p>", "Online");
+    private final ApplicationDTO gimp = createApplication("gimp", "GIMP", "<p>GNU Image Manipulation Program</p>",
+            "Online");
+    private final ApplicationDTO steam = createApplication("steam", "Steam", "<p>Digital distribution platform</p>",
+            "Online installer");
+
+    private final RepositoryDTO repositoryDTO = new RepositoryDTO.Builder()
+            .withTypes(Collections.singletonList(new TypeDTO.Builder()
+                    .withId("applications")
+                    .withCategories(Arrays.asList(
+                            new CategoryDTO.Builder()
+                                    .withId("graphics")
+                                    .withName("Graphics")
+                                    .withApplications(Arrays.asList(photofiltre, gimp))
+                                    .build(),
+                            new CategoryDTO.Builder()
+                                    .withId("games")
+                                    .withName("Games")
+                                    .withApplications(Collections.singletonList(steam))
+                                    .build()))
+                    .build()))
+            .build();
+
+    private final RepositorySearchIndex searchIndex = RepositorySearchIndex.of(repositoryDTO);
+
+    @Test
+    public void testIndexIsBuiltOncePerRepository() {
+        assertSame(searchIndex, RepositorySearchIndex.of(repositoryDTO));
+    }
+
+    @Test
+    public void testNameContainingSearchTermHasMaximumScore() {
+        final List<RepositorySearchIndex.Result> results = searchIndex.search("Filtre");
+
+        assertSame(photofiltre, results.get(0).getApplication());
+        assertEquals(100, results.get(0).getScore(), 0.001);
+        assertEquals(100, searchIndex.getScore(photofiltre, "photo"), 0.001);
+    }
+
+    @Test
+    public void testRelevanceDoesNotDependOnMatchedField() {
+        assertEquals(100, searchIndex.getRelevance(photofiltre, "retouching"), 0.001);
+        assertEquals(100, searchIndex.getRelevance(steam, "games"), 0.001);
+        assertTrue(searchIndex.getScore(photofiltre, "retouching") < 100);
+    }
+
+    @Test
+    public void testMisspelledSearchTermIsFound() {
+        final List<RepositorySearchIndex.Result> results = searchIndex.search("photofilter");
+
+        assertSame(photofiltre, results.get(0).getApplication());
+        assertTrue(results.get(0).getScore() < 100);
+        assertTrue(results.get(0).getScore() > 50);
+    }
+
+    @Test
+    public void testNameMatchesRankAboveDescriptionMatches() {
+        final List<RepositorySearchIndex.Result> results = searchIndex.search("image");
+
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(result -> result.getScore() < 100));
+
+        assertSame(gimp, searchIndex.search("gimp").get(0).getApplication());
+        assertTrue(searchIndex.getScore(gimp, "gimp") > searchIndex.getScore(gimp, "manipulation"));
+    }
+
+    @Test
+    public void testCategoryAndScriptNamesAreSearched() {
+        assertTrue(searchIndex.getScore(steam, "games") > 0);
+        assertTrue(searchIndex.getScore(steam, "installer") > 0);
+        assertEquals(0, searchIndex.getScore(photofiltre, "installer"), 0.001);
+    }
+
+    @Test
+    public void testShortAndEmptySearchTerms() {
+        assertEquals(100, searchIndex.getScore(gimp, "g"), 0.001);
+        assertTrue(searchIndex.search("").isEmpty());
+        assertTrue(searchIndex.search("xyz").isEmpty());
+    }
+
+    private ApplicationDTO createApplication(String id, String name, String description, String scriptName) {
+        return new ApplicationDTO.Builder()
+                .withId(id)
+                .withName(name)
+                .withDescription(description)
+                .withScripts(Collections.singletonList(new ScriptDTO.Builder()
+                        .withId(id + "." + scriptName)
+                        .withScriptName(scriptName)
+                        .build()))
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.phoenicis.repository.dto;
+
+import org.phoenicis.configuration.localisation.Localisation;
+import org.phoenicis.repository.cache.RepositoryBinaryFormatBenchmark;
+
+import java.util.Collections;
+import java.util.Properties;
+
+/**
+ * Measures the translation of a large repository via {@link Localisation#tr(Object)}, once without any matching
+ * translations and once with a translation for every application name.
+ * This is no unit test, run it manually via its main method, e.g. from the IDE.
+ */
+public class RepositoryTranslationBenchmark {
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 20;
+
+    public static void main(String[] args) {
+        final RepositoryDTO repositoryDTO = RepositoryBinaryFormatBenchmark.createRepository();
+
+        measure("Untranslated", () -> Localisation.tr(repositoryDTO));
+
+        final Properties translations = new Properties();
+        repositoryDTO.getTypes().stream()
+                .flatMap(type -> type.getCategories().stream())
+                .flatMap(category -> category.getApplications().stream())
+                .forEach(application -> translations.setProperty(application.getName(),
+                        "Translated " + application.getName()));
+
+        TranslationCatalog.of(Collections.singletonList(new TranslationDTO.Builder()
+                .withLanguage("benchmark")
+                .withProperties(translations)
+                .build())).activate();
+
+        measure("Translated", () -> Localisation.tr(repositoryDTO));
+    }
+
+    private static void measure(String name, Runnable action) {
+        for (int iteration = 0; iteration < WARMUP_ITERATIONS; iteration++) {
+            action.run();
+        }
+
+        final long start = System.nanoTime();
+        for (int iteration = 0; iteration < MEASURED_ITERATIONS; iteration++) {
+            action.run();
+        }
+        final long duration = System.nanoTime() - start;
+
+        System.out.printf("%-13s %8.2f ms/op%n", name + ":", duration / 1e6 / MEASURED_ITERATIONS);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.phoenicis.repository.dto;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class TranslationCatalogTest {
+    @Test
+    public void testSameTranslationsReuseCatalog() {
+        final TranslationDTO translations = createTranslations("key", "value");
+
+        final TranslationCatalog catalog = TranslationCatalog.of(Collections.singletonList(translations));
+
+        assertSame(catalog, TranslationCatalog.of(Collections.singletonList(translations)));
+    }
+
+    @Test
+    public void testChangedTranslationsCreateNewCatalog() {
+        final TranslationCatalog catalog = TranslationCatalog
+                .of(Collections.singletonList(createTranslations("key", "value")));
+
+        assertNotSame(catalog, TranslationCatalog.of(Collections.singletonList(createTranslations("key", "value"))));
+    }
+
+    @Test
+    public void testLaterTranslationsOverrideEarlierTranslations() {
+        final TranslationCatalog catalog = TranslationCatalog.of(Arrays.asList(
+                createTranslations("key", "first"), null, createTranslations("key", "second")));
+
+        assertEquals("second", catalog.getTranslations().getProperties().getProperty("key"));
+    }
+
+    private TranslationDTO createTranslations(String key, String value) {
+        final Properties properties = new Properties();
+        properties.setProperty(key, value);
+
+        return new TranslationDTO.Builder().withLanguage("en").withProperties(properties).build();
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.types;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.phoenicis.repository.RepositoryException;
+import org.phoenicis.repository.cache.RepositorySnapshotCache;
+import org.phoenicis.repository.dto.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class ArchiveRepositoryTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private File repositoryDirectory;
+    private ArchiveRepository.Factory archiveRepositoryFactory;
+
+    @Before
+    public void setUp() throws IOException, URISyntaxException {
+        repositoryDirectory = new File(getClass().getResource("/org/phoenicis/repository/repositoryTest").toURI());
+
+        archiveRepositoryFactory = new ArchiveRepository.Factory(objectMapper,
+                new RepositorySnapshotCache(temporaryFolder.newFolder("cache").getAbsolutePath()));
+    }
+
+    @Test
+    public void fetchInstallableApplicationsReadsArchive() throws IOException {
+        final RepositoryDTO repositoryDTO = archiveRepositoryFactory.createInstance(createArchive(""))
+                .fetchInstallableApplications();
+
+        assertEquals(2, repositoryDTO.getTypes().get(0).getCategories().size());
+        assertEquals("Development", repositoryDTO.getTypes().get(0).getCategories().get(0).getName());
+        assertEquals("Graphics", repositoryDTO.getTypes().get(0).getCategories().get(1).getName());
+    }
+
+    @Test
+    public void fetchInstallableApplicationsSkipsTopLevelDirectory() throws IOException {
+        final RepositoryDTO repositoryDTO = archiveRepositoryFactory.createInstance(createArchive("scripts-master/"))
+                .fetchInstallableApplications();
+
+        assertEquals(2, repositoryDTO.getTypes().get(0).getCategories().size());
+    }
+
+    @Test
+    public void fetchInstallableApplicationsLoadsContentFromArchive() throws IOException {
+        final RepositoryDTO repositoryDTO = archiveRepositoryFactory.createInstance(createArchive(""))
+                .fetchInstallableApplications();
+
+        final ApplicationDTO application = getApplication(repositoryDTO, 1);
+        final ScriptDTO script = application.getScripts().get(0);
+
+        assertEquals("jar", script.getScriptLocation().getScheme());
+        assertEquals(FileUtils.readFileToString(
+                new File(repositoryDirectory, "Applications/Graphics/Photofiltre/Online/script.js"),
+                StandardCharsets.UTF_8), script.getScript());
+        assertArrayEquals(FileUtils.readFileToByteArray(
+                new File(repositoryDirectory, "Applications/Graphics/Photofiltre/miniatures/main.png")),
+                ContentLoader.load(application.getMiniatures().get(0)));
+    }
+
+    @Test
+    public void fetchInstallableApplicationsFromSnapshot() throws IOException {
+        final File archive = createArchive("");
+
+        assertEquals(archiveRepositoryFactory.createInstance(archive).fetchInstallableApplications(),
+                archiveRepositoryFactory.createInstance(archive).fetchInstallableApplications());
+    }
+
+    @Test
+    public void fetchInstallableApplicationsReadsIndex() throws IOException {
+        final File archive = temporaryFolder.newFile("index.zip");
+
+        final RepositoryDTO indexedRepositoryDTO = new RepositoryDTO.Builder()
+                .withName("index")
+                .withTypes(Collections.singletonList(new TypeDTO.Builder()
+                        .withId("Applications")
+                        .withCategories(Collections.singletonList(new CategoryDTO.Builder()
+                                .withTypeId("Applications")
+                                .withId("category1")
+                                .withApplications(Collections.singletonList(new ApplicationDTO.Builder()
+                                        .withTypeId("Applications")
+                                        .withCategoryId("category1")
+                                        .withId("application1")
+                                        .withScripts(Collections.singletonList(new ScriptDTO.Builder()
+                                                .withTypeId("Applications")
+                                                .withCategoryId("category1")
+                                                .withApplicationId("application1")
+                                                .withId("script1")
+                                                .withScriptLocation(URI.create("application%201/script.js"))
+                                                .build()))
+                                        .build()))
+                                .build()))
+                        .build()))
+                .build();
+
+        try (ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(archive))) {
+            outputStream.putNextEntry(new ZipEntry("repository/" + ClasspathRepositoryIndex.INDEX_FILE_NAME));
+            outputStream.write(objectMapper.writeValueAsBytes(indexedRepositoryDTO));
+            outputStream.putNextEntry(new ZipEntry("repository/application 1/script.js"));
+            outputStream.write("// indexed script".getBytes(StandardCharsets.UTF_8));
+        }
+
+        final RepositoryDTO repositoryDTO = archiveRepositoryFactory.createInstance(archive)
+                .fetchInstallableApplications();
+
+        assertEquals("// indexed script", repositoryDTO.getTypes().get(0).getCategories().get(0).getApplications()
+                .get(0).getScripts().get(0).getScript());
+    }
+
+    @Test
+    public void fetchInstallableApplicationsReadsReplacedArchive() throws IOException {
+        final File archive = createArchive("");
+        final ArchiveRepository repository = archiveRepositoryFactory.createInstance(archive);
+
+        final ScriptDTO script = getApplication(repository.fetchInstallableApplications(), 1).getScripts().get(0);
+        final String oldScript = script.getScript();
+
+        // replace the archive with an archive containing a changed script at the same location
+        final File replacement = temporaryFolder.newFile("replacement.zip");
+        try (ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(replacement))) {
+            for (File file : FileUtils.listFiles(repositoryDirectory, null, true)) {
+                final String path = repositoryDirectory.toURI().relativize(file.toURI()).getPath();
+
+                outputStream.putNextEntry(new ZipEntry(path));
+                if (path.equals("Applications/Graphics/Photofiltre/Online/script.js")) {
+                    outputStream.write("// replaced script".getBytes(StandardCharsets.UTF_8));
+                } else {
+                    FileUtils.copyFile(file, outputStream);
+                }
+            }
+        }
+        assertTrue(replacement.setLastModified(archive.lastModified() + 2000));
+        Files.move(replacement.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        final ScriptDTO replacedScript = getApplication(repository.fetchInstallableApplications(), 1).getScripts()
+                .get(0);
+
+        assertEquals(script.getScriptLocation(), replacedScript.getScriptLocation());
+        assertNotEquals("// replaced script", oldScript);
+        assertEquals("// replaced script", replacedScript.getScript());
+    }
+
+    @Test(expected = RepositoryException.class)
+    public void fetchInstallableApplicationsFailsForMissingArchive() {
+        archiveRepositoryFactory.createInstance(new File(temporaryFolder.getRoot(), "missing.zip"))
+                .fetchInstallableApplications();
+    }
+
+    /**
+     * Packs the test repository into a new archive
+     *
+     * @param prefix The directory prefix of all entries inside the archive
+     * @return The archive
+     */
+    private File createArchive(String prefix) throws IOException {
+        final File archive = new File(temporaryFolder.getRoot(), "repository" + prefix.hashCode() + ".zip");
+
+        try (ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(archive))) {
+            for (File file : FileUtils.listFiles(repositoryDirectory, null, true)) {
+                final String path = repositoryDirectory.toURI().relativize(file.toURI()).getPath();
+
+                outputStream.putNextEntry(new ZipEntry(prefix + path));
+                FileUtils.copyFile(file, outputStream);
+            }
+        }
+
+        return archive;
+    }
+
+    private ApplicationDTO getApplication(RepositoryDTO repositoryDTO, int categoryIndex) {
+        return repositoryDTO.getTypes().get(0).getCategories().get(categoryIndex).getApplications().get(0);
+    }
+}
@@ -21,12 +21,18 @@ package org.phoenicis.repository.types;
 import org.junit.Test;
 import org.phoenicis.repository.dto.CategoryDTO;
 import org.phoenicis.repository.dto.RepositoryDTO;
+import org.phoenicis.repository.dto.RepositoryIndex;
 import org.phoenicis.repository.dto.TypeDTO;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 public class CachedRepositoryTest {
@@ -59,4 +65,124 @@ public class CachedRepositoryTest {
         verify(repository, times(1)).fetchInstallableApplications();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testStaleRepositoryIsUsedForLookupsUntilRefreshed() {
+        final RepositoryDTO oldRepositoryDTO = new RepositoryDTO.Builder().withName("old").build();
+        final RepositoryDTO newRepositoryDTO = new RepositoryDTO.Builder().withName("new").build();
+
+        final Repository repository = mock(Repository.class);
+        when(repository.fetchInstallableApplications()).thenReturn(oldRepositoryDTO, newRepositoryDTO);
+
+        final CachedRepository cachedRepository = new CachedRepository(repository);
+        cachedRepository.fetchInstallableApplications();
+        cachedRepository.invalidate();
+
+        assertSame(oldRepositoryDTO, cachedRepository.getRepository());
+        assertSame(oldRepositoryDTO, cachedRepository.getCachedRepository().orElse(null));
+
+        assertSame(newRepositoryDTO, cachedRepository.fetchInstallableApplications());
+        assertSame(newRepositoryDTO, cachedRepository.getRepository());
+        verify(repository, times(2)).fetchInstallableApplications();
+    }
+
+    @Test
+    public void testInvalidationDuringFetchKeepsRepositoryStale() {
+        final RepositoryDTO oldRepositoryDTO = new RepositoryDTO.Builder().withName("old").build();
+        final RepositoryDTO newRepositoryDTO = new RepositoryDTO.Builder().withName("new").build();
+
+        final Repository repository = mock(Repository.class);
+        final CachedRepository cachedRepository = new CachedRepository(repository);
+
+        when(repository.fetchInstallableApplications()).thenAnswer(invocation -> {
+            // the repositories change while the old repository is fetched
+            cachedRepository.invalidate();
+            return oldRepositoryDTO;
+        }).thenReturn(newRepositoryDTO);
+
+        assertSame(oldRepositoryDTO, cachedRepository.fetchInstallableApplications());
+        assertSame(newRepositoryDTO, cachedRepository.fetchInstallableApplications());
+        verify(repository, times(2)).fetchInstallableApplications();
+    }
+
+    @Test
+    public void testLookupsDoNotWaitForRefresh() throws Exception {
+        final RepositoryDTO oldRepositoryDTO = new RepositoryDTO.Builder().withName("old").build();
+        final RepositoryDTO newRepositoryDTO = new RepositoryDTO.Builder().withName("new").build();
+
+        final CountDownLatch refreshStarted = new CountDownLatch(1);
+        final CountDownLatch lookupsFinished = new CountDownLatch(1);
+
+        final Repository repository = mock(Repository.class);
+        when(repository.fetchInstallableApplications()).thenReturn(oldRepositoryDTO).thenAnswer(invocation -> {
+            refreshStarted.countDown();
+            assertTrue(lookupsFinished.await(10, TimeUnit.SECONDS));
+            return newRepositoryDTO;
+        });
+
+        final CachedRepository cachedRepository = new CachedRepository(repository);
+        cachedRepository.fetchInstallableApplications();
+        cachedRepository.invalidate();
+
+        final CompletableFuture<RepositoryDTO> refresh = CompletableFuture
+                .supplyAsync(cachedRepository::fetchInstallableApplications);
+        assertTrue(refreshStarted.await(10, TimeUnit.SECONDS));
+
+        // the refresh is blocked, the lookups are served by the previous generation
+        assertSame(oldRepositoryDTO, cachedRepository.getRepository());
+        assertSame(RepositoryIndex.of(oldRepositoryDTO), cachedRepository.getIndex());
+        lookupsFinished.countDown();
+
+        assertSame(newRepositoryDTO, refresh.get(10, TimeUnit.SECONDS));
+        assertSame(newRepositoryDTO, cachedRepository.getRepository());
+    }
+
+    @Test
+    public void testConcurrentFetchesShareOneFetch() throws Exception {
+        final RepositoryDTO repositoryDTO = new RepositoryDTO.Builder().withName("repository").build();
+
+        final CountDownLatch fetchStarted = new CountDownLatch(1);
+        final CountDownLatch fetchReleased = new CountDownLatch(1);
+
+        final Repository repository = mock(Repository.class);
+        when(repository.fetchInstallableApplications()).thenAnswer(invocation -> {
+            fetchStarted.countDown();
+            assertTrue(fetchReleased.await(10, TimeUnit.SECONDS));
+            return repositoryDTO;
+        });
+
+        final CachedRepository cachedRepository = new CachedRepository(repository);
+
+        final CompletableFuture<RepositoryDTO> firstFetch = CompletableFuture
+                .supplyAsync(cachedRepository::fetchInstallableApplications);
+        assertTrue(fetchStarted.await(10, TimeUnit.SECONDS));
+
+        final CompletableFuture<RepositoryDTO> secondFetch = new CompletableFuture<>();
+        final Thread secondThread = new Thread(
+                () -> secondFetch.complete(cachedRepository.fetchInstallableApplications()));
+        secondThread.start();
+
+        // wait until the second fetch waits for the running fetch
+        while (secondThread.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+        fetchReleased.countDown();
+
+        assertSame(repositoryDTO, firstFetch.get(10, TimeUnit.SECONDS));
+        assertSame(repositoryDTO, secondFetch.get(10, TimeUnit.SECONDS));
+        verify(repository, times(1)).fetchInstallableApplications();
+    }
+
+    @Test
+    public void testFetchInstallableApplicationsAsyncUsesCurrentRepository() throws Exception {
+        final RepositoryDTO repositoryDTO = new RepositoryDTO.Builder().withName("repository").build();
+
+        final Repository repository = mock(Repository.class);
+        when(repository.fetchInstallableApplications()).thenReturn(repositoryDTO);
+
+        final CachedRepository cachedRepository = new CachedRepository(repository);
+
+        assertSame(repositoryDTO, cachedRepository.fetchInstallableApplicationsAsync().get(10, TimeUnit.SECONDS));
+        assertSame(repositoryDTO, cachedRepository.fetchInstallableApplicationsAsync().get(10, TimeUnit.SECONDS));
+        verify(repository, times(1)).fetchInstallableApplications();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.types;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.phoenicis.repository.dto.ApplicationDTO;
+import org.phoenicis.repository.dto.RepositoryDTO;
+import org.phoenicis.repository.dto.ScriptDTO;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ClasspathRepositoryIndexTest {
+    private static final String PACKAGE_PATH = "/org/phoenicis/repository/repositoryTest";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private File outputDirectory;
+
+    @Before
+    public void setUp() throws IOException, URISyntaxException {
+        // simulates the output directory of a module containing a classpath repository
+        outputDirectory = temporaryFolder.newFolder("classes");
+        FileUtils.copyDirectory(new File(getClass().getResource(PACKAGE_PATH).toURI()),
+                new File(outputDirectory, PACKAGE_PATH));
+
+        ClasspathRepositoryIndex.write(PACKAGE_PATH, outputDirectory, objectMapper);
+    }
+
+    @Test
+    public void writeCreatesIndex() {
+        assertTrue(new File(new File(outputDirectory, PACKAGE_PATH), ClasspathRepositoryIndex.INDEX_FILE_NAME)
+                .isFile());
+    }
+
+    @Test
+    public void fetchInstallableApplicationsReadsIndex() throws IOException {
+        final RepositoryDTO scannedRepositoryDTO = new ClasspathRepository(PACKAGE_PATH,
+                new PathMatchingResourcePatternResolver(), objectMapper).fetchInstallableApplications();
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] { outputDirectory.toURI().toURL() }, null)) {
+            final RepositoryDTO indexedRepositoryDTO = new ClasspathRepository(PACKAGE_PATH,
+                    new PathMatchingResourcePatternResolver(classLoader), objectMapper).fetchInstallableApplications();
+
+            final ScriptDTO scannedScript = getApplication(scannedRepositoryDTO).getScripts().get(0);
+            final ScriptDTO indexedScript = getApplication(indexedRepositoryDTO).getScripts().get(0);
+
+            assertEquals(scannedRepositoryDTO.getTypes().size(), indexedRepositoryDTO.getTypes().size());
+            assertEquals(getApplication(scannedRepositoryDTO).getId(), getApplication(indexedRepositoryDTO).getId());
+            assertEquals(scannedScript.getId(), indexedScript.getId());
+            assertEquals(scannedScript.getScript(), indexedScript.getScript());
+
+            // the locations are resolved against the location of the index
+            assertTrue(indexedScript.getScriptLocation().toString()
+                    .startsWith(outputDirectory.toURI().toString()));
+        }
+    }
+
+    private ApplicationDTO getApplication(RepositoryDTO repositoryDTO) {
+        return repositoryDTO.getTypes().get(0).getCategories().get(1).getApplications().get(0);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.types;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.phoenicis.repository.cache.RepositorySnapshotCache;
+import org.phoenicis.repository.dto.RepositoryDTO;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+public class GitRepositoryTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File remoteDirectory;
+    private Git workingCopy;
+    private String cacheDirectoryPath;
+    private ObjectMapper objectMapper;
+    private RepositorySnapshotCache snapshotCache;
+
+    @Before
+    public void setUp() throws IOException, URISyntaxException, GitAPIException {
+        remoteDirectory = temporaryFolder.newFolder("remote.git");
+        Git.init().setBare(true).setDirectory(remoteDirectory).call().close();
+
+        final File workingDirectory = temporaryFolder.newFolder("working");
+        workingCopy = Git.cloneRepository().setURI(remoteDirectory.toURI().toString())
+                .setDirectory(workingDirectory).call();
+        FileUtils.copyDirectory(
+                new File(getClass().getResource("/org/phoenicis/repository/repositoryTest").toURI()),
+                workingDirectory);
+        commitAndPush("Initial commit");
+
+        cacheDirectoryPath = temporaryFolder.newFolder("cache").getAbsolutePath();
+
+        objectMapper = new ObjectMapper();
+        snapshotCache = new RepositorySnapshotCache(cacheDirectoryPath);
+    }
+
+    @After
+    public void tearDown() {
+        workingCopy.close();
+    }
+
+    @Test
+    public void fetchInstallableApplicationsClonesRepository() {
+        final RepositoryDTO repositoryDTO = createRepository(Duration.ZERO).fetchInstallableApplications();
+
+        assertEquals(2, repositoryDTO.getTypes().get(0).getCategories().size());
+    }
+
+    @Test
+    public void fetchInstallableApplicationsPullsNewCommits() throws IOException, GitAPIException {
+        final GitRepository repository = createRepository(Duration.ZERO);
+        repository.fetchInstallableApplications();
+
+        changeScript("// changed script");
+
+        assertEquals("// changed script", getScript(repository.fetchInstallableApplications()));
+    }
+
+    @Test
+    public void staleRepositoryContentIsReadableAfterNewCommits() throws IOException, GitAPIException {
+        final GitRepository repository = createRepository(Duration.ZERO);
+        final RepositoryDTO staleRepositoryDTO = repository.fetchInstallableApplications();
+        final String staleScript = FileUtils.readFileToString(getScriptFile(), StandardCharsets.UTF_8);
+
+        changeScript("// changed script");
+        repository.fetchInstallableApplications();
+
+        // the stale repository is still served while a refresh is running, its blobs need to stay readable
+        assertEquals(staleScript, getScript(staleRepositoryDTO));
+        assertFalse(new File(cacheDirectoryPath).list((directory, name) -> name.endsWith(".blobs")).length > 0);
+    }
+
+    @Test
+    public void fetchInstallableApplicationsReusesContentOfUnchangedCommit() {
+        final GitRepository repository = createRepository(Duration.ZERO);
+
+        assertSame(repository.fetchInstallableApplications(), repository.fetchInstallableApplications());
+    }
+
+    @Test
+    public void fetchInstallableApplicationsFromSnapshot() {
+        final RepositoryDTO repositoryDTO = createRepository(Duration.ZERO).fetchInstallableApplications();
+
+        assertEquals(repositoryDTO, createRepository(Duration.ZERO).fetchInstallableApplications());
+    }
+
+    @Test
+    public void fetchInstallableApplicationsInParallel() {
+        final List<RepositoryDTO> repositoryDTOs = IntStream.range(0, 4).parallel()
+                .mapToObj(index -> createRepository(Duration.ZERO).fetchInstallableApplications())
+                .collect(Collectors.toList());
+
+        for (RepositoryDTO repositoryDTO : repositoryDTOs) {
+            assertEquals(repositoryDTOs.get(0), repositoryDTO);
+        }
+    }
+
+    @Test
+    public void fetchInstallableApplicationsRespectsMinimumRefreshInterval() throws IOException, GitAPIException {
+        final GitRepository repository = createRepository(Duration.ofHours(1));
+        final String originalScript = getScript(repository.fetchInstallableApplications());
+
+        changeScript("// changed script");
+
+        assertEquals(originalScript, getScript(repository.fetchInstallableApplications()));
+    }
+
+    @Test
+    public void fetchInstallableApplicationsAfterRequestedUpdateIgnoresMinimumRefreshInterval()
+            throws IOException, GitAPIException {
+        final GitRepository repository = createRepository(Duration.ofHours(1));
+        repository.fetchInstallableApplications();
+
+        changeScript("// changed script");
+        repository.requestUpdate();
+
+        assertEquals("// changed script", getScript(repository.fetchInstallableApplications()));
+    }
+
+    private GitRepository createRepository(Duration minimumRefreshInterval) {
+        return new GitRepository.Factory(objectMapper, snapshotCache, minimumRefreshInterval)
+                .createInstance(remoteDirectory.toURI(), "master", cacheDirectoryPath);
+    }
+
+    private void changeScript(String content) throws IOException, GitAPIException {
+        FileUtils.writeStringToFile(getScriptFile(), content, StandardCharsets.UTF_8);
+        commitAndPush("Change script");
+    }
+
+    private File getScriptFile() {
+        return new File(workingCopy.getRepository().getWorkTree(),
+                "Applications/Graphics/Photofiltre/Online/script.js");
+    }
+
+    private void commitAndPush(String message) throws GitAPIException {
+        workingCopy.add().addFilepattern(".").call();
+        workingCopy.commit().setMessage(message).setAuthor("Test", "test@phoenicis.org")
+                .setCommitter("Test", "test@phoenicis.org").call();
+        workingCopy.push().call();
+    }
+
+    private String getScript(RepositoryDTO repositoryDTO) {
+        return repositoryDTO.getTypes().get(0).getCategories().get(1).getApplications().get(0).getScripts().get(0)
+                .getScript();
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.types;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.phoenicis.repository.RepositoryException;
+import org.phoenicis.repository.cache.RepositorySnapshotCache;
+import org.phoenicis.repository.dto.*;
+import org.phoenicis.repository.location.HttpRepositoryLocation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class HttpRepositoryTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private HttpServer server;
+    private URI indexUri;
+    private String cacheDirectoryPath;
+    private RepositorySnapshotCache snapshotCache;
+
+    // the currently served index together with its entity tag
+    private volatile byte[] index;
+    private volatile String etag;
+
+    private final AtomicInteger downloads = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        serve("application1", "\"1\"");
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+
+        indexUri = URI.create(String.format("http://%s:%d/repository/index.json",
+                server.getAddress().getHostString(), server.getAddress().getPort()));
+
+        cacheDirectoryPath = temporaryFolder.newFolder("cache").getAbsolutePath();
+        snapshotCache = new RepositorySnapshotCache(cacheDirectoryPath);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void fetchInstallableApplicationsDownloadsIndex() {
+        final RepositoryDTO repositoryDTO = createRepository().fetchInstallableApplications();
+
+        assertEquals("application1", getApplication(repositoryDTO).getId());
+        assertEquals(1, downloads.get());
+    }
+
+    @Test
+    public void fetchInstallableApplicationsResolvesRelativeLocations() {
+        final RepositoryDTO repositoryDTO = createRepository().fetchInstallableApplications();
+
+        assertEquals(indexUri.resolve("Applications/category1/application1/script.js"),
+                getApplication(repositoryDTO).getScripts().get(0).getScriptLocation());
+    }
+
+    @Test
+    public void fetchInstallableApplicationsUsesConditionalRequests() {
+        final HttpRepository repository = createRepository();
+
+        final RepositoryDTO first = repository.fetchInstallableApplications();
+        final RepositoryDTO second = repository.fetchInstallableApplications();
+
+        assertSame(first, second);
+        assertEquals(1, downloads.get());
+        assertEquals(1, notModifiedResponses.get());
+    }
+
+    @Test
+    public void fetchInstallableApplicationsReusesCachedIndexAfterRestart() {
+        final RepositoryDTO first = createRepository().fetchInstallableApplications();
+        final RepositoryDTO second = createRepository().fetchInstallableApplications();
+
+        assertEquals(first, second);
+        assertEquals(1, downloads.get());
+        assertEquals(1, notModifiedResponses.get());
+    }
+
+    @Test
+    public void fetchInstallableApplicationsDownloadsChangedIndex() throws IOException {
+        final HttpRepository repository = createRepository();
+        repository.fetchInstallableApplications();
+
+        serve("application2", "\"2\"");
+
+        assertEquals("application2", getApplication(repository.fetchInstallableApplications()).getId());
+        assertEquals(2, downloads.get());
+    }
+
+    @Test
+    public void fetchInstallableApplicationsFallsBackToCachedIndex() {
+        final RepositoryDTO first = createRepository().fetchInstallableApplications();
+
+        server.stop(0);
+
+        assertEquals(first, createRepository().fetchInstallableApplications());
+    }
+
+    @Test(expected = RepositoryException.class)
+    public void fetchInstallableApplicationsFailsWithoutCachedIndex() {
+        server.stop(0);
+
+        createRepository().fetchInstallableApplications();
+    }
+
+    @Test(expected = RepositoryException.class)
+    public void fetchInstallableApplicationsRejectsNonHttpUri() throws IOException {
+        final URI fileUri = temporaryFolder.newFile("index.json").toURI();
+
+        new HttpRepository.Factory(objectMapper, snapshotCache, Duration.ofSeconds(5))
+                .createInstance(fileUri, cacheDirectoryPath).fetchInstallableApplications();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void repositoryLocationRejectsNonHttpUri() throws IOException {
+        new HttpRepositoryLocation.Builder().withRepositoryUri(temporaryFolder.newFile("index.json").toURI()).build();
+    }
+
+    @Test
+    public void scriptContentIsDownloaded() {
+        final ScriptDTO script = getApplication(createRepository().fetchInstallableApplications()).getScripts().get(0);
+
+        assertArrayEquals(index, ContentLoader.load(script.getScriptLocation()));
+    }
+
+    @Test
+    public void scriptContentIsDownloadedAgainAfterIndexChanged() {
+        final HttpRepository repository = createRepository();
+        final URI scriptLocation = getApplication(repository.fetchInstallableApplications()).getScripts().get(0)
+                .getScriptLocation();
+
+        assertArrayEquals(index, ContentLoader.load(scriptLocation));
+
+        // a new index with the same script locations
+        index = (new String(index, StandardCharsets.UTF_8) + "\n").getBytes(StandardCharsets.UTF_8);
+        etag = "\"2\"";
+        repository.fetchInstallableApplications();
+
+        assertArrayEquals(index, ContentLoader.load(scriptLocation));
+    }
+
+    private HttpRepository createRepository() {
+        return new HttpRepository.Factory(objectMapper, snapshotCache, Duration.ofSeconds(5))
+                .createInstance(indexUri, cacheDirectoryPath);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        final byte[] currentIndex = index;
+        final String currentEtag = etag;
+
+        if (currentEtag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModifiedResponses.incrementAndGet();
+
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        downloads.incrementAndGet();
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("ETag", currentEtag);
+        exchange.sendResponseHeaders(200, currentIndex.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(currentIndex);
+        }
+    }
+
+    private void serve(String applicationId, String etag) throws IOException {
+        final ScriptDTO script = new ScriptDTO.Builder()
+                .withTypeId("Applications")
+                .withCategoryId("category1")
+                .withApplicationId(applicationId)
+                .withId("script1")
+                .withScriptLocation(URI.create("Applications/category1/" + applicationId + "/script.js"))
+                .build();
+
+        final RepositoryDTO repositoryDTO = new RepositoryDTO.Builder()
+                .withName("http")
+                .withTypes(Collections.singletonList(new TypeDTO.Builder()
+                        .withId("Applications")
+                        .withCategories(Collections.singletonList(new CategoryDTO.Builder()
+                                .withTypeId("Applications")
+                                .withId("category1")
+                                .withApplications(Collections.singletonList(new ApplicationDTO.Builder()
+                                        .withTypeId("Applications")
+                                        .withCategoryId("category1")
+                                        .withId(applicationId)
+                                        .withScripts(Collections.singletonList(script))
+                                        .build()))
+                                .build()))
+                        .build()))
+                .build();
+
+        this.index = objectMapper.writeValueAsBytes(repositoryDTO);
+        this.etag = etag;
+    }
+
+    private ApplicationDTO getApplication(RepositoryDTO repositoryDTO) {
+        return repositoryDTO.getTypes().get(0).getCategories().get(0).getApplications().get(0);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2015-2017 PÂRIS Quentin
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.phoenicis.repository.types;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.phoenicis.repository.cache.RepositorySnapshotCache;
+import org.phoenicis.repository.dto.ApplicationDTO;
+import org.phoenicis.repository.dto.CategoryDTO;
+import org.phoenicis.repository.dto.RepositoryDTO;
+import org.phoenicis.repository.dto.ResourceDTO;
+import org.phoenicis.repository.dto.ScriptDTO;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class LocalRepositoryTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File repositoryDirectory;
+    private LocalRepository.Factory localRepositoryFactory;
+
+    @Before
+    public void setUp() throws IOException, URISyntaxException {
+        repositoryDirectory = temporaryFolder.newFolder("repository");
+        FileUtils.copyDirectory(
+                new File(getClass().getResource("/org/phoenicis/repository/repositoryTest").toURI()),
+                repositoryDirectory);
+
+        final ObjectMapper objectMapper = new ObjectMapper();
+        localRepositoryFactory = new LocalRepository.Factory(objectMapper,
+                new RepositorySnapshotCache(temporaryFolder.newFolder("cache").getAbsolutePath()),
+                new ForkJoinPool(2));
+    }
+
+    @Test
+    public void fetchInstallableApplicationsNumberOfCategories() {
+        final Repository repository = localRepositoryFactory.createInstance(repositoryDirectory);
+
+        assertEquals(2, repository.fetchInstallableApplications().getTypes().get(0).getCategories().size());
+    }
+
+    @Test
+    public void fetchInstallableApplicationsCategoriesNames() {
+        final RepositoryDTO repositoryDTO = localRepositoryFactory.createInstance(repositoryDirectory)
+                .fetchInstallableApplications();
+
+        assertEquals("Development", repositoryDTO.getTypes().get(0).getCategories().get(0).getName());
+        assertEquals("Graphics", repositoryDTO.getTypes().get(0).getCategories().get(1).getName());
+    }
+
+    @Test
+    public void fetchInstallableApplicationsFromSnapshot() {
+        final RepositoryDTO repositoryDTO = localRepositoryFactory.createInstance(repositoryDirectory)
+                .fetchInstallableApplications();
+
+        assertEquals(repositoryDTO,
+                localRepositoryFactory.createInstance(repositoryDirectory).fetchInstallableApplications());
+    }
+
+    @Test
+    public void fetchInstallableApplicationsOnlyRereadsChangedApplications() throws IOException {
+        final Repository repository = localRepositoryFactory.createInstance(repositoryDirectory);
+
+        final RepositoryDTO oldRepositoryDTO = repository.fetchInstallableApplications();
+
+        final File scriptFile = new File(repositoryDirectory,
+                "Applications/Graphics/Photofiltre/Online/script.js");
+        FileUtils.writeStringToFile(scriptFile, "// changed script", StandardCharsets.UTF_8);
+
+        final RepositoryDTO newRepositoryDTO = repository.fetchInstallableApplications();
+
+        assertSame(getApplication(oldRepositoryDTO, 0), getApplication(newRepositoryDTO, 0));
+        assertNotSame(getApplication(oldRepositoryDTO, 1), getApplication(newRepositoryDTO, 1));
+        assertEquals("// changed script", getApplication(newRepositoryDTO, 1).getScripts().get(0).getScript());
+    }
+
+    @Test
+    public void fetchInstallableApplicationsLoadsContentOnDemand() throws IOException {
+        final RepositoryDTO repositoryDTO = localRepositoryFactory.createInstance(repositoryDirectory)
+                .fetchInstallableApplications();
+
+        final ScriptDTO script = getApplication(repositoryDTO, 1).getScripts().get(0);
+        final ResourceDTO resource = getApplication(repositoryDTO, 0).getResources().get(0);
+
+        assertNull(script.getInlineScript());
+        assertEquals(FileUtils.readFileToString(new File(script.getScriptLocation()), StandardCharsets.UTF_8),
+                script.getScript());
+        assertArrayEquals(FileUtils.readFileToByteArray(new File(resource.getLocation())), resource.getContent());
+    }
+
+    private ApplicationDTO getApplication(RepositoryDTO repositoryDTO, int categoryIndex) {
+        final CategoryDTO category = repositoryDTO.getTypes().get(0).getCategories().get(categoryIndex);
+
+        return category.getApplications().get(0);
+    }
+}
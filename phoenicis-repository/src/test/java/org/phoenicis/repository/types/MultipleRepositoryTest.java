@@ -21,17 +21,27 @@ package org.phoenicis.repository.types;
 import org.phoenicis.repository.dto.CategoryDTO;
 import org.junit.Test;
 import org.phoenicis.repository.dto.RepositoryDTO;
+import org.phoenicis.repository.dto.RepositoryFootprint;
 import org.phoenicis.repository.dto.TypeDTO;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class MultipleRepositoryTest {
+    /*
+     * The repository DTOs fetched from the child repositories. They are kept in a static field so that they are not
+     * reachable from the child repositories and therefore not counted as retained by the multiple repository
+     */
+    private static final List<RepositoryDTO> FETCHED_REPOSITORY_DTOS = new CopyOnWriteArrayList<>();
+
     @Test
     public void testWithEmptyListEmptySetIsReturned() {
         final MultipleRepository multipleRepository = new MultipleRepository();
-        assertEquals(null, multipleRepository.fetchInstallableApplications());
+        assertTrue(multipleRepository.fetchInstallableApplications().getTypes().isEmpty());
     }
 
     @Test
@@ -62,4 +72,72 @@ public class MultipleRepositoryTest {
         final MultipleRepository multipleRepository = new MultipleRepository(firstSource, secondSource, thirdSource);
         assertEquals(3, multipleRepository.fetchInstallableApplications().getTypes().get(0).getCategories().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testUnchangedRepositoriesAreNotMergedAgain() {
+        final RepositoryDTO firstRepositoryDTO = createRepositoryDTO("type1", "category1");
+        final RepositoryDTO secondRepositoryDTO = createRepositoryDTO("type1", "category2");
+
+        final MultipleRepository multipleRepository = new MultipleRepository(() -> firstRepositoryDTO,
+                () -> secondRepositoryDTO);
+
+        assertSame(multipleRepository.fetchInstallableApplications(),
+                multipleRepository.fetchInstallableApplications());
+    }
+
+    @Test
+    public void testOnlyChangedSubtreesAreMergedAgain() {
+        final RepositoryDTO firstRepositoryDTO = createRepositoryDTO("type1", "category1");
+        final RepositoryDTO secondRepositoryDTO = createRepositoryDTO("type1", "category2");
+        final AtomicReference<RepositoryDTO> thirdRepositoryDTO = new AtomicReference<>(
+                createRepositoryDTO("type2", "category3"));
+
+        final MultipleRepository multipleRepository = new MultipleRepository(() -> firstRepositoryDTO,
+                () -> secondRepositoryDTO, thirdRepositoryDTO::get);
+
+        final RepositoryDTO oldRepositoryDTO = multipleRepository.fetchInstallableApplications();
+
+        thirdRepositoryDTO.set(createRepositoryDTO("type2", "category4"));
+
+        final RepositoryDTO newRepositoryDTO = multipleRepository.fetchInstallableApplications();
+
+        assertNotSame(oldRepositoryDTO, newRepositoryDTO);
+        assertSame(oldRepositoryDTO.getTypes().get(0), newRepositoryDTO.getTypes().get(0));
+        assertEquals("category4", newRepositoryDTO.getTypes().get(1).getCategories().get(0).getId());
+    }
+
+    @Test
+    public void testMergeDoesNotRetainChildRepositories() {
+        FETCHED_REPOSITORY_DTOS.clear();
+
+        final MultipleRepository multipleRepository = new MultipleRepository(
+                () -> fetched(createRepositoryDTO("type1", "category1")),
+                () -> fetched(createRepositoryDTO("type1", "category2")));
+
+        final RepositoryDTO mergedRepositoryDTO = multipleRepository.fetchInstallableApplications();
+
+        final RepositoryFootprint retained = RepositoryFootprint.retainedBy(mergedRepositoryDTO, multipleRepository);
+        final RepositoryFootprint retainedWithChildren = RepositoryFootprint.retainedBy(mergedRepositoryDTO,
+                multipleRepository, FETCHED_REPOSITORY_DTOS.toArray());
+
+        assertEquals(2, FETCHED_REPOSITORY_DTOS.size());
+        // the child trees are only counted if they are not already retained by the multiple repository
+        assertTrue(retained + " / " + retainedWithChildren,
+                retainedWithChildren.getBytes() > retained.getBytes());
+    }
+
+    private static RepositoryDTO fetched(RepositoryDTO repositoryDTO) {
+        FETCHED_REPOSITORY_DTOS.add(repositoryDTO);
+        return repositoryDTO;
+    }
+
+    private RepositoryDTO createRepositoryDTO(String typeId, String categoryId) {
+        return new RepositoryDTO.Builder().withTypes(Collections.singletonList(
+                new TypeDTO.Builder()
+                        .withId(typeId)
+                        .withCategories(Collections.singletonList(
+                                new CategoryDTO.Builder().withId(categoryId).build()))
+                        .build()))
+                .build();
+    }
+}
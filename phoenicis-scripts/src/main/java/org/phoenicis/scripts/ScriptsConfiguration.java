@@ -34,6 +34,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
+import javax.annotation.PostConstruct;
 import java.util.Arrays;
 
 @Configuration
@@ -51,6 +52,13 @@ public class ScriptsConfiguration {
     @Autowired
     private MultithreadingConfiguration multithreadingConfiguration;
 
+    @PostConstruct
+    public void closeScriptEnginesOnShutdown() {
+        // the shared engine is closed after the script executor has been shut down
+        multithreadingConfiguration.controllerThreadPoolExecutorServiceCloser()
+                .addCloseAction(ScriptEngineType.GRAAL::closeSharedEngine);
+    }
+
     @Bean
     public PhoenicisScriptEngineFactory graalScriptEngineFactory() {
         return new PhoenicisScriptEngineFactory(ScriptEngineType.GRAAL, Arrays.asList(new ScriptUtilitiesInjector(),
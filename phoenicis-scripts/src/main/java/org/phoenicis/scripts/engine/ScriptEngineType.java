@@ -2,6 +2,7 @@ package org.phoenicis.scripts.engine;
 
 import org.phoenicis.scripts.engine.implementation.PhoenicisScriptEngine;
 import org.phoenicis.scripts.engine.implementation.PolyglotScriptEngine;
+import org.phoenicis.scripts.engine.implementation.SharedPolyglotEngine;
 
 import java.util.Map;
 
@@ -10,12 +11,33 @@ import java.util.Map;
  */
 public enum ScriptEngineType {
     GRAAL("graal.js") {
+        /**
+         * The engine shared by all created script engines, it is created when the first script engine is created
+         */
+        private SharedPolyglotEngine sharedEngine;
+
         @Override
         public PhoenicisScriptEngine createScriptEngine() {
-            return new PolyglotScriptEngine("js",
+            return new PolyglotScriptEngine(getSharedEngine(), "js",
                     Map.of("js.nashorn-compat", "true",
                             "js.experimental-foreign-object-prototype", "true"));
         }
+
+        @Override
+        public synchronized void closeSharedEngine() {
+            if (sharedEngine != null) {
+                sharedEngine.close();
+                sharedEngine = null;
+            }
+        }
+
+        private synchronized SharedPolyglotEngine getSharedEngine() {
+            if (sharedEngine == null) {
+                sharedEngine = new SharedPolyglotEngine();
+            }
+
+            return sharedEngine;
+        }
     };
 
     /**
@@ -39,6 +61,12 @@ public enum ScriptEngineType {
      */
     public abstract PhoenicisScriptEngine createScriptEngine();
 
+    /**
+     * Closes the engine shared by the created script engines, if it has been created.
+     * Script engines created afterwards use a new shared engine
+     */
+    public abstract void closeSharedEngine();
+
     @Override
     public String toString() {
         return this.name;
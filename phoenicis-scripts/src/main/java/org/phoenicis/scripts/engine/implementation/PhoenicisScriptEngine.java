@@ -34,6 +34,19 @@ public interface PhoenicisScriptEngine {
 
     Object evalAndReturn(String line, Consumer<Exception> errorCallback);
 
+    /**
+     * Evaluates a named script and returns its result. The name identifies the script, which allows implementations
+     * to reuse the parsed script when it is evaluated again
+     *
+     * @param name The name of the script
+     * @param script The script
+     * @param errorCallback The callback for errors during the evaluation
+     * @return The result of the script
+     */
+    default Object evalAndReturn(String name, String script, Consumer<Exception> errorCallback) {
+        return evalAndReturn(script, errorCallback);
+    }
+
     void put(String name, Object object, Consumer<Exception> errorCallback);
 
     void addErrorHandler(Consumer<Exception> errorHandler);
@@ -3,6 +3,7 @@ package org.phoenicis.scripts.engine.implementation;
 import com.google.common.util.concurrent.Runnables;
 import org.apache.commons.io.IOUtils;
 import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -12,9 +13,15 @@ import java.util.Map;
 import java.util.function.Consumer;
 
 /**
- * A {@link PhoenicisScriptEngine} wrapping around a polyglot {@link Context} object defined by Graal
+ * A {@link PhoenicisScriptEngine} wrapping around a polyglot {@link Context} object defined by Graal.
+ * The context is bound to a {@link SharedPolyglotEngine}, which allows it to reuse the code parsed by other contexts
  */
 public class PolyglotScriptEngine implements PhoenicisScriptEngine {
+    /**
+     * The name of scripts evaluated without a name
+     */
+    private static final String UNNAMED_SCRIPT = "Unnamed";
+
     /**
      * A list of error handlers
      */
@@ -25,6 +32,11 @@ public class PolyglotScriptEngine implements PhoenicisScriptEngine {
      */
     private final String language;
 
+    /**
+     * The shared engine the context is bound to
+     */
+    private final SharedPolyglotEngine sharedEngine;
+
     /**
      * The context representing the handle to the scripting engine
      */
@@ -33,18 +45,17 @@ public class PolyglotScriptEngine implements PhoenicisScriptEngine {
     /**
      * Constructor
      *
+     * @param sharedEngine The shared engine the context is bound to
      * @param language The language name
      * @param options A map of options for the Polyglot context
      */
-    public PolyglotScriptEngine(String language, Map<String, String> options) {
+    public PolyglotScriptEngine(SharedPolyglotEngine sharedEngine, String language, Map<String, String> options) {
         super();
 
         this.errorHandlers = new ArrayList<>();
         this.language = language;
-        this.context = Context.newBuilder(language)
-                .allowExperimentalOptions(true)
-                .allowHostAccess(true)
-                .options(options).build();
+        this.sharedEngine = sharedEngine;
+        this.context = sharedEngine.createContext(language, options);
     }
 
     @Override
@@ -61,7 +72,7 @@ public class PolyglotScriptEngine implements PhoenicisScriptEngine {
     @Override
     public void eval(String script, Runnable doneCallback, Consumer<Exception> errorCallback) {
         try {
-            this.context.eval(this.language, script);
+            this.context.eval(createUnnamedSource(script));
         } catch (Exception e) {
             handleError(errorCallback, e);
         }
@@ -70,7 +81,18 @@ public class PolyglotScriptEngine implements PhoenicisScriptEngine {
     @Override
     public Object evalAndReturn(String script, Consumer<Exception> errorCallback) {
         try {
-            return this.context.eval(this.language, script);
+            return this.context.eval(createUnnamedSource(script));
+        } catch (Exception e) {
+            handleError(errorCallback, e);
+
+            return "";
+        }
+    }
+
+    @Override
+    public Object evalAndReturn(String name, String script, Consumer<Exception> errorCallback) {
+        try {
+            return this.context.eval(this.sharedEngine.getSource(this.language, name, script));
         } catch (Exception e) {
             handleError(errorCallback, e);
 
@@ -88,6 +110,26 @@ public class PolyglotScriptEngine implements PhoenicisScriptEngine {
         this.errorHandlers.add(errorHandler);
     }
 
+    /**
+     * Returns the shared engine the context is bound to
+     *
+     * @return The shared engine
+     */
+    public SharedPolyglotEngine getSharedEngine() {
+        return this.sharedEngine;
+    }
+
+    /**
+     * Creates the source of a script evaluated without a name, e.g. a console line or an installer. These scripts
+     * are usually evaluated only once, therefore their parsed code is not cached
+     *
+     * @param script The script
+     * @return The source of the script
+     */
+    private Source createUnnamedSource(String script) {
+        return Source.newBuilder(this.language, script, UNNAMED_SCRIPT).cached(false).buildLiteral();
+    }
+
     private void handleError(Consumer<Exception> errorCallback, Exception e) {
         for (Consumer<Exception> errorHandler : this.errorHandlers) {
             errorHandler.accept(e);
@@ -0,0 +1,82 @@
+package org.phoenicis.scripts.engine.implementation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.Source;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A polyglot {@link Engine} shared between all {@link Context} objects of a script engine type.
+ * Contexts bound to the same engine reuse the parsed and compiled code of the {@link Source} objects they evaluate,
+ * therefore the same scripts, like included libraries, are only parsed once
+ */
+public class SharedPolyglotEngine {
+    /**
+     * The maximum number of cached {@link Source} objects
+     */
+    private static final long MAXIMUM_SOURCES = 1000;
+
+    /**
+     * The engine shared by all contexts
+     */
+    private final Engine engine;
+
+    /**
+     * The already created sources of named scripts (language, name, script -> source)
+     */
+    private final Cache<List<String>, Source> sources;
+
+    /**
+     * Constructor
+     */
+    public SharedPolyglotEngine() {
+        super();
+
+        this.engine = Engine.create();
+        this.sources = CacheBuilder.newBuilder()
+                .maximumSize(MAXIMUM_SOURCES)
+                .build();
+    }
+
+    /**
+     * Creates a new context bound to the shared engine
+     *
+     * @param language The language name
+     * @param options A map of options for the Polyglot context
+     * @return The new context
+     */
+    public Context createContext(String language, Map<String, String> options) {
+        return Context.newBuilder(language)
+                .engine(this.engine)
+                .allowExperimentalOptions(true)
+                .allowHostAccess(true)
+                .options(options).build();
+    }
+
+    /**
+     * Returns the cached {@link Source} for the given named script, e.g. an included script. Evaluating the same
+     * source in multiple contexts of the shared engine reuses its parsed and compiled code
+     *
+     * @param language The language name
+     * @param name The name of the script
+     * @param script The script
+     * @return The source of the script
+     */
+    public Source getSource(String language, String name, String script) {
+        return this.sources.asMap().computeIfAbsent(Arrays.asList(language, name, script),
+                key -> Source.newBuilder(language, script, name).cached(true).buildLiteral());
+    }
+
+    /**
+     * Closes the shared engine together with all contexts bound to it, running scripts are cancelled
+     */
+    public void close() {
+        this.sources.invalidateAll();
+        this.engine.close(true);
+    }
+}
@@ -47,7 +47,8 @@ public class IncludeInjector implements EngineInjector {
                 try {
                     // wrap the loaded script in a function to prevent it from influencing the main script
                     String extendedString = String.format("(module) => { %s }", script);
-                    Value includeFunction = (Value) phoenicisScriptEngine.evalAndReturn(extendedString,
+                    // the script ID names the script, so other engines can reuse it after it has been parsed once
+                    Value includeFunction = (Value) phoenicisScriptEngine.evalAndReturn(argument, extendedString,
                             this::throwException);
 
                     // create an empty JS object
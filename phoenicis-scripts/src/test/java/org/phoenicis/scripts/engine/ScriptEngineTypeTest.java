@@ -0,0 +1,66 @@
+package org.phoenicis.scripts.engine;
+
+import org.graalvm.polyglot.Value;
+import org.junit.Test;
+import org.phoenicis.scripts.engine.implementation.PhoenicisScriptEngine;
+import org.phoenicis.scripts.engine.implementation.PolyglotScriptEngine;
+import org.phoenicis.scripts.engine.injectors.IncludeInjector;
+import org.phoenicis.scripts.interpreter.ScriptFetcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ScriptEngineTypeTest {
+    private static final String INCLUDED_SCRIPT = "module.default = { answer: () => 42 };";
+
+    @Test
+    public void testGraalEnginesShareOnePolyglotEngine() {
+        final PolyglotScriptEngine firstEngine = (PolyglotScriptEngine) ScriptEngineType.GRAAL.createScriptEngine();
+        final PolyglotScriptEngine secondEngine = (PolyglotScriptEngine) ScriptEngineType.GRAAL.createScriptEngine();
+
+        assertSame(firstEngine.getSharedEngine(), secondEngine.getSharedEngine());
+    }
+
+    @Test
+    public void testClosedSharedEngineIsReplaced() {
+        final PolyglotScriptEngine firstEngine = (PolyglotScriptEngine) ScriptEngineType.GRAAL.createScriptEngine();
+
+        ScriptEngineType.GRAAL.closeSharedEngine();
+
+        final PolyglotScriptEngine secondEngine = (PolyglotScriptEngine) ScriptEngineType.GRAAL.createScriptEngine();
+
+        assertNotSame(firstEngine.getSharedEngine(), secondEngine.getSharedEngine());
+        assertEquals(42, evalAnswer(createEngineWithInclude()));
+    }
+
+    @Test
+    public void testIncludeEvaluatesInEveryContext() {
+        final PhoenicisScriptEngine firstEngine = createEngineWithInclude();
+        final PhoenicisScriptEngine secondEngine = createEngineWithInclude();
+
+        assertEquals(42, evalAnswer(firstEngine));
+        assertEquals(42, evalAnswer(secondEngine));
+    }
+
+    private PhoenicisScriptEngine createEngineWithInclude() {
+        final PhoenicisScriptEngine engine = ScriptEngineType.GRAAL.createScriptEngine();
+
+        new IncludeInjector(new ScriptFetcher(null) {
+            @Override
+            public String getScript(String id) {
+                return INCLUDED_SCRIPT;
+            }
+        }).injectInto(engine);
+
+        return engine;
+    }
+
+    private int evalAnswer(PhoenicisScriptEngine engine) {
+        final Value answer = (Value) engine.evalAndReturn("include('test.included').answer()", e -> {
+            throw new IllegalStateException(e);
+        });
+
+        return answer.asInt();
+    }
+}